@@ -0,0 +1,137 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
+import org.jetbrains.kotlin.cli.common.messages.MessageCollector;
+import org.jetbrains.kotlin.cli.jvm.compiler.CliLightClassGenerationSupport;
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
+import org.jetbrains.kotlin.cli.jvm.compiler.JvmPackagePartProvider;
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
+import org.jetbrains.kotlin.cli.jvm.config.JVMConfigurationKeys;
+import org.jetbrains.kotlin.cli.jvm.config.JvmContentRootsKt;
+import org.jetbrains.kotlin.config.CompilerConfiguration;
+import org.jetbrains.kotlin.diagnostics.Diagnostic;
+import org.jetbrains.kotlin.diagnostics.Severity;
+import org.jetbrains.kotlin.diagnostics.rendering.DefaultErrorMessages;
+import org.jetbrains.kotlin.psi.KtFile;
+import org.jetbrains.kotlin.psi.KtPsiFactory;
+import org.jetbrains.kotlin.resolve.BindingContext;
+import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM;
+import org.jetbrains.kotlin.utils.KotlinPaths;
+import org.jetbrains.kotlin.utils.PathUtil;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class of benchmarks which need a project: creates a compiler environment with the JDK, the Kotlin runtime and reflection
+ * on the classpath, like the command line compiler does, and parses sources of a corpus in it.
+ */
+public abstract class AbstractFrontendBenchmark {
+    protected static final String MODULE_NAME = "benchmark";
+
+    // set by the benchmarks target of build.xml, which runs the compiler jar from before proguard, so that PathUtil can't find dist;
+    // benchmarks run from the project root use the jars in dist otherwise
+    private static final String RUNTIME_JAR_PROPERTY = "kotlin.runtime.jar";
+    private static final String REFLECT_JAR_PROPERTY = "kotlin.reflect.jar";
+
+    private Disposable disposable;
+    protected KotlinCoreEnvironment environment;
+
+    // a single setup method, because the order in which JMH calls setup methods of a class and its superclass is not specified
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        createEnvironment();
+        prepare();
+    }
+
+    // called after the environment is created
+    protected abstract void prepare() throws IOException;
+
+    private void createEnvironment() {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, MessageCollector.NONE);
+        configuration.put(JVMConfigurationKeys.MODULE_NAME, MODULE_NAME);
+        JvmContentRootsKt.addJvmClasspathRoots(configuration, PathUtil.getJdkClassesRoots());
+        KotlinPaths paths = PathUtil.getKotlinPathsForDistDirectory();
+        JvmContentRootsKt.addJvmClasspathRoot(configuration, getJar(RUNTIME_JAR_PROPERTY, paths.getRuntimePath()));
+        JvmContentRootsKt.addJvmClasspathRoot(configuration, getJar(REFLECT_JAR_PROPERTY, paths.getReflectPath()));
+
+        disposable = Disposer.newDisposable();
+        environment = KotlinCoreEnvironment.createForProduction(disposable, configuration, EnvironmentConfigFiles.JVM_CONFIG_FILES);
+    }
+
+    @NotNull
+    private static File getJar(@NotNull String property, @NotNull File defaultJar) {
+        String path = System.getProperty(property);
+        File jar = path != null ? new File(path) : defaultJar;
+        if (!jar.isFile()) {
+            throw new IllegalStateException(jar + " is not found, build dist or set -D" + property);
+        }
+        return jar;
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeEnvironment() {
+        Disposer.dispose(disposable);
+    }
+
+    @NotNull
+    protected List<KtFile> createFiles(@NotNull BenchmarkCorpus corpus) throws IOException {
+        KtPsiFactory factory = new KtPsiFactory(environment.getProject());
+        List<KtFile> files = new ArrayList<KtFile>();
+        for (Map.Entry<String, String> entry : corpus.load().entrySet()) {
+            files.add(factory.createPhysicalFile(new File(entry.getKey()).getName(), entry.getValue()));
+        }
+        return files;
+    }
+
+    // Every file is analyzed separately, because files of a corpus are independent tests which often declare the same top level functions
+    @NotNull
+    protected AnalysisResult analyze(@NotNull KtFile file) {
+        return TopDownAnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationWithCustomContext(
+                TopDownAnalyzerFacadeForJVM.createContextWithSealedModule(environment.getProject(), MODULE_NAME),
+                Collections.singletonList(file),
+                new CliLightClassGenerationSupport.NoScopeRecordCliBindingTrace(),
+                null,
+                null,
+                new JvmPackagePartProvider(environment));
+    }
+
+    // Fails if the file has errors, e.g. because of a missing library, so that they don't silently shrink what is measured
+    protected static void checkNoErrors(@NotNull KtFile file, @NotNull BindingContext bindingContext) {
+        for (Diagnostic diagnostic : bindingContext.getDiagnostics()) {
+            if (diagnostic.getSeverity() == Severity.ERROR) {
+                throw new IllegalStateException(
+                        "Analysis of " + file.getName() + " has errors, e.g. " + DefaultErrorMessages.render(diagnostic) +
+                        ", the classpath or the corpus should be fixed");
+            }
+        }
+    }
+}
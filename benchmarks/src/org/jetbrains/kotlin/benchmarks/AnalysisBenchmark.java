@@ -0,0 +1,62 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import org.jetbrains.kotlin.psi.KtFile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures full analysis of files of a corpus. Resolver components can't be run without the rest of the analysis,
+ * so every corpus is chosen to stress one of them:
+ * CALLS - CallResolver and overload resolution, OVERRIDES - OverrideResolver, SMART_CASTS - data flow analysis.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AnalysisBenchmark extends AbstractFrontendBenchmark {
+    @Param({"CALLS", "OVERRIDES", "SMART_CASTS"})
+    public BenchmarkCorpus corpus;
+
+    private List<KtFile> files;
+
+    @Override
+    protected void prepare() throws IOException {
+        files = createFiles(corpus);
+    }
+
+    @Benchmark
+    public void analyzeFiles(Blackhole blackhole) {
+        for (KtFile file : files) {
+            blackhole.consume(analyze(file).getBindingContext());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AnalysisBenchmark.class.getSimpleName()).build()).run();
+    }
+}
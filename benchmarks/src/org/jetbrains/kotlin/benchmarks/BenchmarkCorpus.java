@@ -0,0 +1,89 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.checkers.CheckerTestUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Fixed sets of Kotlin sources from compiler/testData which front-end benchmarks are run on.
+ * Benchmarks are expected to be run from the project root, as tests are.
+ */
+public enum BenchmarkCorpus {
+    // parser test data, a bit of every syntactic construct
+    PSI("compiler/testData/psi"),
+    // calls of overloaded functions, extensions, default and named arguments
+    CALLS("compiler/testData/codegen/box/functions", "compiler/testData/codegen/box/extensionFunctions"),
+    // class hierarchies with fake overrides, bridges and interface implementations
+    OVERRIDES("compiler/testData/codegen/box/bridges", "compiler/testData/codegen/box/traits", "compiler/testData/codegen/box/fakeOverride"),
+    // smart casts in all kinds of control flow, diagnostic markers are removed
+    SMART_CASTS("compiler/testData/diagnostics/tests/smartCasts", "compiler/testData/codegen/box/smartCasts");
+
+    private final String[] directories;
+
+    BenchmarkCorpus(String... directories) {
+        this.directories = directories;
+    }
+
+    /**
+     * @return texts of all single-file sources of the corpus, by file name relative to the project root, in a stable order
+     */
+    @NotNull
+    public Map<String, String> load() throws IOException {
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        for (String directory : directories) {
+            List<File> files = new ArrayList<File>();
+            collectKotlinFiles(new File(directory), files);
+            if (files.isEmpty()) {
+                throw new IllegalStateException("No sources found in " + directory + ", benchmarks should be run from the project root");
+            }
+            Collections.sort(files);
+
+            for (File file : files) {
+                String text = FileUtil.loadFile(file, true);
+                // multi-file tests can't be analyzed as a single file
+                if (text.contains("// FILE:")) continue;
+                result.put(FileUtil.toSystemIndependentName(file.getPath()), removeDiagnosticMarkers(text));
+            }
+        }
+        return result;
+    }
+
+    private static void collectKotlinFiles(@NotNull File directory, @NotNull List<File> result) {
+        File[] children = directory.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectKotlinFiles(child, result);
+            }
+            else if (child.getName().endsWith(".kt")) {
+                result.add(child);
+            }
+        }
+    }
+
+    @NotNull
+    private static String removeDiagnosticMarkers(@NotNull String text) {
+        if (!text.contains("<!")) return text;
+        return CheckerTestUtil.parseDiagnosedRanges(text, new ArrayList<CheckerTestUtil.DiagnosedRange>());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.analyzer.AnalysisResult;
+import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
+import org.jetbrains.kotlin.psi.KtExpression;
+import org.jetbrains.kotlin.psi.KtFile;
+import org.jetbrains.kotlin.resolve.BindingContext;
+import org.jetbrains.kotlin.resolve.calls.smartcasts.DataFlowValue;
+import org.jetbrains.kotlin.resolve.calls.smartcasts.DataFlowValueFactory;
+import org.jetbrains.kotlin.types.KotlinType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DataFlowValueFactory, which is called for every expression that might be smart cast:
+ * data flow values are created for all typed expressions of an analyzed corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DataFlowValueBenchmark extends AbstractFrontendBenchmark {
+    @Param({"SMART_CASTS", "CALLS"})
+    public BenchmarkCorpus corpus;
+
+    private final List<KtExpression> expressions = new ArrayList<KtExpression>();
+    private final List<KotlinType> types = new ArrayList<KotlinType>();
+    private final List<BindingContext> bindingContexts = new ArrayList<BindingContext>();
+    private final List<DeclarationDescriptor> containingDeclarations = new ArrayList<DeclarationDescriptor>();
+
+    @Override
+    protected void prepare() throws IOException {
+        for (KtFile file : createFiles(corpus)) {
+            AnalysisResult result = analyze(file);
+            BindingContext bindingContext = result.getBindingContext();
+
+            for (KtExpression expression : PsiTreeUtil.findChildrenOfType(file, KtExpression.class)) {
+                KotlinType type = bindingContext.getType(expression);
+                if (type == null) continue;
+
+                expressions.add(expression);
+                types.add(type);
+                bindingContexts.add(bindingContext);
+                containingDeclarations.add(getContainingDeclaration(expression, bindingContext, result));
+            }
+        }
+    }
+
+    @Benchmark
+    public void createDataFlowValues(Blackhole blackhole) {
+        for (int i = 0; i < expressions.size(); i++) {
+            DataFlowValue value = DataFlowValueFactory.createDataFlowValue(
+                    expressions.get(i), types.get(i), bindingContexts.get(i), containingDeclarations.get(i));
+            blackhole.consume(value.getKind().isStable());
+            blackhole.consume(value);
+        }
+    }
+
+    @NotNull
+    private static DeclarationDescriptor getContainingDeclaration(
+            @NotNull KtExpression expression,
+            @NotNull BindingContext bindingContext,
+            @NotNull AnalysisResult result
+    ) {
+        for (PsiElement parent = expression.getParent(); parent != null; parent = parent.getParent()) {
+            DeclarationDescriptor descriptor = bindingContext.get(BindingContext.DECLARATION_TO_DESCRIPTOR, parent);
+            if (descriptor != null) return descriptor;
+        }
+        return result.getModuleDescriptor();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DataFlowValueBenchmark.class.getSimpleName()).build()).run();
+    }
+}
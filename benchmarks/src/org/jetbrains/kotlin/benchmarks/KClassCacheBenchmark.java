@@ -0,0 +1,65 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.benchmarks;
+
+import kotlin.jvm.internal.Reflection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput of {@code Foo::class} lookups in the KClass cache of kotlin-reflect by 32 threads at once:
+ * of a single class, as in a hot loop, and of many classes in turn, as in code which reflects on arbitrary objects.
+ * Run on a build before and after a change of the cache to compare.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Threads(32)
+@Fork(1)
+public class KClassCacheBenchmark {
+    private static final Class<?>[] CLASSES = {
+            Object.class, String.class, Integer.class, Long.class, Double.class, Boolean.class, Character.class, Byte.class,
+            Short.class, Float.class, List.class, ArrayList.class, LinkedList.class, Map.class, HashMap.class, TreeMap.class,
+            Set.class, HashSet.class, TreeSet.class, Iterator.class, Collection.class, Comparator.class, Random.class, Date.class,
+            StringBuilder.class, Thread.class, Runnable.class, Exception.class, RuntimeException.class, Error.class, Math.class, System.class
+    };
+
+    private int index;
+
+    @Benchmark
+    public Object sameClass() {
+        return Reflection.getOrCreateKotlinClass(String.class);
+    }
+
+    @Benchmark
+    public Object manyClasses() {
+        index = (index + 1) % CLASSES.length;
+        return Reflection.getOrCreateKotlinClass(CLASSES[index]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KClassCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
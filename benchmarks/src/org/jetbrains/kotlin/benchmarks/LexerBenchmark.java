@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.kotlin.lexer.KotlinLexer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tokenization of all sources of a corpus by the lexer generated from Kotlin.flex.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LexerBenchmark {
+    @Param({"PSI", "CALLS", "OVERRIDES", "SMART_CASTS"})
+    public BenchmarkCorpus corpus;
+
+    private List<String> texts;
+
+    @Setup(Level.Trial)
+    public void loadCorpus() throws IOException {
+        texts = new ArrayList<String>(corpus.load().values());
+    }
+
+    @Benchmark
+    public int tokenize() {
+        KotlinLexer lexer = new KotlinLexer();
+        int hash = 0;
+        for (String text : texts) {
+            lexer.start(text);
+            IElementType token;
+            while ((token = lexer.getTokenType()) != null) {
+                hash = 31 * hash + token.getIndex() + lexer.getTokenEnd();
+                lexer.advance();
+            }
+        }
+        return hash;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LexerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.containers.MultiMap;
+import org.jetbrains.kotlin.incremental.LookupStorage;
+import org.jetbrains.kotlin.incremental.LookupSymbol;
+import org.jetbrains.kotlin.incremental.storage.IntCollectionExternalizer;
+import org.jetbrains.kotlin.incremental.storage.LazyStorage;
+import org.jetbrains.kotlin.incremental.storage.LookupSymbolKey;
+import org.jetbrains.kotlin.incremental.storage.LookupSymbolKeyDescriptor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Compares LookupStorage, which appends file ids of new lookups, with the previous way of storing lookups,
+ * which read, merged and rewrote the whole set of file ids of every lookup symbol on each update.
+ *
+ * Each invocation simulates a sequence of builds: lookups of {@code files} files are added in {@code builds} portions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LookupStorageBenchmark {
+    @Param({"1000", "10000"})
+    public int files;
+
+    @Param({"10"})
+    public int builds;
+
+    private static final int LOOKUPS_PER_FILE = 100;
+    private static final int SCOPES = 500;
+    private static final int NAMES_PER_SCOPE = 20;
+
+    private List<MultiMap<LookupSymbol, String>> lookupsPerBuild;
+    private List<Set<String>> pathsPerBuild;
+    private File workingDir;
+
+    @Setup(Level.Trial)
+    public void generateLookups() {
+        Random random = new Random(0);
+        lookupsPerBuild = new ArrayList<MultiMap<LookupSymbol, String>>(builds);
+        pathsPerBuild = new ArrayList<Set<String>>(builds);
+
+        for (int build = 0; build < builds; build++) {
+            MultiMap<LookupSymbol, String> lookups = MultiMap.createSet();
+            Set<String> paths = new HashSet<String>();
+
+            for (int file = build; file < files; file += builds) {
+                String path = "/project/src/package" + file % SCOPES + "/file" + file + ".kt";
+                paths.add(path);
+
+                for (int i = 0; i < LOOKUPS_PER_FILE; i++) {
+                    // lookups are skewed towards a few popular scopes, as in real projects
+                    int scope = Math.min(random.nextInt(SCOPES), random.nextInt(SCOPES));
+                    String name = "name" + random.nextInt(NAMES_PER_SCOPE);
+                    lookups.putValue(new LookupSymbol(name, "org.example.scope" + scope), path);
+                }
+            }
+
+            lookupsPerBuild.add(lookups);
+            pathsPerBuild.add(paths);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createWorkingDir() throws IOException {
+        workingDir = FileUtil.createTempDirectory("lookups", null);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteWorkingDir() {
+        FileUtil.delete(workingDir);
+    }
+
+    @Benchmark
+    public LookupStorage appendingLookupStorage() {
+        LookupStorage storage = new LookupStorage(workingDir);
+
+        for (int build = 0; build < builds; build++) {
+            storage.addAll(lookupsPerBuild.get(build).entrySet(), pathsPerBuild.get(build));
+            storage.flush(false);
+        }
+
+        storage.close();
+        return storage;
+    }
+
+    @Benchmark
+    public LazyStorage<LookupSymbolKey, Collection<Integer>> mergingLookupMap() {
+        LazyStorage<LookupSymbolKey, Collection<Integer>> storage =
+                new LazyStorage<LookupSymbolKey, Collection<Integer>>(new File(workingDir, "lookups.tab"),
+                                                                      LookupSymbolKeyDescriptor.INSTANCE,
+                                                                      IntCollectionExternalizer.INSTANCE);
+        Map<String, Integer> pathToId = new HashMap<String, Integer>();
+
+        for (int build = 0; build < builds; build++) {
+            for (String path : pathsPerBuild.get(build)) {
+                pathToId.put(path, pathToId.size());
+            }
+
+            for (Map.Entry<LookupSymbol, Collection<String>> entry : lookupsPerBuild.get(build).entrySet()) {
+                LookupSymbolKey key = new LookupSymbolKey(entry.getKey().getName(), entry.getKey().getScope());
+                Set<Integer> fileIds = new HashSet<Integer>();
+                for (String path : entry.getValue()) {
+                    fileIds.add(pathToId.get(path));
+                }
+
+                Collection<Integer> storedIds = storage.get(key);
+                if (storedIds != null) {
+                    fileIds.addAll(storedIds);
+                }
+                storage.set(key, fileIds);
+            }
+
+            storage.flush(false);
+        }
+
+        storage.close();
+        return storage;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LookupStorageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
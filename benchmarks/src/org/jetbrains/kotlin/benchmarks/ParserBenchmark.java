@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import com.intellij.lang.ASTNode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.psi.KtPsiFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building of full syntax trees by KotlinParsing: for every file of a corpus separately,
+ * and for one large file which consists of all files of the corpus without their package and import directives.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParserBenchmark extends AbstractFrontendBenchmark {
+    @Param({"PSI", "CALLS", "OVERRIDES", "SMART_CASTS"})
+    public BenchmarkCorpus corpus;
+
+    private List<String> texts;
+    private String largeText;
+    private KtPsiFactory factory;
+
+    @Override
+    protected void prepare() throws IOException {
+        texts = new ArrayList<String>(corpus.load().values());
+
+        StringBuilder builder = new StringBuilder();
+        for (String text : texts) {
+            for (String line : text.split("\n")) {
+                if (!line.startsWith("package ") && !line.startsWith("import ")) {
+                    builder.append(line).append('\n');
+                }
+            }
+        }
+        largeText = builder.toString();
+
+        factory = new KtPsiFactory(environment.getProject());
+    }
+
+    @Benchmark
+    public int parseFiles() {
+        int nodes = 0;
+        for (String text : texts) {
+            nodes += countNodes(factory.createFile(text).getNode());
+        }
+        return nodes;
+    }
+
+    @Benchmark
+    public int parseLargeFile() {
+        return countNodes(factory.createFile(largeText).getNode());
+    }
+
+    // visiting the whole tree makes sure that lazily parseable elements are parsed too
+    private static int countNodes(@NotNull ASTNode node) {
+        int result = 1;
+        for (ASTNode child = node.getFirstChildNode(); child != null; child = child.getTreeNext()) {
+            result += countNodes(child);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.benchmarks;
+
+import kotlin.Pair;
+import kotlin.jvm.JvmClassMappingKt;
+import kotlin.reflect.KClasses;
+import kotlin.reflect.KProperty1;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a property of a Kotlin class through kotlin-reflect, as serialization libraries do with properties
+ * from {@code KClass.memberProperties}, with a direct call of the getter and a call through Java reflection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PropertyAccessBenchmark {
+    private final Pair<String, Integer> pair = new Pair<String, Integer>("first", 42);
+
+    private KProperty1 property;
+    private Method getter;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void findProperty() throws NoSuchMethodException {
+        for (KProperty1 memberProperty : KClasses.getMemberProperties(JvmClassMappingKt.getKotlinClass(Pair.class))) {
+            if ("first".equals(memberProperty.getName())) {
+                property = memberProperty;
+            }
+        }
+        getter = Pair.class.getMethod("getFirst");
+    }
+
+    @Benchmark
+    public Object direct() {
+        return pair.getFirst();
+    }
+
+    @Benchmark
+    public Object javaReflection() throws Exception {
+        return getter.invoke(pair);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object propertyGet() {
+        return property.get(pair);
+    }
+
+    @Benchmark
+    public Object propertyCall() {
+        return property.call(pair);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PropertyAccessBenchmark.class.getSimpleName()).build()).run();
+    }
+}
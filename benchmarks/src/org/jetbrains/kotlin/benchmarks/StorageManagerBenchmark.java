@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import kotlin.jvm.functions.Function1;
+import org.jetbrains.kotlin.storage.ConcurrentStorageManager;
+import org.jetbrains.kotlin.storage.LockBasedStorageManager;
+import org.jetbrains.kotlin.storage.MemoizedFunctionToNotNull;
+import org.jetbrains.kotlin.storage.StorageManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Compares LockBasedStorageManager and ConcurrentStorageManager on a model of lazy resolution: each of {@code nodes} memoized values
+ * depends on a few other values and takes some time to compute, and {@code threads} threads resolve all of them starting
+ * from different nodes, as several analyses sharing one storage manager would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StorageManagerBenchmark {
+    @Param({"LockBased", "Concurrent"})
+    public String storageManager;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"20000"})
+    public int nodes;
+
+    private static final int DEPENDENCIES = 3;
+    private static final int WORK_TOKENS = 200;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void createExecutor() {
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void resolveAll(Blackhole blackhole) throws Exception {
+        final MemoizedFunctionToNotNull<Integer, Long> resolve = createResolve(createStorageManager());
+
+        List<Future<Long>> results = new ArrayList<Future<Long>>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            final int start = thread * nodes / threads;
+            results.add(executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    long sum = 0;
+                    for (int i = 0; i < nodes; i++) {
+                        sum += resolve.invoke((start + i) % nodes);
+                    }
+                    return sum;
+                }
+            }));
+        }
+
+        for (Future<Long> result : results) {
+            blackhole.consume(result.get());
+        }
+    }
+
+    private StorageManager createStorageManager() {
+        if ("LockBased".equals(storageManager)) return new LockBasedStorageManager();
+        if ("Concurrent".equals(storageManager)) return new ConcurrentStorageManager();
+        throw new IllegalArgumentException("Unknown storage manager: " + storageManager);
+    }
+
+    private static MemoizedFunctionToNotNull<Integer, Long> createResolve(StorageManager storageManager) {
+        final MemoizedFunctionToNotNull<Integer, Long>[] resolve = new MemoizedFunctionToNotNull[1];
+        resolve[0] = storageManager.createMemoizedFunction(new Function1<Integer, Long>() {
+            @Override
+            public Long invoke(Integer node) {
+                long value = node;
+                // dependencies always have smaller numbers, so there are no cycles
+                for (int i = 1; i <= DEPENDENCIES && node - i * 7 >= 0; i++) {
+                    value += resolve[0].invoke((node - i * 7) / (i + 1));
+                }
+                Blackhole.consumeCPU(WORK_TOKENS);
+                return value;
+            }
+        });
+        return resolve[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StorageManagerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
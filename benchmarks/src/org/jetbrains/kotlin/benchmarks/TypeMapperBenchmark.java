@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.benchmarks;
+
+import org.jetbrains.kotlin.codegen.ClassBuilderMode;
+import org.jetbrains.kotlin.codegen.OwnerKind;
+import org.jetbrains.kotlin.codegen.state.IncompatibleClassTracker;
+import org.jetbrains.kotlin.codegen.state.KotlinTypeMapper;
+import org.jetbrains.kotlin.descriptors.FunctionDescriptor;
+import org.jetbrains.kotlin.fileClasses.NoResolveFileClassesProvider;
+import org.jetbrains.kotlin.psi.KtFile;
+import org.jetbrains.kotlin.resolve.BindingContext;
+import org.jetbrains.kotlin.resolve.DescriptorUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures KotlinTypeMapper.mapSignature for all non-local functions and constructors of an analyzed corpus.
+ * Files of the corpus should have no errors, as the backend never sees such files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TypeMapperBenchmark extends AbstractFrontendBenchmark {
+    @Param({"CALLS", "OVERRIDES"})
+    public BenchmarkCorpus corpus;
+
+    private final List<KotlinTypeMapper> typeMappers = new ArrayList<KotlinTypeMapper>();
+    private final List<FunctionDescriptor> functions = new ArrayList<FunctionDescriptor>();
+
+    @Override
+    protected void prepare() throws IOException {
+        for (KtFile file : createFiles(corpus)) {
+            BindingContext bindingContext = analyze(file).getBindingContext();
+            checkNoErrors(file, bindingContext);
+
+            KotlinTypeMapper typeMapper = new KotlinTypeMapper(
+                    bindingContext, ClassBuilderMode.FULL, NoResolveFileClassesProvider.INSTANCE, null,
+                    IncompatibleClassTracker.DoNothing.INSTANCE, MODULE_NAME);
+
+            List<FunctionDescriptor> descriptors = new ArrayList<FunctionDescriptor>();
+            descriptors.addAll(bindingContext.getSliceContents(BindingContext.FUNCTION).values());
+            descriptors.addAll(bindingContext.getSliceContents(BindingContext.CONSTRUCTOR).values());
+            for (FunctionDescriptor descriptor : descriptors) {
+                // local functions and classes need names assigned by CodegenBinding
+                if (DescriptorUtils.isLocal(descriptor)) continue;
+                typeMappers.add(typeMapper);
+                functions.add(descriptor);
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapSignatureSkipGeneric(Blackhole blackhole) {
+        for (int i = 0; i < functions.size(); i++) {
+            blackhole.consume(typeMappers.get(i).mapSignatureSkipGeneric(functions.get(i), OwnerKind.IMPLEMENTATION));
+        }
+    }
+
+    @Benchmark
+    public void mapSignatureWithGeneric(Blackhole blackhole) {
+        for (int i = 0; i < functions.size(); i++) {
+            blackhole.consume(typeMappers.get(i).mapSignatureWithGeneric(functions.get(i), OwnerKind.IMPLEMENTATION));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TypeMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
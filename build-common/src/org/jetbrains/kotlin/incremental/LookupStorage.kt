@@ -74,9 +74,8 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
 
         for ((lookupSymbol, paths) in lookups) {
             val key = LookupSymbolKey(lookupSymbol.name, lookupSymbol.scope)
-            val fileIds = paths.mapTo(HashSet<Int>()) { pathToId[it]!! }
-            fileIds.addAll(lookupMap[key] ?: emptySet())
-            lookupMap[key] = fileIds
+            // ids are appended without reading the stored ones, duplicates are merged on read and dropped by doRemoveGarbage
+            lookupMap.append(key, paths.mapTo(HashSet<Int>()) { pathToId[it]!! })
         }
     }
 
@@ -138,10 +137,6 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
     }
 
     private fun doRemoveGarbage() {
-        for (hash in lookupMap.keys) {
-            lookupMap[hash] = lookupMap[hash]!!.filter { it in idToFile }.toSet()
-        }
-
         val oldFileToId = fileToId.toMap()
         val oldIdToNewId = HashMap<Int, Int>(oldFileToId.size)
         idToFile.clean()
@@ -154,8 +149,9 @@ open class LookupStorage(private val targetDataDir: File) : BasicMapsOwner() {
             oldIdToNewId[oldId] = newId
         }
 
+        // ids of removed files are not in oldIdToNewId, so each lookup is read and rewritten as a single chunk only once
         for (lookup in lookupMap.keys) {
-            val fileIds = lookupMap[lookup]!!.mapNotNull { oldIdToNewId[it] }.toSet()
+            val fileIds = lookupMap[lookup]!!.mapNotNullTo(HashSet<Int>()) { oldIdToNewId[it] }
 
             if (fileIds.isEmpty()) {
                 lookupMap.remove(lookup)
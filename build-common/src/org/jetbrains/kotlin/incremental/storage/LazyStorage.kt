@@ -82,6 +82,10 @@ class LazyStorage<K, V>(
         append(key) { out -> out.writeInt(value) }
     }
 
+    fun append(key: K, append: (DataOutput)->Unit) {
+        getStorageOrCreateNew().appendData(key, append)
+    }
+
     @Synchronized
     fun clean() {
         try {
@@ -116,7 +120,4 @@ class LazyStorage<K, V>(
     private fun createMap(): PersistentHashMap<K, V> =
             PersistentHashMap(storageFile, keyDescriptor, valueExternalizer)
 
-    private fun append(key: K, append: (DataOutput)->Unit) {
-        getStorageOrCreateNew().appendData(key, append)
-    }
 }
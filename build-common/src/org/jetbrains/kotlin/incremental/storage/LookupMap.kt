@@ -18,13 +18,13 @@ package org.jetbrains.kotlin.incremental.storage
 
 import java.io.File
 
-internal class LookupMap(storage: File) : BasicMap<LookupSymbolKey, Collection<Int>>(storage, LookupSymbolKeyDescriptor, IntCollectionExternalizer) {
+internal class LookupMap(storage: File) : BasicMap<LookupSymbolKey, Collection<Int>>(storage, LookupSymbolKeyDescriptor, IntPostingsExternalizer) {
     override fun dumpKey(key: LookupSymbolKey): String = key.toString()
 
     override fun dumpValue(value: Collection<Int>): String = value.toString()
 
-    fun add(name: String, scope: String, fileId: Int) {
-        storage.append(LookupSymbolKey(name, scope), fileId)
+    fun append(key: LookupSymbolKey, fileIds: Collection<Int>) {
+        storage.append(key) { out -> IntPostingsExternalizer.save(out, fileIds) }
     }
 
     operator fun get(key: LookupSymbolKey): Collection<Int>? = storage[key]
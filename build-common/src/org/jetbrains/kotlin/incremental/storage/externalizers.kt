@@ -18,6 +18,7 @@ package org.jetbrains.kotlin.incremental.storage
 
 import com.intellij.openapi.util.io.FileUtil
 import com.intellij.util.io.DataExternalizer
+import com.intellij.util.io.DataInputOutputUtil
 import com.intellij.util.io.EnumeratorStringDescriptor
 import com.intellij.util.io.IOUtil
 import com.intellij.util.io.KeyDescriptor
@@ -214,3 +215,35 @@ open class CollectionExternalizer<T>(
 object StringCollectionExternalizer : CollectionExternalizer<String>(EnumeratorStringDescriptor(), { HashSet() })
 
 object IntCollectionExternalizer : CollectionExternalizer<Int>(IntExternalizer, { HashSet() })
+
+// Stores a set of ids as a chunk: the number of ids followed by the sorted ids, each encoded as a variable-length difference
+// with the previous one. Chunks can be appended to an existing value without reading it (see LazyStorage.append),
+// so a value is a sequence of chunks, and ids contained in several chunks are merged on read.
+object IntPostingsExternalizer : DataExternalizer<Collection<Int>> {
+    override fun read(input: DataInput): Collection<Int> {
+        val result = HashSet<Int>()
+        val stream = input as DataInputStream
+
+        while (stream.available() > 0) {
+            val size = DataInputOutputUtil.readINT(stream)
+            var id = 0
+            for (i in 0..size - 1) {
+                id += DataInputOutputUtil.readINT(stream)
+                result.add(id)
+            }
+        }
+
+        return result
+    }
+
+    override fun save(output: DataOutput, value: Collection<Int>) {
+        val sorted = value.toSortedSet()
+        DataInputOutputUtil.writeINT(output, sorted.size)
+
+        var previous = 0
+        for (id in sorted) {
+            DataInputOutputUtil.writeINT(output, id - previous)
+            previous = id
+        }
+    }
+}
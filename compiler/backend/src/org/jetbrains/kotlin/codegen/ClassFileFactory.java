@@ -59,6 +59,17 @@ public class ClassFileFactory implements OutputFileCollection {
     private final Set<File> packagePartSourceFiles = new HashSet<File>();
     private final Map<String, PackageParts> partsGroupedByPackage = new LinkedHashMap<String, PackageParts>();
 
+    // Output paths generated by the current thread since the last call to beginOutputGroup(), see KotlinCodegenFacade
+    private final ThreadLocal<List<String>> currentOutputGroup = new ThreadLocal<List<String>>();
+
+    // Output paths generated by the current thread since the last call to releaseCurrentPartOutput()
+    private final ThreadLocal<List<String>> currentPartOutput = new ThreadLocal<List<String>>() {
+        @Override
+        protected List<String> initialValue() {
+            return new ArrayList<String>();
+        }
+    };
+
     public ClassFileFactory(@NotNull GenerationState state, @NotNull ClassBuilderFactory builderFactory) {
         this.state = state;
         this.builderFactory = builderFactory;
@@ -79,21 +90,89 @@ public class ClassFileFactory implements OutputFileCollection {
             @NotNull Collection<? extends PsiFile> sourceFiles) {
         String outputFilePath = asmType.getInternalName() + ".class";
         List<File> ioSourceFiles = toIoFilesIgnoringNonPhysical(sourceFiles);
-        state.getProgress().reportOutput(ioSourceFiles, new File(outputFilePath));
         ClassBuilder answer = builderFactory.newClassBuilder(origin);
-        generators.put(outputFilePath, new ClassBuilderAndSourceFileList(answer, ioSourceFiles));
+        synchronized (this) {
+            state.getProgress().reportOutput(ioSourceFiles, new File(outputFilePath));
+            generators.put(outputFilePath, new ClassBuilderAndSourceFileList(answer, ioSourceFiles));
+        }
+        List<String> outputGroup = currentOutputGroup.get();
+        if (outputGroup != null) {
+            outputGroup.add(outputFilePath);
+        }
+        currentPartOutput.get().add(outputFilePath);
         return answer;
     }
 
-    void done() {
+    /**
+     * Starts recording the outputs generated by the current thread, so that they can later be put in a deterministic order
+     * with {@link #reorderOutputs(List)} regardless of the order in which the threads have finished.
+     */
+    void beginOutputGroup() {
+        currentOutputGroup.set(new ArrayList<String>());
+    }
+
+    @NotNull
+    List<String> endOutputGroup() {
+        List<String> outputGroup = currentOutputGroup.get();
+        assert outputGroup != null : "beginOutputGroup() was not called on this thread";
+        currentOutputGroup.remove();
+        return outputGroup;
+    }
+
+    synchronized void reorderOutputs(@NotNull List<List<String>> outputGroups) {
+        Map<String, OutAndSourceFileList> reordered = new LinkedHashMap<String, OutAndSourceFileList>();
+        for (List<String> outputGroup : outputGroups) {
+            for (String outputFilePath : outputGroup) {
+                OutAndSourceFileList output = generators.get(outputFilePath);
+                // the class could have been removed afterwards, e.g. by the inliner
+                if (output != null) {
+                    reordered.put(outputFilePath, output);
+                }
+            }
+        }
+        for (Map.Entry<String, OutAndSourceFileList> entry : generators.entrySet()) {
+            if (!reordered.containsKey(entry.getKey())) {
+                reordered.put(entry.getKey(), entry.getValue());
+            }
+        }
+        generators.clear();
+        generators.putAll(reordered);
+    }
+
+    synchronized void done() {
         if (!isDone) {
             isDone = true;
             writeModuleMappings();
         }
     }
 
-    public void releaseGeneratedOutput() {
-        generators.clear();
+    /**
+     * Removes the outputs generated by the current thread since the previous call from this factory and returns them, so that they
+     * can be written and garbage collected before the code generation is finished.
+     * Should only be called at the end of an independent part (see GenerationState.afterIndependentPart), when the classes of the part
+     * are complete; outputs generated by other threads are not affected.
+     */
+    @NotNull
+    public synchronized List<OutputFile> releaseCurrentPartOutput() {
+        List<String> outputFilePaths = currentPartOutput.get();
+        List<OutputFile> result = new ArrayList<OutputFile>(outputFilePaths.size());
+        for (String outputFilePath : outputFilePaths) {
+            OutAndSourceFileList generator = generators.remove(outputFilePath);
+            // the class could have been removed afterwards, e.g. by the inliner
+            if (generator != null) {
+                result.add(new OutputClassFile(outputFilePath, generator));
+            }
+        }
+        outputFilePaths.clear();
+        return result;
+    }
+
+    /**
+     * Forgets the outputs generated by the current thread since the previous call of {@link #releaseCurrentPartOutput()}.
+     * Should be called when an independent part is done, so that pooled codegen threads don't keep them after the compilation.
+     */
+    public void clearCurrentPartOutput() {
+        currentPartOutput.remove();
     }
 
     private void writeModuleMappings() {
@@ -152,7 +231,7 @@ public class ClassFileFactory implements OutputFileCollection {
     }
 
     @NotNull
-    public List<OutputFile> getCurrentOutput() {
+    public synchronized List<OutputFile> getCurrentOutput() {
         return ContainerUtil.map(generators.keySet(), new Function<String, OutputFile>() {
             @Override
             public OutputFile fun(String relativeClassFilePath) {
@@ -163,7 +242,7 @@ public class ClassFileFactory implements OutputFileCollection {
 
     @Override
     @Nullable
-    public OutputFile get(@NotNull String relativePath) {
+    public synchronized OutputFile get(@NotNull String relativePath) {
         return generators.containsKey(relativePath) ? new OutputClassFile(relativePath) : null;
     }
 
@@ -191,14 +270,14 @@ public class ClassFileFactory implements OutputFileCollection {
     }
 
     @NotNull
-    public PackageCodegen forPackage(@NotNull FqName fqName, @NotNull Collection<KtFile> files) {
+    public synchronized PackageCodegen forPackage(@NotNull FqName fqName, @NotNull Collection<KtFile> files) {
         assert !isDone : "Already done!";
         registerPackagePartSourceFiles(files);
         return new PackageCodegen(state, files, fqName, buildNewPackagePartRegistry(fqName));
     }
 
     @NotNull
-    public MultifileClassCodegen forMultifileClass(@NotNull FqName facadeFqName, @NotNull Collection<KtFile> files) {
+    public synchronized MultifileClassCodegen forMultifileClass(@NotNull FqName facadeFqName, @NotNull Collection<KtFile> files) {
         assert !isDone : "Already done!";
         registerPackagePartSourceFiles(files);
         return new MultifileClassCodegen(state, files, facadeFqName, buildNewPackagePartRegistry(facadeFqName.parent()));
@@ -209,17 +288,19 @@ public class ClassFileFactory implements OutputFileCollection {
         return new PackagePartRegistry() {
             @Override
             public void addPart(@NotNull String partShortName) {
-                MapsKt.getOrPut(partsGroupedByPackage, packageFqNameAsString, new Function0<PackageParts>() {
-                    @Override
-                    public PackageParts invoke() {
-                        return new PackageParts(packageFqNameAsString);
-                    }
-                }).getParts().add(partShortName);
+                synchronized (ClassFileFactory.this) {
+                    MapsKt.getOrPut(partsGroupedByPackage, packageFqNameAsString, new Function0<PackageParts>() {
+                        @Override
+                        public PackageParts invoke() {
+                            return new PackageParts(packageFqNameAsString);
+                        }
+                    }).getParts().add(partShortName);
+                }
             }
         };
     }
 
-    public void registerPackagePartSourceFiles(Collection<KtFile> files) {
+    public synchronized void registerPackagePartSourceFiles(Collection<KtFile> files) {
         packagePartSourceFiles.addAll(toIoFilesIgnoringNonPhysical(PackagePartClassUtils.getFilesWithCallables(files)));
     }
 
@@ -237,11 +318,26 @@ public class ClassFileFactory implements OutputFileCollection {
         return result;
     }
 
+    private synchronized OutAndSourceFileList getGenerator(@NotNull String relativeClassFilePath) {
+        return generators.get(relativeClassFilePath);
+    }
+
     private class OutputClassFile implements OutputFile {
         private final String relativeClassFilePath;
+        // not null if the output is already removed from the factory
+        private final OutAndSourceFileList releasedGenerator;
 
         public OutputClassFile(String relativeClassFilePath) {
+            this(relativeClassFilePath, null);
+        }
+
+        public OutputClassFile(String relativeClassFilePath, @Nullable OutAndSourceFileList releasedGenerator) {
             this.relativeClassFilePath = relativeClassFilePath;
+            this.releasedGenerator = releasedGenerator;
+        }
+
+        private OutAndSourceFileList getGenerator() {
+            return releasedGenerator != null ? releasedGenerator : ClassFileFactory.this.getGenerator(relativeClassFilePath);
         }
 
         @NotNull
@@ -253,7 +349,7 @@ public class ClassFileFactory implements OutputFileCollection {
         @NotNull
         @Override
         public List<File> getSourceFiles() {
-            OutAndSourceFileList pair = generators.get(relativeClassFilePath);
+            OutAndSourceFileList pair = getGenerator();
             if (pair == null) {
                 throw new IllegalStateException("No record for binary file " + relativeClassFilePath);
             }
@@ -265,7 +361,7 @@ public class ClassFileFactory implements OutputFileCollection {
         @Override
         public byte[] asByteArray() {
             try {
-                return generators.get(relativeClassFilePath).asBytes(builderFactory);
+                return getGenerator().asBytes(builderFactory);
             }
             catch (RuntimeException e) {
                 throw new RuntimeException("Error generating class file " + this.toString() + ": " + e.getMessage(), e);
@@ -276,7 +372,7 @@ public class ClassFileFactory implements OutputFileCollection {
         @Override
         public String asText() {
             try {
-                return generators.get(relativeClassFilePath).asText(builderFactory);
+                return getGenerator().asText(builderFactory);
             }
             catch (RuntimeException e) {
                 throw new RuntimeException("Error generating class file " + this.toString() + ": " + e.getMessage(), e);
@@ -322,7 +418,7 @@ public class ClassFileFactory implements OutputFileCollection {
         public abstract String asText(ClassBuilderFactory factory);
     }
 
-    public void removeClasses(Set<String> classNamesToRemove) {
+    public synchronized void removeClasses(Set<String> classNamesToRemove) {
         for (String classInternalName : classNamesToRemove) {
             generators.remove(classInternalName + ".class");
         }
@@ -1701,12 +1701,20 @@ public class ExpressionCodegen extends KtVisitor<StackValue, StackValue> impleme
                     v.aconst(null);
                     v.store(index, OBJECT_TYPE);
                 }
-                v.visitLocalVariable(variableDescriptor.getName().asString(), type.getDescriptor(), null, scopeStart, blockEnd, index);
+                v.visitLocalVariable(variableDescriptor.getName().asString(), type.getDescriptor(),
+                                     getSharedVarSignature(variableDescriptor, type), scopeStart, blockEnd, index);
                 return null;
             }
         });
     }
 
+    // The element type of an ObjectRef is kept in the signature, so that it's known if the Ref is replaced with a plain local variable
+    @Nullable
+    private String getSharedVarSignature(@NotNull VariableDescriptor variableDescriptor, @NotNull Type type) {
+        if (!OBJECT_REF_TYPE.equals(type)) return null;
+        return "L" + OBJECT_REF_TYPE.getInternalName() + "<" + asmType(variableDescriptor.getType()).getDescriptor() + ">;";
+    }
+
     private void addLeaveTaskToRemoveNamedFunctionFromFrameMap(
             @NotNull final KtNamedFunction statement,
             final Label blockEnd,
@@ -25,9 +25,12 @@ import org.jetbrains.kotlin.name.FqName;
 import org.jetbrains.kotlin.progress.ProgressIndicatorAndCompilationCanceledStatus;
 import org.jetbrains.kotlin.psi.KtFile;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class KotlinCodegenFacade {
 
@@ -66,21 +69,145 @@ public class KotlinCodegenFacade {
         }
 
         Set<FqName> obsoleteMultifileClasses = new HashSet<FqName>(state.getObsoleteMultifileClasses());
-        for (FqName multifileClassFqName : Sets.union(filesInMultifileClasses.keySet(), obsoleteMultifileClasses)) {
-            doCheckCancelled(state);
-            generateMultifileClass(state, multifileClassFqName, filesInMultifileClasses.get(multifileClassFqName), errorHandler);
+        Set<FqName> packagesWithObsoleteParts = new HashSet<FqName>(state.getPackagesWithObsoleteParts());
+
+        // packages and multifile classes are generated in the same order by both sequential and parallel code generation,
+        // so that the output is the same regardless of the number of threads
+        List<FqName> multifileClassFqNames = sortedByFqName(Sets.union(filesInMultifileClasses.keySet(), obsoleteMultifileClasses));
+        List<FqName> packageFqNames = sortedByFqName(Sets.union(packagesWithObsoleteParts, filesInPackages.keySet()));
+
+        if (state.getCodegenThreads() > 1) {
+            doGenerateFilesInParallel(state, errorHandler, multifileClassFqNames, filesInMultifileClasses, packageFqNames, filesInPackages);
+            return;
         }
 
-        Set<FqName> packagesWithObsoleteParts = new HashSet<FqName>(state.getPackagesWithObsoleteParts());
-        for (FqName packageFqName : Sets.union(packagesWithObsoleteParts, filesInPackages.keySet())) {
-            doCheckCancelled(state);
-            generatePackage(state, packageFqName, filesInPackages.get(packageFqName), errorHandler);
+        try {
+            for (FqName multifileClassFqName : multifileClassFqNames) {
+                doCheckCancelled(state);
+                generateMultifileClass(state, multifileClassFqName, filesInMultifileClasses.get(multifileClassFqName), errorHandler);
+            }
+
+            for (FqName packageFqName : packageFqNames) {
+                doCheckCancelled(state);
+                generatePackage(state, packageFqName, filesInPackages.get(packageFqName), errorHandler);
+            }
+        }
+        finally {
+            state.getFactory().clearCurrentPartOutput();
+        }
+
+        doCheckCancelled(state);
+        state.getFactory().done();
+    }
+
+    // Every multifile class and every package is generated by a separate task in a thread pool.
+    // Classes generated by each task are recorded into a separate output group, and the groups are put into the class file factory
+    // in a fixed order after all tasks are finished, so that the output doesn't depend on the scheduling of the tasks
+    private static void doGenerateFilesInParallel(
+            @NotNull GenerationState state,
+            @NotNull CompilationErrorHandler errorHandler,
+            @NotNull List<FqName> multifileClassFqNames,
+            @NotNull final MultiMap<FqName, KtFile> filesInMultifileClasses,
+            @NotNull List<FqName> packageFqNames,
+            @NotNull final MultiMap<FqName, KtFile> filesInPackages
+    ) {
+        List<Callable<List<String>>> tasks = new ArrayList<Callable<List<String>>>();
+
+        for (final FqName multifileClassFqName : multifileClassFqNames) {
+            tasks.add(new CodegenTask(state, errorHandler) {
+                @Override
+                protected void generate() {
+                    generateMultifileClass(state, multifileClassFqName, filesInMultifileClasses.get(multifileClassFqName), errorHandler);
+                }
+            });
+        }
+
+        for (final FqName packageFqName : packageFqNames) {
+            tasks.add(new CodegenTask(state, errorHandler) {
+                @Override
+                protected void generate() {
+                    generatePackage(state, packageFqName, filesInPackages.get(packageFqName), errorHandler);
+                }
+            });
+        }
+
+        // Fork-join pool is not used here because the compiler should be able to run on JDK 1.6
+        ExecutorService executor = Executors.newFixedThreadPool(state.getCodegenThreads());
+        try {
+            List<List<String>> outputGroups = new ArrayList<List<String>>(tasks.size());
+            for (Future<List<String>> future : executor.invokeAll(tasks)) {
+                outputGroups.add(getTaskResult(future));
+            }
+            state.getFactory().reorderOutputs(outputGroups);
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            executor.shutdownNow();
         }
 
         doCheckCancelled(state);
         state.getFactory().done();
     }
 
+    private static abstract class CodegenTask implements Callable<List<String>> {
+        protected final GenerationState state;
+        protected final CompilationErrorHandler errorHandler;
+
+        protected CodegenTask(@NotNull GenerationState state, @NotNull CompilationErrorHandler errorHandler) {
+            this.state = state;
+            this.errorHandler = errorHandler;
+        }
+
+        protected abstract void generate();
+
+        @Override
+        public List<String> call() {
+            doCheckCancelled(state);
+
+            List<String> outputGroup;
+            state.getFactory().beginOutputGroup();
+            try {
+                generate();
+            }
+            finally {
+                outputGroup = state.getFactory().endOutputGroup();
+                // classes of a part which failed or wasn't followed by afterIndependentPart() are not released by this thread
+                state.getFactory().clearCurrentPartOutput();
+            }
+            return outputGroup;
+        }
+    }
+
+    @NotNull
+    private static <T> T getTaskResult(@NotNull Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    @NotNull
+    private static List<FqName> sortedByFqName(@NotNull Set<FqName> fqNames) {
+        List<FqName> result = new ArrayList<FqName>(fqNames);
+        Collections.sort(result, new Comparator<FqName>() {
+            @Override
+            public int compare(FqName o1, FqName o2) {
+                return o1.asString().compareTo(o2.asString());
+            }
+        });
+        return result;
+    }
+
     private static void doCheckCancelled(GenerationState state) {
         if (state.getClassBuilderMode() == ClassBuilderMode.FULL) {
             ProgressIndicatorAndCompilationCanceledStatus.checkCanceled();
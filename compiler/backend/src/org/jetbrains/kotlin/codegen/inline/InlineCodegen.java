@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.codegen.inline;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import kotlin.jvm.functions.Function0;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.backend.common.CodegenUtil;
@@ -48,6 +49,7 @@ import org.jetbrains.kotlin.resolve.jvm.jvmSignature.JvmMethodParameterSignature
 import org.jetbrains.kotlin.resolve.jvm.jvmSignature.JvmMethodSignature;
 import org.jetbrains.kotlin.serialization.deserialization.descriptors.DeserializedSimpleFunctionDescriptor;
 import org.jetbrains.kotlin.types.expressions.LabelResolver;
+import org.jetbrains.kotlin.utils.ExceptionUtilsKt;
 import org.jetbrains.org.objectweb.asm.Label;
 import org.jetbrains.org.objectweb.asm.MethodVisitor;
 import org.jetbrains.org.objectweb.asm.Opcodes;
@@ -188,7 +190,7 @@ public class InlineCodegen extends CallGenerator {
             @NotNull ExpressionCodegen codegen,
             @NotNull CodegenContext context,
             boolean callDefault,
-            @NotNull GenerationState state) throws IOException {
+            @NotNull final GenerationState state) throws IOException {
         KotlinTypeMapper typeMapper = state.getTypeMapper();
         Method asmMethod = callDefault
                            ? typeMapper.mapDefaultMethod(functionDescriptor, context.getContextKind())
@@ -196,11 +198,24 @@ public class InlineCodegen extends CallGenerator {
 
         SMAPAndMethodNode nodeAndSMAP;
         if (functionDescriptor instanceof FictitiousArrayConstructor) {
-            nodeAndSMAP = InlineCodegenUtil.getMethodNode(
-                    IntrinsicArrayConstructorsKt.getBytecode(),
-                    asmMethod.getName(),
-                    asmMethod.getDescriptor(),
-                    IntrinsicArrayConstructorsKt.getClassId()
+            final Method method = asmMethod;
+            nodeAndSMAP = state.getInlineMethodNodeCache().getOrCompute(
+                    IntrinsicArrayConstructorsKt.getClassId(), asmMethod, new Function0<SMAPAndMethodNode>() {
+                        @Override
+                        public SMAPAndMethodNode invoke() {
+                            try {
+                                return InlineCodegenUtil.getMethodNode(
+                                        IntrinsicArrayConstructorsKt.getBytecode(),
+                                        method.getName(),
+                                        method.getDescriptor(),
+                                        IntrinsicArrayConstructorsKt.getClassId()
+                                );
+                            }
+                            catch (IOException e) {
+                                throw ExceptionUtilsKt.rethrow(e);
+                            }
+                        }
+                    }
             );
 
             if (nodeAndSMAP == null) {
@@ -211,15 +226,28 @@ public class InlineCodegen extends CallGenerator {
             KotlinTypeMapper.ContainingClassesInfo containingClasses = typeMapper.getContainingClassesForDeserializedCallable(
                     (DeserializedSimpleFunctionDescriptor) functionDescriptor);
 
-            ClassId containerId = containingClasses.getImplClassId();
-            VirtualFile file = InlineCodegenUtil.findVirtualFile(state, containerId);
-            if (file == null) {
-                throw new IllegalStateException("Couldn't find declaration file for " + containerId);
-            }
-
-            nodeAndSMAP = InlineCodegenUtil.getMethodNode(
-                    file.contentsToByteArray(), asmMethod.getName(), asmMethod.getDescriptor(), containerId
-            );
+            final ClassId containerId = containingClasses.getImplClassId();
+            final Method method = asmMethod;
+            nodeAndSMAP = state.getInlineMethodNodeCache().getOrCompute(containerId, asmMethod, new Function0<SMAPAndMethodNode>() {
+                @Override
+                public SMAPAndMethodNode invoke() {
+                    final VirtualFile file = InlineCodegenUtil.findVirtualFile(state, containerId);
+                    if (file == null) {
+                        throw new IllegalStateException("Couldn't find declaration file for " + containerId);
+                    }
+
+                    LibraryInlineMethodNodes libraryNodes = state.getLibraryInlineMethodNodes();
+                    if (libraryNodes == null) {
+                        return readMethodNode(file, method, containerId);
+                    }
+                    return libraryNodes.getOrCompute(file, method, new Function0<SMAPAndMethodNode>() {
+                        @Override
+                        public SMAPAndMethodNode invoke() {
+                            return readMethodNode(file, method, containerId);
+                        }
+                    });
+                }
+            });
 
             if (nodeAndSMAP == null) {
                 throw new IllegalStateException("Couldn't obtain compiled function body for " + descriptorName(functionDescriptor));
@@ -267,6 +295,16 @@ public class InlineCodegen extends CallGenerator {
         return nodeAndSMAP;
     }
 
+    @Nullable
+    private static SMAPAndMethodNode readMethodNode(@NotNull VirtualFile file, @NotNull Method method, @NotNull ClassId classId) {
+        try {
+            return InlineCodegenUtil.getMethodNode(file.contentsToByteArray(), method.getName(), method.getDescriptor(), classId);
+        }
+        catch (IOException e) {
+            throw ExceptionUtilsKt.rethrow(e);
+        }
+    }
+
     private InlineResult inlineCall(SMAPAndMethodNode nodeAndSmap) {
         MethodNode node = nodeAndSmap.getNode();
         ReifiedTypeParametersUsages reificationResult = reifiedTypeInliner.reifyInstructions(node);
@@ -813,9 +851,12 @@ public class InlineCodegen extends CallGenerator {
         if (incrementalCompilationComponents == null || targetId == null) return;
 
         IncrementalCache incrementalCache = incrementalCompilationComponents.getIncrementalCache(targetId);
-        String classFilePath = InlineCodegenUtilsKt.getClassFilePath(sourceDescriptor, state.getTypeMapper(), incrementalCache);
-        String sourceFilePath = InlineCodegenUtilsKt.getSourceFilePath(targetDescriptor);
-        incrementalCache.registerInline(classFilePath, jvmSignature.toString(), sourceFilePath);
+        // incremental caches are not required to be thread-safe, but packages may be generated concurrently
+        synchronized (incrementalCache) {
+            String classFilePath = InlineCodegenUtilsKt.getClassFilePath(sourceDescriptor, state.getTypeMapper(), incrementalCache);
+            String sourceFilePath = InlineCodegenUtilsKt.getSourceFilePath(targetDescriptor);
+            incrementalCache.registerInline(classFilePath, jvmSignature.toString(), sourceFilePath);
+        }
     }
 
     @Override
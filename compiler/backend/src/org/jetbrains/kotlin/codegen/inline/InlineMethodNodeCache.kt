@@ -0,0 +1,103 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.inline
+
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.org.objectweb.asm.commons.Method
+import org.jetbrains.org.objectweb.asm.tree.LabelNode
+import org.jetbrains.org.objectweb.asm.tree.LocalVariableNode
+import org.jetbrains.org.objectweb.asm.tree.MethodNode
+import org.jetbrains.org.objectweb.asm.tree.TryCatchBlockNode
+import java.util.*
+import java.util.concurrent.atomic.AtomicLong
+
+// Bodies of compiled inline functions (from libraries or other modules), so that a class file is read and parsed
+// once per GenerationState, and not at every call site. The inliner transforms the node it gets,
+// so cached nodes are never given out, every call returns a copy. Thread-safe.
+class InlineMethodNodeCache(private val maxSize: Int = DEFAULT_MAX_SIZE) {
+    private data class Key(val owner: ClassId, val name: String, val descriptor: String)
+
+    private val cache = object : LinkedHashMap<Key, SMAPAndMethodNode>(16, 0.75f, /* accessOrder = */ true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, SMAPAndMethodNode>) = size > maxSize
+    }
+
+    private val hits = AtomicLong(0L)
+    private val misses = AtomicLong(0L)
+
+    val hitCount: Long get() = hits.get()
+    val missCount: Long get() = misses.get()
+
+    // compute is called outside of the lock, so a node can be computed twice by concurrent threads, which is harmless;
+    // nulls (method is not found) are not cached
+    fun getOrCompute(owner: ClassId, method: Method, compute: () -> SMAPAndMethodNode?): SMAPAndMethodNode? {
+        val key = Key(owner, method.name, method.descriptor)
+        val cached = synchronized(cache) { cache[key] }
+        if (cached != null) {
+            hits.incrementAndGet()
+            return cached.copy()
+        }
+
+        misses.incrementAndGet()
+        val computed = compute() ?: return null
+        synchronized(cache) { cache[key] = computed }
+        return computed.copy()
+    }
+
+    companion object {
+        const val DEFAULT_MAX_SIZE = 1024
+    }
+}
+
+// SMAP is immutable, the node is copied deeply enough to be transformed independently of the original
+private fun SMAPAndMethodNode.copy() = SMAPAndMethodNode(node.copy(), classSMAP)
+
+private fun MethodNode.copy(): MethodNode {
+    val result = MethodNode(InlineCodegenUtil.API, access, name, desc, signature, exceptions.toTypedArray())
+
+    val insns = instructions.toArray()
+    val labels = HashMap<LabelNode, LabelNode>()
+    for (insn in insns) {
+        if (insn is LabelNode) labels[insn] = LabelNode()
+    }
+    for (insn in insns) {
+        result.instructions.add(insn.clone(labels))
+    }
+
+    for (block in tryCatchBlocks) {
+        result.tryCatchBlocks.add(TryCatchBlockNode(labels[block.start], labels[block.end], labels[block.handler], block.type).apply {
+            visibleTypeAnnotations = block.visibleTypeAnnotations
+            invisibleTypeAnnotations = block.invisibleTypeAnnotations
+        })
+    }
+    localVariables?.mapTo(result.localVariables) {
+        LocalVariableNode(it.name, it.desc, it.signature, labels[it.start], labels[it.end], it.index)
+    }
+
+    // annotations are not changed by the inliner and can be shared
+    result.parameters = parameters
+    result.visibleAnnotations = visibleAnnotations
+    result.invisibleAnnotations = invisibleAnnotations
+    result.visibleTypeAnnotations = visibleTypeAnnotations
+    result.invisibleTypeAnnotations = invisibleTypeAnnotations
+    result.visibleParameterAnnotations = visibleParameterAnnotations
+    result.invisibleParameterAnnotations = invisibleParameterAnnotations
+    result.annotationDefault = annotationDefault
+    result.attrs = attrs
+    result.maxStack = maxStack
+    result.maxLocals = maxLocals
+    return result
+}
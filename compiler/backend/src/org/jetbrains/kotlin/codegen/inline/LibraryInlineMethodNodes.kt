@@ -0,0 +1,27 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen.inline
+
+import com.intellij.openapi.vfs.VirtualFile
+import org.jetbrains.org.objectweb.asm.commons.Method
+
+// Keeps bodies of inline functions from library jars between compilations, e.g. in the daemon.
+// Returned nodes are shared and must not be changed: they are only used through InlineMethodNodeCache, which gives out copies.
+interface LibraryInlineMethodNodes {
+    // classFile is a class file of the inline function's owner, compute reads and parses it
+    fun getOrCompute(classFile: VirtualFile, method: Method, compute: () -> SMAPAndMethodNode?): SMAPAndMethodNode?
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen.optimization
+
+import org.jetbrains.kotlin.codegen.optimization.common.OptimizationBasicInterpreter
+import org.jetbrains.kotlin.codegen.optimization.common.intConstant
+import org.jetbrains.kotlin.codegen.optimization.common.intConstantInsn
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
+import org.jetbrains.org.objectweb.asm.Opcodes.*
+import org.jetbrains.org.objectweb.asm.Type
+import org.jetbrains.org.objectweb.asm.tree.AbstractInsnNode
+import org.jetbrains.org.objectweb.asm.tree.IincInsnNode
+import org.jetbrains.org.objectweb.asm.tree.InsnList
+import org.jetbrains.org.objectweb.asm.tree.MethodNode
+import org.jetbrains.org.objectweb.asm.tree.VarInsnNode
+import org.jetbrains.org.objectweb.asm.tree.analysis.BasicValue
+
+class ConstantPropagationMethodTransformer : MethodTransformer() {
+    /**
+     * Replaces loads of int variables which are known to hold a constant with the constant, and folds
+     * arithmetic on constants pushed right one after another.
+     * Only synthetic variables (e.g. stack values spilled around inline calls or loop bounds) are propagated:
+     * variables from the local variable table can be changed in the debugger, so their loads are kept as is.
+     * Conditional jumps on constants are not folded, so that all branches written in the source remain steppable.
+     */
+    override fun transform(internalClassName: String, methodNode: MethodNode) {
+        while (propagateConstants(internalClassName, methodNode) or foldConstants(methodNode)) {
+            //do nothing
+        }
+    }
+
+    private fun propagateConstants(internalClassName: String, methodNode: MethodNode): Boolean {
+        val insnList = methodNode.instructions
+        if (insnList.toArray().none { it.opcode == ILOAD }) return false
+
+        val visibleVariables = BooleanArray(methodNode.maxLocals)
+        for (localVariable in methodNode.localVariables) {
+            visibleVariables[localVariable.index] = true
+        }
+
+        val frames = MethodTransformer.analyze(internalClassName, methodNode, ConstantInterpreter(visibleVariables))
+
+        var changed = false
+        for ((i, insn) in insnList.toArray().withIndex()) {
+            if (insn.opcode != ILOAD) continue
+            val value = frames[i]?.getLocal((insn as VarInsnNode).`var`) as? IntConstantValue ?: continue
+            insnList.set(insn, intConstantInsn(value.value))
+            changed = true
+        }
+        return changed
+    }
+
+    private fun foldConstants(methodNode: MethodNode): Boolean {
+        val insnList = methodNode.instructions
+        var changed = false
+        var insn: AbstractInsnNode? = insnList.first
+        while (insn != null) {
+            // folding only replaces the instruction and the ones before it
+            val next = insn.next
+            if (fold(insnList, insn)) {
+                changed = true
+            }
+            insn = next
+        }
+        return changed
+    }
+
+    private fun fold(insnList: InsnList, insn: AbstractInsnNode): Boolean {
+        val operand2 = insn.previous ?: return false
+        val value2 = operand2.intConstant ?: return false
+
+        val unaryResult = evaluateUnaryOperation(insn.opcode, value2)
+        if (unaryResult != null) {
+            insnList.remove(operand2)
+            insnList.set(insn, intConstantInsn(unaryResult))
+            return true
+        }
+
+        val operand1 = operand2.previous ?: return false
+        val value1 = operand1.intConstant ?: return false
+
+        val binaryResult = evaluateBinaryOperation(insn.opcode, value1, value2)
+        if (binaryResult != null) {
+            insnList.remove(operand1)
+            insnList.remove(operand2)
+            insnList.set(insn, intConstantInsn(binaryResult))
+            return true
+        }
+
+        return false
+    }
+}
+
+private fun evaluateUnaryOperation(opcode: Int, value: Int): Int? =
+        when (opcode) {
+            INEG -> -value
+            I2B -> value.toByte().toInt()
+            I2C -> value.toChar().toInt()
+            I2S -> value.toShort().toInt()
+            else -> null
+        }
+
+private fun evaluateBinaryOperation(opcode: Int, value1: Int, value2: Int): Int? =
+        when (opcode) {
+            IADD -> value1 + value2
+            ISUB -> value1 - value2
+            IMUL -> value1 * value2
+            // division by zero should throw at runtime
+            IDIV -> if (value2 != 0) value1 / value2 else null
+            IREM -> if (value2 != 0) value1 % value2 else null
+            IAND -> value1 and value2
+            IOR -> value1 or value2
+            IXOR -> value1 xor value2
+            ISHL -> value1 shl value2
+            ISHR -> value1 shr value2
+            IUSHR -> value1 ushr value2
+            else -> null
+        }
+
+private class IntConstantValue(val value: Int) : BasicValue(Type.INT_TYPE) {
+    override fun equals(other: Any?): Boolean = other is IntConstantValue && other.value == value
+
+    override fun hashCode(): Int = value
+
+    override fun toString(): String = "I($value)"
+}
+
+// Result of merging a constant with a different value. Unlike BasicValue.INT_VALUE, it is not equal to a constant,
+// otherwise Frame.merge would not notice that the merged value has changed.
+private val NOT_CONSTANT_INT_VALUE = object : BasicValue(Type.INT_TYPE) {
+    override fun equals(other: Any?): Boolean = other === this
+
+    override fun hashCode(): Int = System.identityHashCode(this)
+}
+
+private class ConstantInterpreter(private val visibleVariables: BooleanArray) : OptimizationBasicInterpreter() {
+    override fun newOperation(insn: AbstractInsnNode): BasicValue? {
+        val constant = insn.intConstant ?: return super.newOperation(insn)
+        return IntConstantValue(constant)
+    }
+
+    override fun copyOperation(insn: AbstractInsnNode, value: BasicValue): BasicValue? {
+        if (insn.opcode == ISTORE && value is IntConstantValue && visibleVariables[(insn as VarInsnNode).`var`]) {
+            return BasicValue.INT_VALUE
+        }
+        return super.copyOperation(insn, value)
+    }
+
+    override fun unaryOperation(insn: AbstractInsnNode, value: BasicValue): BasicValue? {
+        if (value is IntConstantValue) {
+            // variables from the local variable table never hold constants (see copyOperation), so IINC needs no check
+            val result = when (insn.opcode) {
+                IINC -> value.value + (insn as IincInsnNode).incr
+                else -> evaluateUnaryOperation(insn.opcode, value.value)
+            }
+            if (result != null) return IntConstantValue(result)
+        }
+        return super.unaryOperation(insn, value)
+    }
+
+    override fun binaryOperation(insn: AbstractInsnNode, value1: BasicValue, value2: BasicValue): BasicValue? {
+        if (value1 is IntConstantValue && value2 is IntConstantValue) {
+            val result = evaluateBinaryOperation(insn.opcode, value1.value, value2.value)
+            if (result != null) return IntConstantValue(result)
+        }
+        return super.binaryOperation(insn, value1, value2)
+    }
+
+    override fun merge(v: BasicValue, w: BasicValue): BasicValue {
+        if (v !is IntConstantValue && w !is IntConstantValue) return super.merge(v, w)
+        if (v == w) return v
+
+        val merged = super.merge(v.withoutConstant(), w.withoutConstant())
+        return if (merged.type?.sort == Type.INT) NOT_CONSTANT_INT_VALUE else merged
+    }
+
+    private fun BasicValue.withoutConstant(): BasicValue =
+            if (this is IntConstantValue) BasicValue.INT_VALUE else this
+}
@@ -26,10 +26,16 @@ import org.jetbrains.org.objectweb.asm.MethodVisitor;
 public class OptimizationClassBuilder extends DelegatingClassBuilder {
     private final ClassBuilder delegate;
     private final boolean disableOptimization;
+    private final OptimizationPipeline optimizationPipeline;
 
-    public OptimizationClassBuilder(@NotNull ClassBuilder delegate, boolean disableOptimization) {
+    public OptimizationClassBuilder(
+            @NotNull ClassBuilder delegate,
+            boolean disableOptimization,
+            @NotNull OptimizationPipeline optimizationPipeline
+    ) {
         this.delegate = delegate;
         this.disableOptimization = disableOptimization;
+        this.optimizationPipeline = optimizationPipeline;
     }
 
     @NotNull
@@ -51,6 +57,7 @@ public class OptimizationClassBuilder extends DelegatingClassBuilder {
         return new OptimizationMethodVisitor(
                 super.newMethod(origin, access, name, desc, signature, exceptions),
                 disableOptimization,
+                optimizationPipeline,
                 access, name, desc, signature, exceptions
         );
     }
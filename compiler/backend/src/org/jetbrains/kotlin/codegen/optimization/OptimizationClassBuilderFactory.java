@@ -25,15 +25,25 @@ import org.jetbrains.kotlin.resolve.jvm.diagnostics.JvmDeclarationOrigin;
 
 public class OptimizationClassBuilderFactory extends DelegatingClassBuilderFactory {
     private final boolean disableOptimization;
+    private final OptimizationPipeline optimizationPipeline;
 
     public OptimizationClassBuilderFactory(ClassBuilderFactory delegate, boolean disableOptimization) {
+        this(delegate, disableOptimization, OptimizationPipeline.DEFAULT);
+    }
+
+    public OptimizationClassBuilderFactory(
+            ClassBuilderFactory delegate,
+            boolean disableOptimization,
+            @NotNull OptimizationPipeline optimizationPipeline
+    ) {
         super(delegate);
         this.disableOptimization = disableOptimization;
+        this.optimizationPipeline = optimizationPipeline;
     }
 
     @NotNull
     @Override
     public OptimizationClassBuilder newClassBuilder(@NotNull JvmDeclarationOrigin origin) {
-        return new OptimizationClassBuilder(getDelegate().newClassBuilder(origin), disableOptimization);
+        return new OptimizationClassBuilder(getDelegate().newClassBuilder(origin), disableOptimization, optimizationPipeline);
     }
 }
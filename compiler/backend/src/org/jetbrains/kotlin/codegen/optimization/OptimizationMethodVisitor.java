@@ -19,8 +19,6 @@ package org.jetbrains.kotlin.codegen.optimization;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.codegen.inline.InlineCodegenUtil;
-import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantBoxingMethodTransformer;
-import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantNullCheckMethodTransformer;
 import org.jetbrains.kotlin.codegen.optimization.common.UtilKt;
 import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer;
 import org.jetbrains.org.objectweb.asm.MethodVisitor;
@@ -38,20 +36,15 @@ public class OptimizationMethodVisitor extends MethodVisitor {
 
     private static final MethodTransformer MANDATORY_METHOD_TRANSFORMER = new MandatoryMethodTransformer();
 
-    private static final MethodTransformer[] OPTIMIZATION_TRANSFORMERS = new MethodTransformer[] {
-            new RedundantNullCheckMethodTransformer(),
-            new RedundantBoxingMethodTransformer(),
-            new DeadCodeEliminationMethodTransformer(),
-            new RedundantGotoMethodTransformer()
-    };
-
     private final MethodNode methodNode;
     private final MethodVisitor delegate;
     private final boolean disableOptimization;
+    private final OptimizationPipeline optimizationPipeline;
 
     public OptimizationMethodVisitor(
             @NotNull MethodVisitor delegate,
             boolean disableOptimization,
+            @NotNull OptimizationPipeline optimizationPipeline,
             int access,
             @NotNull String name,
             @NotNull String desc,
@@ -64,6 +57,7 @@ public class OptimizationMethodVisitor extends MethodVisitor {
         this.methodNode.localVariables = new ArrayList<LocalVariableNode>(5);
         this.mv = InlineCodegenUtil.wrapWithMaxLocalCalc(methodNode);
         this.disableOptimization = disableOptimization;
+        this.optimizationPipeline = optimizationPipeline;
     }
 
     @Override
@@ -78,9 +72,7 @@ public class OptimizationMethodVisitor extends MethodVisitor {
         if (shouldBeTransformed(methodNode)) {
             MANDATORY_METHOD_TRANSFORMER.transform("fake", methodNode);
             if (canBeOptimized(methodNode) && !disableOptimization) {
-                for (MethodTransformer transformer : OPTIMIZATION_TRANSFORMERS) {
-                    transformer.transform("fake", methodNode);
-                }
+                optimizationPipeline.transform("fake", methodNode);
             }
             UtilKt.prepareForEmitting(methodNode);
         }
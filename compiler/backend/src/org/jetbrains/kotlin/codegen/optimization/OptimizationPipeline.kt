@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen.optimization
+
+import org.jetbrains.kotlin.codegen.optimization.boxing.CapturedVarsOptimizationMethodTransformer
+import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantBoxingMethodTransformer
+import org.jetbrains.kotlin.codegen.optimization.boxing.RedundantNullCheckMethodTransformer
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
+import org.jetbrains.org.objectweb.asm.tree.MethodNode
+
+/**
+ * Optimizations applied to every generated method (unless disabled with -Xno-optimize), in order.
+ * Later transformers rely on the earlier ones, e.g. dead code elimination cleans up after all the others,
+ * so new transformers should be inserted relative to the existing ones rather than appended.
+ * Transformers are shared between codegen threads and must not keep any state between methods.
+ */
+class OptimizationPipeline(transformers: List<MethodTransformer>) : MethodTransformer() {
+    val transformers: List<MethodTransformer> = transformers.toList()
+
+    override fun transform(internalClassName: String, methodNode: MethodNode) {
+        for (transformer in transformers) {
+            transformer.transform(internalClassName, methodNode)
+        }
+    }
+
+    fun withTransformerBefore(anchor: Class<out MethodTransformer>, transformer: MethodTransformer): OptimizationPipeline =
+            OptimizationPipeline(transformers.toMutableList().apply { add(indexOf(anchor), transformer) })
+
+    fun withTransformerAfter(anchor: Class<out MethodTransformer>, transformer: MethodTransformer): OptimizationPipeline =
+            OptimizationPipeline(transformers.toMutableList().apply { add(indexOf(anchor) + 1, transformer) })
+
+    fun withoutTransformer(transformerClass: Class<out MethodTransformer>): OptimizationPipeline =
+            OptimizationPipeline(transformers.filter { !transformerClass.isInstance(it) })
+
+    private fun indexOf(anchor: Class<out MethodTransformer>): Int {
+        val index = transformers.indexOfFirst { anchor.isInstance(it) }
+        if (index < 0) throw IllegalArgumentException("No ${anchor.name} in the optimization pipeline: $transformers")
+        return index
+    }
+
+    companion object {
+        @JvmField
+        val DEFAULT = OptimizationPipeline(listOf(
+                RedundantNullCheckMethodTransformer(),
+                RedundantBoxingMethodTransformer(),
+                CapturedVarsOptimizationMethodTransformer(),
+                RedundantCheckcastMethodTransformer(),
+                ConstantPropagationMethodTransformer(),
+                StoreLoadEliminationMethodTransformer(),
+                DeadCodeEliminationMethodTransformer(),
+                RedundantGotoMethodTransformer()
+        ))
+    }
+}
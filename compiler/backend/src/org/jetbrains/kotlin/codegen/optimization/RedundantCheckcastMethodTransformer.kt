@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen.optimization
+
+import org.jetbrains.kotlin.codegen.inline.ReifiedTypeInliner
+import org.jetbrains.kotlin.codegen.optimization.common.OptimizationBasicInterpreter
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
+import org.jetbrains.kotlin.resolve.jvm.AsmTypes
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.Type
+import org.jetbrains.org.objectweb.asm.tree.MethodNode
+import org.jetbrains.org.objectweb.asm.tree.TypeInsnNode
+import org.jetbrains.org.objectweb.asm.tree.analysis.BasicValue
+import org.jetbrains.org.objectweb.asm.tree.analysis.Frame
+
+class RedundantCheckcastMethodTransformer : MethodTransformer() {
+    /**
+     * Removes CHECKCAST's to java/lang/Object and to the exact type the value on stack is already known to have
+     * (e.g. the value was just created, or loaded from a field or a variable of that type).
+     * Subtyping is not taken into account since class hierarchy is not available here.
+     */
+    override fun transform(internalClassName: String, methodNode: MethodNode) {
+        val insnList = methodNode.instructions
+        if (insnList.toArray().none { it.opcode == Opcodes.CHECKCAST }) return
+
+        val frames = MethodTransformer.analyze(internalClassName, methodNode, OptimizationBasicInterpreter())
+        val insnsToRemove = insnList.toArray().filterIndexed { i, insn ->
+            insn.opcode == Opcodes.CHECKCAST && isRedundant(insn as TypeInsnNode, frames[i])
+        }
+
+        for (insn in insnsToRemove) {
+            insnList.remove(insn)
+        }
+    }
+
+    private fun isRedundant(insn: TypeInsnNode, frame: Frame<BasicValue>?): Boolean {
+        if (frame == null) return false
+
+        // Type of the cast is replaced with the actual type argument when the function is inlined
+        val previous = insn.previous
+        if (previous != null && ReifiedTypeInliner.isOperationReifiedMarker(previous)) return false
+
+        if (insn.desc == AsmTypes.OBJECT_TYPE.internalName) return true
+
+        val type = frame.getStack(frame.stackSize - 1).type ?: return false
+        return type.sort == Type.OBJECT && type.internalName == insn.desc
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen.optimization
+
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
+import org.jetbrains.org.objectweb.asm.Opcodes.*
+import org.jetbrains.org.objectweb.asm.tree.*
+
+class StoreLoadEliminationMethodTransformer : MethodTransformer() {
+    /**
+     * Removes synthetic variables (having no entry in the local variable table) used as a temporary storage of a value:
+     * - a store immediately followed by the only load of the variable is removed together with the load,
+     *   so that the value just stays on the stack;
+     * - stores to a variable which is never loaded are removed, together with the constant or variable load
+     *   which pushed the stored value.
+     */
+    override fun transform(internalClassName: String, methodNode: MethodNode) {
+        val usages = collectUsages(methodNode) ?: return
+        val insnList = methodNode.instructions
+
+        for (usage in usages) {
+            if (usage == null) continue
+
+            if (usage.stores.size == 1 && usage.loads.size == 1) {
+                val store = usage.stores.single()
+                val load = usage.loads.single()
+                if (store.next === load && load.opcode - ILOAD == store.opcode - ISTORE) {
+                    insnList.remove(store)
+                    insnList.remove(load)
+                }
+            }
+            else if (usage.loads.isEmpty()) {
+                for (store in usage.stores) {
+                    removeDeadStore(insnList, store)
+                }
+            }
+        }
+    }
+
+    private fun removeDeadStore(insnList: InsnList, store: VarInsnNode) {
+        val isWide = store.opcode == LSTORE || store.opcode == DSTORE
+        val previous = store.previous
+        if (previous != null && pushesWithoutSideEffects(previous, isWide)) {
+            insnList.remove(previous)
+            insnList.remove(store)
+        }
+        else {
+            insnList.set(store, InsnNode(if (isWide) POP2 else POP))
+        }
+    }
+
+    private fun pushesWithoutSideEffects(insn: AbstractInsnNode, isWide: Boolean): Boolean =
+            when (insn.opcode) {
+                ACONST_NULL, in ICONST_M1..ICONST_5, FCONST_0, FCONST_1, FCONST_2, BIPUSH, SIPUSH, ILOAD, FLOAD, ALOAD -> !isWide
+                LCONST_0, LCONST_1, DCONST_0, DCONST_1, LLOAD, DLOAD -> isWide
+                // loading of class literals may fail, so only numbers and strings are removed
+                LDC -> (insn as LdcInsnNode).cst.let { (it is Number || it is String) && (it is Long || it is Double) == isWide }
+                else -> false
+            }
+
+    private class VariableUsage {
+        val stores = arrayListOf<VarInsnNode>()
+        val loads = arrayListOf<VarInsnNode>()
+    }
+
+    // Returns usages of synthetic variables by index, null if there are none
+    private fun collectUsages(methodNode: MethodNode): Array<VariableUsage?>? {
+        val usages = arrayOfNulls<VariableUsage>(methodNode.maxLocals)
+        val excluded = BooleanArray(methodNode.maxLocals)
+        for (localVariable in methodNode.localVariables) {
+            excluded[localVariable.index] = true
+        }
+
+        var hasUsages = false
+        for (insn in methodNode.instructions.toArray()) {
+            if (insn is IincInsnNode || insn.opcode == RET) {
+                excluded[if (insn is IincInsnNode) insn.`var` else (insn as VarInsnNode).`var`] = true
+            }
+            else if (insn is VarInsnNode) {
+                val usage = usages[insn.`var`] ?: VariableUsage().apply { usages[insn.`var`] = this }
+                if (insn.opcode >= ISTORE) usage.stores.add(insn) else usage.loads.add(insn)
+                hasUsages = true
+            }
+        }
+
+        if (!hasUsages) return null
+        for (i in usages.indices) {
+            if (excluded[i]) usages[i] = null
+        }
+        return usages
+    }
+}
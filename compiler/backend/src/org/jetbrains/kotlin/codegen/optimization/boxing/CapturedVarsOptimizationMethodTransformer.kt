@@ -0,0 +1,261 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen.optimization.boxing
+
+import org.jetbrains.kotlin.codegen.optimization.common.InsnSequence
+import org.jetbrains.kotlin.codegen.optimization.common.OptimizationBasicInterpreter
+import org.jetbrains.kotlin.codegen.optimization.fixStack.top
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
+import org.jetbrains.kotlin.resolve.jvm.AsmTypes
+import org.jetbrains.org.objectweb.asm.Opcodes.*
+import org.jetbrains.org.objectweb.asm.Type
+import org.jetbrains.org.objectweb.asm.tree.*
+import org.jetbrains.org.objectweb.asm.tree.analysis.BasicValue
+import org.jetbrains.org.objectweb.asm.tree.analysis.Frame
+
+class CapturedVarsOptimizationMethodTransformer : MethodTransformer() {
+    /**
+     * Replaces Ref objects holding captured variables (e.g. a `var` modified in an inlined lambda) with plain local variables,
+     * if a Ref does not escape the method, i.e. it is only stored to and loaded from local variables, and its element is read and written.
+     * Entries of the local variable table are updated accordingly, so that the variable is still visible in the debugger.
+     */
+    override fun transform(internalClassName: String, methodNode: MethodNode) {
+        val refs = findRefCreations(methodNode.instructions)
+        if (refs.isEmpty()) return
+
+        val frames = MethodTransformer.analyze(internalClassName, methodNode, RefTrackingInterpreter(refs))
+        collectUsages(methodNode.instructions, frames)
+
+        val refsToReplace = refs.values.filter { !it.escapes }
+        if (refsToReplace.isEmpty()) return
+
+        for (ref in refsToReplace) {
+            ref.localIndex = methodNode.maxLocals
+            methodNode.maxLocals += ref.elementType.size
+        }
+        // should be done before instructions are changed, since frames are looked up by instruction indices
+        updateLocalVariables(methodNode, frames)
+
+        for (ref in refsToReplace) {
+            replaceWithLocalVariable(methodNode.instructions, ref)
+        }
+    }
+
+    // NEW Ref; DUP; INVOKESPECIAL Ref.<init>()V, as generated for a captured variable declaration
+    private fun findRefCreations(insnList: InsnList): Map<AbstractInsnNode, CapturedRef> {
+        val result = linkedMapOf<AbstractInsnNode, CapturedRef>()
+        for (insn in insnList.toArray()) {
+            if (insn.opcode != NEW) continue
+            val elementType = REF_ELEMENT_TYPES[(insn as TypeInsnNode).desc] ?: continue
+
+            val dup = insn.next
+            val init = dup?.next
+            if (dup?.opcode == DUP && init is MethodInsnNode && init.opcode == INVOKESPECIAL &&
+                init.owner == insn.desc && init.name == "<init>" && init.desc == "()V") {
+                result[insn] = CapturedRef(insn, init, elementType)
+            }
+        }
+        return result
+    }
+
+    private fun collectUsages(insnList: InsnList, frames: Array<out Frame<BasicValue>?>) {
+        for ((i, insn) in insnList.toArray().withIndex()) {
+            val frame = frames[i] ?: continue
+            when (insn.opcode) {
+                ALOAD ->
+                    (frame.getLocal((insn as VarInsnNode).`var`) as? RefValue)?.ref?.loads?.add(insn)
+                ASTORE ->
+                    (frame.top() as? RefValue)?.ref?.stores?.add(insn)
+                DUP ->
+                    (frame.top() as? RefValue)?.ref?.let { if (insn !== it.newInsn.next) it.dups.add(insn) }
+                GETFIELD ->
+                    (frame.top() as? RefValue)?.ref?.getFields?.add(insn)
+                PUTFIELD ->
+                    (frame.getStack(frame.stackSize - 2) as? RefValue)?.ref?.putFields?.add(insn)
+                // the interpreter is not called for these instructions
+                POP, POP2, DUP_X1, DUP_X2, DUP2, DUP2_X1, DUP2_X2, SWAP ->
+                    for (j in Math.max(0, frame.stackSize - 4)..frame.stackSize - 1) {
+                        (frame.getStack(j) as? RefValue)?.ref?.escapes = true
+                    }
+            }
+        }
+    }
+
+    private fun updateLocalVariables(methodNode: MethodNode, frames: Array<out Frame<BasicValue>?>) {
+        val insnList = methodNode.instructions
+        for (localVariable in methodNode.localVariables) {
+            if (REF_ELEMENT_TYPES[Type.getType(localVariable.desc).internalName] == null) continue
+
+            val ref = InsnSequence(localVariable.start, localVariable.end).map {
+                frames[insnList.indexOf(it)]?.getLocal(localVariable.index) as? RefValue
+            }.firstOrNull { it != null }?.ref
+
+            if (ref != null && !ref.escapes) {
+                localVariable.index = ref.localIndex
+                localVariable.desc = getElementDescriptor(localVariable, ref)
+                localVariable.signature = null
+            }
+        }
+    }
+
+    // ObjectRef variables are generated with the element type in the signature, e.g. Lkotlin/jvm/internal/Ref$ObjectRef<Ljava/lang/String;>;
+    private fun getElementDescriptor(localVariable: LocalVariableNode, ref: CapturedRef): String {
+        val signature = localVariable.signature
+        if (ref.elementType.sort != Type.OBJECT || signature == null ||
+            !signature.startsWith(OBJECT_REF_SIGNATURE_PREFIX) || !signature.endsWith(">;")) {
+            return ref.elementType.descriptor
+        }
+
+        val argument = signature.substring(OBJECT_REF_SIGNATURE_PREFIX.length, signature.length - 2)
+        // type variables, wildcards and generic types are not written by the codegen
+        if (argument.isEmpty() || argument[0] !in "L[" || '<' in argument) return ref.elementType.descriptor
+
+        return argument
+    }
+
+    private fun replaceWithLocalVariable(insnList: InsnList, ref: CapturedRef) {
+        insnList.insertBefore(ref.newInsn, defaultValue(ref.elementType))
+        insnList.insertBefore(ref.newInsn, VarInsnNode(ref.elementType.getOpcode(ISTORE), ref.localIndex))
+        insnList.remove(ref.newInsn.next)
+        insnList.remove(ref.newInsn)
+        insnList.remove(ref.initInsn)
+
+        for (insn in ref.loads + ref.stores + ref.dups) {
+            insnList.remove(insn)
+        }
+        for (insn in ref.getFields) {
+            insnList.set(insn, VarInsnNode(ref.elementType.getOpcode(ILOAD), ref.localIndex))
+        }
+        for (insn in ref.putFields) {
+            insnList.set(insn, VarInsnNode(ref.elementType.getOpcode(ISTORE), ref.localIndex))
+        }
+    }
+
+    private fun defaultValue(type: Type): AbstractInsnNode =
+            when (type.sort) {
+                Type.OBJECT -> InsnNode(ACONST_NULL)
+                Type.LONG -> InsnNode(LCONST_0)
+                Type.FLOAT -> InsnNode(FCONST_0)
+                Type.DOUBLE -> InsnNode(DCONST_0)
+                else -> InsnNode(ICONST_0)
+            }
+}
+
+private val OBJECT_REF_SIGNATURE_PREFIX = "L" + AsmTypes.OBJECT_REF_TYPE.internalName + "<"
+
+private val REF_ELEMENT_TYPES: Map<String, Type> = mapOf(
+        AsmTypes.OBJECT_REF_TYPE.internalName to AsmTypes.OBJECT_TYPE,
+        AsmTypes.REF_TYPE_PREFIX + "BooleanRef" to Type.BOOLEAN_TYPE,
+        AsmTypes.REF_TYPE_PREFIX + "CharRef" to Type.CHAR_TYPE,
+        AsmTypes.REF_TYPE_PREFIX + "ByteRef" to Type.BYTE_TYPE,
+        AsmTypes.REF_TYPE_PREFIX + "ShortRef" to Type.SHORT_TYPE,
+        AsmTypes.REF_TYPE_PREFIX + "IntRef" to Type.INT_TYPE,
+        AsmTypes.REF_TYPE_PREFIX + "LongRef" to Type.LONG_TYPE,
+        AsmTypes.REF_TYPE_PREFIX + "FloatRef" to Type.FLOAT_TYPE,
+        AsmTypes.REF_TYPE_PREFIX + "DoubleRef" to Type.DOUBLE_TYPE
+)
+
+private class CapturedRef(val newInsn: TypeInsnNode, val initInsn: MethodInsnNode, val elementType: Type) {
+    var escapes = false
+    var localIndex = -1
+
+    val loads = linkedSetOf<AbstractInsnNode>()
+    val stores = linkedSetOf<AbstractInsnNode>()
+    val dups = linkedSetOf<AbstractInsnNode>()
+    val getFields = linkedSetOf<AbstractInsnNode>()
+    val putFields = linkedSetOf<AbstractInsnNode>()
+
+    fun isElementAccess(insn: AbstractInsnNode): Boolean =
+            insn is FieldInsnNode && (insn.opcode == GETFIELD || insn.opcode == PUTFIELD) &&
+            insn.owner == newInsn.desc && insn.name == "element"
+}
+
+private class RefValue(val ref: CapturedRef) : BasicValue(Type.getObjectType(ref.newInsn.desc)) {
+    override fun equals(other: Any?): Boolean = other is RefValue && other.ref === ref
+
+    override fun hashCode(): Int = ref.hashCode()
+}
+
+// Marks a Ref as escaping when it is used in any way other than loads, stores and element accesses
+private class RefTrackingInterpreter(private val refs: Map<AbstractInsnNode, CapturedRef>) : OptimizationBasicInterpreter() {
+    override fun newOperation(insn: AbstractInsnNode): BasicValue? {
+        val ref = refs[insn] ?: return super.newOperation(insn)
+        return RefValue(ref)
+    }
+
+    override fun copyOperation(insn: AbstractInsnNode, value: BasicValue): BasicValue? {
+        if (insn.opcode != ALOAD && insn.opcode != ASTORE && insn.opcode != DUP) {
+            markEscaping(value)
+        }
+        return super.copyOperation(insn, value)
+    }
+
+    override fun unaryOperation(insn: AbstractInsnNode, value: BasicValue): BasicValue? {
+        if (value !is RefValue || insn.opcode != GETFIELD || !value.ref.isElementAccess(insn)) {
+            markEscaping(value)
+        }
+        return super.unaryOperation(insn, value)
+    }
+
+    override fun binaryOperation(insn: AbstractInsnNode, value1: BasicValue, value2: BasicValue): BasicValue? {
+        if (value1 !is RefValue || insn.opcode != PUTFIELD || !value1.ref.isElementAccess(insn)) {
+            markEscaping(value1)
+        }
+        markEscaping(value2)
+        return super.binaryOperation(insn, value1, value2)
+    }
+
+    override fun ternaryOperation(insn: AbstractInsnNode, value1: BasicValue, value2: BasicValue, value3: BasicValue): BasicValue? {
+        markEscaping(value1)
+        markEscaping(value2)
+        markEscaping(value3)
+        return super.ternaryOperation(insn, value1, value2, value3)
+    }
+
+    override fun naryOperation(insn: AbstractInsnNode, values: List<BasicValue>): BasicValue? {
+        for ((i, value) in values.withIndex()) {
+            if (value !is RefValue || i != 0 || insn !== value.ref.initInsn) {
+                markEscaping(value)
+            }
+        }
+        return super.naryOperation(insn, values)
+    }
+
+    override fun returnOperation(insn: AbstractInsnNode, value: BasicValue, expected: BasicValue) {
+        markEscaping(value)
+        super.returnOperation(insn, value, expected)
+    }
+
+    override fun merge(v: BasicValue, w: BasicValue): BasicValue {
+        if (v !is RefValue && w !is RefValue) return super.merge(v, w)
+        if (v == w) return v
+
+        // variable is not used after its scope ends (e.g. at the beginning of the next loop iteration)
+        if (v === BasicValue.UNINITIALIZED_VALUE || w === BasicValue.UNINITIALIZED_VALUE) return BasicValue.UNINITIALIZED_VALUE
+
+        markEscaping(v)
+        markEscaping(w)
+        return BasicValue.REFERENCE_VALUE
+    }
+
+    private fun markEscaping(value: BasicValue?) {
+        if (value is RefValue) {
+            value.ref.escapes = true
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.jetbrains.kotlin.codegen.optimization.boxing;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.codegen.intrinsics.IntrinsicMethods;
 import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer;
 import org.jetbrains.org.objectweb.asm.Opcodes;
 import org.jetbrains.org.objectweb.asm.tree.*;
@@ -43,6 +44,7 @@ public class RedundantNullCheckMethodTransformer extends MethodTransformer {
         );
 
         List<AbstractInsnNode> insnsToOptimize = new ArrayList<AbstractInsnNode>();
+        List<AbstractInsnNode> assertionsToRemove = new ArrayList<AbstractInsnNode>();
 
         for (int i = 0; i < insnList.size(); i++) {
             Frame<BasicValue> frame = frames[i];
@@ -52,6 +54,10 @@ public class RedundantNullCheckMethodTransformer extends MethodTransformer {
                 frame != null && frame.getStack(frame.getStackSize() - 1) instanceof NotNullBasicValue) {
                 insnsToOptimize.add(insn);
             }
+            else if (isNotNullAssertion(insn) &&
+                     frame != null && frame.getStack(frame.getStackSize() - 2) instanceof NotNullBasicValue) {
+                assertionsToRemove.add(insn);
+            }
         }
 
         for (AbstractInsnNode insn : insnsToOptimize) {
@@ -76,6 +82,29 @@ public class RedundantNullCheckMethodTransformer extends MethodTransformer {
             }
         }
 
-        return insnsToOptimize.size() > 0;
+        for (AbstractInsnNode insn : assertionsToRemove) {
+            AbstractInsnNode message = insn.getPrevious();
+            AbstractInsnNode value = message != null ? message.getPrevious() : null;
+            if (message != null && message.getOpcode() == Opcodes.LDC &&
+                value != null && (value.getOpcode() == Opcodes.DUP || value.getOpcode() == Opcodes.ALOAD)) {
+                insnList.remove(value);
+                insnList.remove(message);
+                insnList.remove(insn);
+            }
+            else {
+                insnList.set(insn, new InsnNode(Opcodes.POP2));
+            }
+        }
+
+        return insnsToOptimize.size() > 0 || assertionsToRemove.size() > 0;
+    }
+
+    // Intrinsics.checkExpressionValueIsNotNull(value, message) and Intrinsics.checkParameterIsNotNull(value, name)
+    private static boolean isNotNullAssertion(@NotNull AbstractInsnNode insn) {
+        if (insn.getOpcode() != Opcodes.INVOKESTATIC) return false;
+        MethodInsnNode methodInsn = (MethodInsnNode) insn;
+        return methodInsn.owner.equals(IntrinsicMethods.INTRINSICS_CLASS_NAME) &&
+               (methodInsn.name.equals("checkExpressionValueIsNotNull") || methodInsn.name.equals("checkParameterIsNotNull")) &&
+               methodInsn.desc.equals("(Ljava/lang/Object;Ljava/lang/String;)V");
     }
 }
@@ -117,3 +117,11 @@ val AbstractInsnNode.intConstant: Int? get() =
         LDC -> (this as LdcInsnNode).cst as? Int
         else -> null
     }
+
+fun intConstantInsn(value: Int): AbstractInsnNode =
+    when (value) {
+        in -1..5 -> InsnNode(ICONST_0 + value)
+        in Byte.MIN_VALUE.toInt()..Byte.MAX_VALUE.toInt() -> IntInsnNode(BIPUSH, value)
+        in Short.MIN_VALUE.toInt()..Short.MAX_VALUE.toInt() -> IntInsnNode(SIPUSH, value)
+        else -> LdcInsnNode(value)
+    }
@@ -56,11 +56,13 @@ class BuilderFactoryForDuplicateSignatureDiagnostics(
                                            IncompatibleClassTracker.DoNothing, moduleName)
     private val reportDiagnosticsTasks = ArrayList<() -> Unit>()
 
+    @Synchronized
     fun reportDiagnostics() {
         reportDiagnosticsTasks.forEach { it() }
         reportDiagnosticsTasks.clear()
     }
 
+    @Synchronized
     override fun handleClashingSignatures(data: ConflictingJvmDeclarationsData) {
         reportDiagnosticsTasks.add { reportConflictingJvmSignatures(data) }
     }
@@ -89,6 +91,7 @@ class BuilderFactoryForDuplicateSignatureDiagnostics(
         }
     }
 
+    @Synchronized
     override fun onClassDone(
             classOrigin: JvmDeclarationOrigin,
             classInternalName: String?,
@@ -26,8 +26,11 @@ import org.jetbrains.kotlin.codegen.binding.CodegenBinding
 import org.jetbrains.kotlin.codegen.context.CodegenContext
 import org.jetbrains.kotlin.codegen.context.RootContext
 import org.jetbrains.kotlin.codegen.extensions.ClassBuilderInterceptorExtension
+import org.jetbrains.kotlin.codegen.inline.InlineMethodNodeCache
+import org.jetbrains.kotlin.codegen.inline.LibraryInlineMethodNodes
 import org.jetbrains.kotlin.codegen.intrinsics.IntrinsicMethods
 import org.jetbrains.kotlin.codegen.optimization.OptimizationClassBuilderFactory
+import org.jetbrains.kotlin.codegen.optimization.OptimizationPipeline
 import org.jetbrains.kotlin.descriptors.ModuleDescriptor
 import org.jetbrains.kotlin.descriptors.ScriptDescriptor
 import org.jetbrains.kotlin.diagnostics.Diagnostic
@@ -42,6 +45,8 @@ import org.jetbrains.kotlin.resolve.BindingContext
 import org.jetbrains.kotlin.resolve.BindingTrace
 import org.jetbrains.kotlin.resolve.DelegatingBindingTrace
 import org.jetbrains.kotlin.resolve.diagnostics.Diagnostics
+import org.jetbrains.kotlin.storage.LockBasedLazyResolveStorageManager
+import org.jetbrains.kotlin.storage.LockBasedStorageManager
 import java.io.File
 
 class GenerationState @JvmOverloads constructor(
@@ -68,7 +73,11 @@ class GenerationState @JvmOverloads constructor(
         val incrementalCompilationComponents: IncrementalCompilationComponents? = null,
         val generateOpenMultifileClasses: Boolean = false,
         val progress: Progress = Progress.DEAF,
-        private val onIndependentPartCompilationEnd: GenerationStateEventCallback = GenerationStateEventCallback.DO_NOTHING
+        private val onIndependentPartCompilationEnd: GenerationStateEventCallback = GenerationStateEventCallback.DO_NOTHING,
+        // number of threads used to generate multifile classes and packages, see KotlinCodegenFacade
+        val codegenThreads: Int = 1,
+        val libraryInlineMethodNodes: LibraryInlineMethodNodes? = null,
+        optimizationPipeline: OptimizationPipeline = OptimizationPipeline.DEFAULT
 ) {
     abstract class GenerateClassFilter {
         abstract fun shouldAnnotateClass(processingClassOrObject: KtClassOrObject): Boolean
@@ -96,7 +105,15 @@ class GenerationState @JvmOverloads constructor(
                 incrementalCompilationComponents.getIncrementalCache(targetId)
             else null
 
-    val extraJvmDiagnosticsTrace: BindingTrace = DelegatingBindingTrace(bindingContext, false, "For extra diagnostics in ${this.javaClass}")
+    // Traces are written to during code generation, so they must be guarded when packages are generated concurrently
+    private val traceStorageManager: LockBasedLazyResolveStorageManager? =
+            if (codegenThreads > 1) LockBasedLazyResolveStorageManager(LockBasedStorageManager()) else null
+
+    private fun safeTrace(trace: BindingTrace): BindingTrace = traceStorageManager?.createSafeTrace(trace) ?: trace
+
+    val extraJvmDiagnosticsTrace: BindingTrace = safeTrace(
+            DelegatingBindingTrace(bindingContext, false, "For extra diagnostics in ${this.javaClass}")
+    )
     private val interceptedBuilderFactory: ClassBuilderFactory
     private var used = false
 
@@ -108,7 +125,7 @@ class GenerationState @JvmOverloads constructor(
 
     val moduleName: String = moduleName ?: JvmCodegenUtil.getModuleName(module)
     val classBuilderMode: ClassBuilderMode = builderFactory.classBuilderMode
-    val bindingTrace: BindingTrace = DelegatingBindingTrace(bindingContext, "trace in GenerationState")
+    val bindingTrace: BindingTrace = safeTrace(DelegatingBindingTrace(bindingContext, "trace in GenerationState"))
     val bindingContext: BindingContext = bindingTrace.bindingContext
     val typeMapper: KotlinTypeMapper = KotlinTypeMapper(
             this.bindingContext, classBuilderMode, fileClassesProvider, getIncrementalCacheForThisTarget(),
@@ -117,6 +134,7 @@ class GenerationState @JvmOverloads constructor(
     val intrinsics: IntrinsicMethods = IntrinsicMethods()
     val samWrapperClasses: SamWrapperClasses = SamWrapperClasses(this)
     val inlineCycleReporter: InlineCycleReporter = InlineCycleReporter(diagnostics)
+    val inlineMethodNodeCache: InlineMethodNodeCache = InlineMethodNodeCache()
     val mappingsClassesForWhenByEnum: MappingsClassesForWhenByEnum = MappingsClassesForWhenByEnum(this)
     val reflectionTypes: ReflectionTypes = ReflectionTypes(module)
     val jvmRuntimeTypes: JvmRuntimeTypes = JvmRuntimeTypes()
@@ -146,7 +164,7 @@ class GenerationState @JvmOverloads constructor(
     val rootContext: CodegenContext<*> = RootContext(this)
 
     init {
-        val optimizationClassBuilderFactory = OptimizationClassBuilderFactory(builderFactory, disableOptimization)
+        val optimizationClassBuilderFactory = OptimizationClassBuilderFactory(builderFactory, disableOptimization, optimizationPipeline)
         duplicateSignatureFactory = BuilderFactoryForDuplicateSignatureDiagnostics(
                 optimizationClassBuilderFactory, this.bindingContext, diagnostics, fileClassesProvider,
                 getIncrementalCacheForThisTarget(),
@@ -172,7 +190,12 @@ class GenerationState @JvmOverloads constructor(
     }
 
     fun afterIndependentPart() {
-        onIndependentPartCompilationEnd(this)
+        try {
+            onIndependentPartCompilationEnd(this)
+        }
+        finally {
+            factory.clearCurrentPartOutput()
+        }
     }
 
     private fun markUsed() {
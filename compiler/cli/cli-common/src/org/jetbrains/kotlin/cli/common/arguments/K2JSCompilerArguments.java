@@ -61,6 +61,14 @@ public class K2JSCompilerArguments extends CommonCompilerArguments {
     @ValueDescription("<path>")
     public String outputPostfix;
 
+    @Argument(value = "Xincremental-cache", description = "Skip compilation if sources, libraries and options are unchanged since the last one with this cache file")
+    @ValueDescription("<path>")
+    public String incrementalCache;
+
+    @Argument(value = "Xtranslation-threads", description = "Translate packages to JavaScript in parallel using the given number of threads")
+    @ValueDescription("<count>")
+    public String translationThreads;
+
     @Override
     @NotNull
     public String executableScriptFileName() {
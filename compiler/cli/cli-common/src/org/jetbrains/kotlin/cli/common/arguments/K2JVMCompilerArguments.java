@@ -73,6 +73,14 @@ public class K2JVMCompilerArguments extends CommonCompilerArguments {
     @Argument(value = "Xskip-metadata-version-check", description = "Try loading binary incompatible classes, may cause crashes")
     public boolean skipMetadataVersionCheck;
 
+    @Argument(value = "Xbackend-threads", description = "Generate bytecode for different packages in parallel using the given number of threads")
+    @ValueDescription("<count>")
+    public String backendThreads;
+
+    @Argument(value = "Xparser-threads", description = "Parse source files in parallel using the given number of threads")
+    @ValueDescription("<count>")
+    public String parserThreads;
+
     // Paths to output directories for friend modules.
     public String[] friendPaths;
 
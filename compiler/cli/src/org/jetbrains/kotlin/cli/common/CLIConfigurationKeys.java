@@ -30,6 +30,8 @@ public class CLIConfigurationKeys {
             CompilerConfigurationKey.create("allow kotlin package");
     public static final CompilerConfigurationKey<Boolean> REPORT_PERF =
             CompilerConfigurationKey.create("report performance information");
+    public static final CompilerConfigurationKey<CompilationPhaseListener> COMPILATION_PHASE_LISTENER =
+            CompilerConfigurationKey.create("compilation phase listener");
 
     private CLIConfigurationKeys() {
     }
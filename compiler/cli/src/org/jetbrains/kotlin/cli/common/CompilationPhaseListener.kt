@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.common
+
+import org.jetbrains.kotlin.config.CompilerConfiguration
+
+enum class CompilationPhase {
+    // loading and parsing source files
+    PARSE,
+    ANALYZE,
+    CODEGEN,
+    // writing class files or jar to the output
+    WRITE
+}
+
+// Receives wall times of compilation phases; passed to the compiler as a service (see CLIConfigurationKeys.COMPILATION_PHASE_LISTENER),
+// e.g. by the daemon to collect phase statistics across compilations.
+// A phase may be reported several times per compilation, e.g. code is generated and written separately for every module in a chunk.
+interface CompilationPhaseListener {
+    fun phaseFinished(phase: CompilationPhase, nanos: Long)
+}
+
+inline fun <R> CompilerConfiguration.measurePhase(phase: CompilationPhase, body: () -> R): R {
+    val listener = get(CLIConfigurationKeys.COMPILATION_PHASE_LISTENER) ?: return body()
+    val start = System.nanoTime()
+    try {
+        return body()
+    }
+    finally {
+        listener.phaseFinished(phase, System.nanoTime() - start)
+    }
+}
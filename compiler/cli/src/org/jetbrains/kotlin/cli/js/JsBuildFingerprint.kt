@@ -0,0 +1,199 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.cli.js
+
+import org.jetbrains.kotlin.cli.common.KotlinVersion
+import org.jetbrains.kotlin.cli.common.arguments.K2JSCompilerArguments
+import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.utils.JsLibraryUtils
+import org.jetbrains.kotlin.utils.KotlinJavascriptMetadataUtils
+import org.jetbrains.kotlin.utils.fileUtils.withReplacedExtensionOrNull
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+import java.util.*
+
+/**
+ * Inputs and outputs of a JS compilation, saved after it to skip the next compilation of the same module
+ * when none of the inputs changed and the outputs are still in place (see -Xincremental-cache).
+ *
+ * Inputs are contents of source files, contents of all files read from libraries (see JsLibraryUtils.traverseJsLibrary)
+ * and compiler options. A library is read and hashed again only when the size or the modification time
+ * of one of its files changed since the previous compilation, otherwise its previous hash is reused.
+ * Outputs are checked by their sizes and contents, so an output changed or replaced since the compilation is written again.
+ * The translator allocates names across the whole program, so the module is either up-to-date or compiled again as a whole.
+ */
+class JsBuildFingerprint private constructor(
+        private val inputs: Map<String, String>,
+        private val libraryStamps: Map<String, String>,
+        private val outputs: Map<String, String>
+) {
+    fun isUpToDate(previous: JsBuildFingerprint?): Boolean {
+        if (previous == null || previous.inputs != inputs || previous.outputs.isEmpty()) return false
+
+        return previous.outputs.all { entry ->
+            val file = File(entry.key)
+            // the size is checked first not to read outputs which obviously changed
+            file.isFile && entry.value.startsWith("${file.length()}$DIGEST_SEPARATOR") && outputDigest(file) == entry.value
+        }
+    }
+
+    fun withOutputs(outputFiles: List<File>): JsBuildFingerprint {
+        val result = LinkedHashMap<String, String>()
+        for (file in outputFiles) {
+            result[file.absolutePath] = outputDigest(file)
+        }
+        return JsBuildFingerprint(inputs, libraryStamps, result)
+    }
+
+    @Throws(IOException::class)
+    fun save(file: File) {
+        file.absoluteFile.parentFile?.mkdirs()
+        file.writeText(buildString {
+            appendln(FORMAT_VERSION)
+            for ((key, value) in inputs) {
+                appendln("$INPUT_PREFIX$key$SEPARATOR$value")
+            }
+            for ((key, stamp) in libraryStamps) {
+                appendln("$LIBRARY_STAMP_PREFIX$key$SEPARATOR$stamp")
+            }
+            for ((path, digest) in outputs) {
+                appendln("$OUTPUT_PREFIX$path$SEPARATOR$digest")
+            }
+        })
+    }
+
+    companion object {
+        private val FORMAT_VERSION = "3"
+        private val INPUT_PREFIX = "I "
+        private val LIBRARY_STAMP_PREFIX = "L "
+        private val OUTPUT_PREFIX = "O "
+        private val SEPARATOR = '\t'
+        private val DIGEST_SEPARATOR = ':'
+        private val MISSING = "<missing>"
+
+        // Hashes of libraries are taken from the previous fingerprint when their files are unchanged
+        @JvmStatic
+        fun compute(
+                sourceFiles: List<KtFile>,
+                libraries: List<String>,
+                arguments: K2JSCompilerArguments,
+                previous: JsBuildFingerprint?
+        ): JsBuildFingerprint {
+            val inputs = LinkedHashMap<String, String>()
+            val libraryStamps = LinkedHashMap<String, String>()
+            inputs["version"] = KotlinVersion.VERSION
+
+            for (file in sourceFiles) {
+                val path = file.virtualFile?.path ?: file.name
+                inputs["source:$path"] = md5(file.text)
+            }
+
+            for (library in libraries) {
+                val file = File(library)
+                val key = "library:${file.absolutePath}"
+                val stamp = libraryStamp(file)
+                val previousHash = previous?.inputs?.get(key)
+                inputs[key] = if (previousHash != null && previous?.libraryStamps?.get(key) == stamp) previousHash else libraryHash(file)
+                libraryStamps[key] = stamp
+            }
+
+            with(arguments) {
+                inputs["output"] = File(outputFile).absolutePath
+                inputs["options"] = listOf(noStdlib, sourceMap, metaInfo, kjsm, noInline, target, main).joinToString()
+                inputs["pluginClasspaths"] = pluginClasspaths?.joinToString(File.pathSeparator).toString()
+                inputs["pluginOptions"] = pluginOptions?.joinToString(",").toString()
+                inputs["outputPrefix"] = outputPrefix?.let { fileHash(File(it)) }.toString()
+                inputs["outputPostfix"] = outputPostfix?.let { fileHash(File(it)) }.toString()
+            }
+
+            return JsBuildFingerprint(inputs, libraryStamps, emptyMap())
+        }
+
+        // Returns null if the file doesn't exist or was written in another format, so that the module is compiled
+        @JvmStatic
+        fun load(file: File): JsBuildFingerprint? {
+            if (!file.isFile) return null
+
+            val lines = try {
+                file.readLines()
+            }
+            catch (e: IOException) {
+                return null
+            }
+            if (lines.firstOrNull() != FORMAT_VERSION) return null
+
+            val inputs = LinkedHashMap<String, String>()
+            val libraryStamps = LinkedHashMap<String, String>()
+            val outputs = LinkedHashMap<String, String>()
+            for (line in lines.drop(1)) {
+                val separator = line.lastIndexOf(SEPARATOR)
+                if (separator < INPUT_PREFIX.length) return null
+                val key = line.substring(INPUT_PREFIX.length, separator)
+                val value = line.substring(separator + 1)
+                when {
+                    line.startsWith(INPUT_PREFIX) -> inputs[key] = value
+                    line.startsWith(LIBRARY_STAMP_PREFIX) -> libraryStamps[key] = value
+                    line.startsWith(OUTPUT_PREFIX) -> outputs[key] = value
+                    else -> return null
+                }
+            }
+            return JsBuildFingerprint(inputs, libraryStamps, outputs)
+        }
+
+        private fun outputDigest(file: File): String =
+                "${file.length()}$DIGEST_SEPARATOR${md5(file.readBytes())}"
+
+        // Missing files are reported by the compiler later
+        private fun fileHash(file: File): String =
+                if (file.isFile) md5(file.readText()) else MISSING
+
+        // Sizes and modification times of the files read from the library (see libraryHash)
+        private fun libraryStamp(library: File): String {
+            if (!library.exists()) return MISSING
+
+            val files = if (library.isDirectory) {
+                library.walkTopDown().filter { it.isFile && it.name.endsWith(KotlinJavascriptMetadataUtils.JS_EXT) }.toList()
+            }
+            else {
+                val jsFile = library.withReplacedExtensionOrNull(KotlinJavascriptMetadataUtils.META_JS_SUFFIX, KotlinJavascriptMetadataUtils.JS_EXT)
+                if (jsFile != null) listOf(library, jsFile) else listOf(library)
+            }
+            return files.sortedBy { it.path }.joinToString(File.pathSeparator) { "${it.path}:${it.length()}:${it.lastModified()}" }
+        }
+
+        // A directory library is read file by file, and a .meta.js library is read together with its sibling .js file,
+        // so the size and modification time of the library path itself are not enough
+        private fun libraryHash(library: File): String {
+            if (!library.exists()) return MISSING
+
+            val digest = MessageDigest.getInstance("MD5")
+            JsLibraryUtils.traverseJsLibrary(library) { content, path ->
+                digest.update("$path\n${content.length}\n".toByteArray(Charsets.UTF_8))
+                digest.update(content.toByteArray(Charsets.UTF_8))
+            }
+            return digest.digest().toHexString()
+        }
+
+        private fun md5(text: String): String = md5(text.toByteArray(Charsets.UTF_8))
+
+        private fun md5(bytes: ByteArray): String = MessageDigest.getInstance("MD5").digest(bytes).toHexString()
+
+        private fun ByteArray.toHexString(): String = joinToString("") { String.format("%02x", it) }
+    }
+}
@@ -26,17 +26,16 @@ import com.intellij.util.SmartList;
 import com.intellij.util.containers.ContainerUtil;
 import kotlin.Unit;
 import kotlin.jvm.functions.Function1;
+import kotlin.jvm.functions.Function2;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.analyzer.AnalysisResult;
-import org.jetbrains.kotlin.backend.common.output.OutputFileCollection;
 import org.jetbrains.kotlin.cli.common.CLICompiler;
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys;
 import org.jetbrains.kotlin.cli.common.ExitCode;
 import org.jetbrains.kotlin.cli.common.arguments.K2JSCompilerArguments;
 import org.jetbrains.kotlin.cli.common.arguments.K2JsArgumentConstants;
 import org.jetbrains.kotlin.cli.common.messages.*;
-import org.jetbrains.kotlin.cli.common.output.outputUtils.OutputUtilsKt;
 import org.jetbrains.kotlin.cli.jvm.compiler.CompilerJarLocator;
 import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles;
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment;
@@ -57,6 +56,9 @@ import org.jetbrains.kotlin.psi.KtFile;
 import org.jetbrains.kotlin.utils.PathUtil;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.jetbrains.kotlin.cli.common.ExitCode.COMPILATION_ERROR;
@@ -140,6 +142,20 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
             return COMPILATION_ERROR;
         }
 
+        File incrementalCacheFile = arguments.incrementalCache != null ? new File(arguments.incrementalCache) : null;
+        JsBuildFingerprint fingerprint = null;
+        if (incrementalCacheFile != null) {
+            JsBuildFingerprint previousFingerprint = JsBuildFingerprint.load(incrementalCacheFile);
+            fingerprint = JsBuildFingerprint.compute(
+                    sourcesFiles, ((LibrarySourcesConfig) config).getLibraries(), arguments, previousFingerprint);
+            if (fingerprint.isUpToDate(previousFingerprint)) {
+                messageSeverityCollector.report(CompilerMessageSeverity.LOGGING,
+                                                "Sources, libraries and options are unchanged, compilation is skipped",
+                                                CompilerMessageLocation.NO_LOCATION);
+                return OK;
+            }
+        }
+
         AnalyzerWithCompilerReport analyzerWithCompilerReport = analyzeAndReportErrors(messageSeverityCollector, sourcesFiles, config);
         if (analyzerWithCompilerReport.hasErrors()) {
             return COMPILATION_ERROR;
@@ -191,7 +207,6 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         if (!(translationResult instanceof TranslationResult.Success)) return ExitCode.COMPILATION_ERROR;
 
         TranslationResult.Success successResult = (TranslationResult.Success) translationResult;
-        OutputFileCollection outputFiles = successResult.getOutputFiles(outputFile, outputPrefixFile, outputPostfixFile);
 
         if (outputFile.isDirectory()) {
             messageSeverityCollector.report(CompilerMessageSeverity.ERROR,
@@ -200,14 +215,29 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
             return ExitCode.COMPILATION_ERROR;
         }
 
-        File outputDir = outputFile.getParentFile();
-        if (outputDir == null) {
-            outputDir = outputFile.getAbsoluteFile().getParentFile();
-        }
-
         ProgressIndicatorAndCompilationCanceledStatus.checkCanceled();
 
-        OutputUtilsKt.writeAll(outputFiles, outputDir, messageSeverityCollector);
+        final List<File> writtenFiles = new ArrayList<File>();
+        successResult.writeOutputFiles(outputFile, outputPrefixFile, outputPostfixFile, new Function2<List<? extends File>, File, Unit>() {
+            @Override
+            public Unit invoke(List<? extends File> sources, File output) {
+                messageSeverityCollector.report(CompilerMessageSeverity.OUTPUT, OutputMessageUtil.formatOutputMessage(
+                        Collections.<File>unmodifiableList(sources), output), CompilerMessageLocation.NO_LOCATION);
+                writtenFiles.add(output);
+                return Unit.INSTANCE;
+            }
+        });
+
+        if (fingerprint != null) {
+            try {
+                fingerprint.withOutputs(writtenFiles).save(incrementalCacheFile);
+            }
+            catch (IOException e) {
+                messageSeverityCollector.report(CompilerMessageSeverity.WARNING,
+                                                "Cannot write incremental cache file '" + incrementalCacheFile.getPath() + "': " + e.getMessage(),
+                                                CompilerMessageLocation.NO_LOCATION);
+            }
+        }
 
         return OK;
     }
@@ -269,9 +299,20 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
                 .inlineEnabled(inlineEnabled)
                 .metaInfo(arguments.metaInfo)
                 .kjsm(arguments.kjsm)
+                .translationThreads(parseThreads(arguments.translationThreads))
                 .build();
     }
 
+    private static int parseThreads(@Nullable String value) {
+        if (value == null) return 1;
+        try {
+            return Math.max(Integer.parseInt(value), 1);
+        }
+        catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
     public static MainCallParameters createMainCallParameters(String main) {
         if (K2JsArgumentConstants.NO_CALL.equals(main)) {
             return MainCallParameters.noCall();
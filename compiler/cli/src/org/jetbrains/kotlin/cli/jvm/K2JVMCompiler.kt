@@ -20,16 +20,19 @@ import com.google.common.base.Predicates.`in`
 import com.intellij.openapi.Disposable
 import org.jetbrains.kotlin.cli.common.CLICompiler
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys
+import org.jetbrains.kotlin.cli.common.CompilationPhaseListener
 import org.jetbrains.kotlin.cli.common.ExitCode
 import org.jetbrains.kotlin.cli.common.ExitCode.*
 import org.jetbrains.kotlin.cli.common.arguments.K2JVMCompilerArguments
 import org.jetbrains.kotlin.cli.common.messages.*
+import org.jetbrains.kotlin.cli.common.reportPerf
 import org.jetbrains.kotlin.cli.jvm.compiler.*
 import org.jetbrains.kotlin.cli.jvm.config.JVMConfigurationKeys
 import org.jetbrains.kotlin.cli.jvm.config.addJavaSourceRoot
 import org.jetbrains.kotlin.cli.jvm.config.addJvmClasspathRoots
 import org.jetbrains.kotlin.cli.jvm.repl.ReplFromTerminal
 import org.jetbrains.kotlin.codegen.CompilationException
+import org.jetbrains.kotlin.codegen.inline.LibraryInlineMethodNodes
 import org.jetbrains.kotlin.compiler.plugin.CliOptionProcessingException
 import org.jetbrains.kotlin.compiler.plugin.PluginCliOptionProcessingException
 import org.jetbrains.kotlin.compiler.plugin.cliPluginUsageString
@@ -68,6 +71,9 @@ open class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
 
         val locator = services.get(CompilerJarLocator::class.java)
         configuration.put(JVMConfigurationKeys.COMPILER_JAR_LOCATOR, locator)
+        configuration.put(JVMConfigurationKeys.JAR_PACKAGES_SNAPSHOT, services.get(JarPackagesSnapshot::class.java))
+        configuration.put(JVMConfigurationKeys.LIBRARY_INLINE_METHOD_NODES, services.get(LibraryInlineMethodNodes::class.java))
+        configuration.put(CLIConfigurationKeys.COMPILATION_PHASE_LISTENER, services.get(CompilationPhaseListener::class.java))
 
         try {
             if (!arguments.noJdk) {
@@ -199,7 +205,7 @@ open class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
             if (arguments.reportPerf) {
                 reportGCTime(environment.configuration)
                 reportCompilationTime(environment.configuration)
-                PerformanceCounter.report { s -> reportPerf(environment.configuration, s) }
+                PerformanceCounter.report { s -> environment.configuration.reportPerf(s) }
             }
             return OK
         }
@@ -215,7 +221,7 @@ open class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
 
         if (initStartNanos != 0L) {
             val initNanos = System.nanoTime() - initStartNanos
-            reportPerf(configuration, "INIT: Compiler initialized in " + TimeUnit.NANOSECONDS.toMillis(initNanos) + " ms")
+            configuration.reportPerf("INIT: Compiler initialized in " + TimeUnit.NANOSECONDS.toMillis(initNanos) + " ms")
             initStartNanos = 0L
         }
         return result
@@ -248,21 +254,12 @@ open class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
             CLICompiler.doMain(K2JVMCompiler(), args)
         }
 
-        fun reportPerf(configuration: CompilerConfiguration, message: String) {
-            if (!configuration.get(CLIConfigurationKeys.REPORT_PERF, false)) {
-                return
-            }
-
-            val collector = configuration[CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY]!!
-            collector.report(CompilerMessageSeverity.INFO, "PERF: " + message, CompilerMessageLocation.NO_LOCATION)
-        }
-
         fun reportGCTime(configuration: CompilerConfiguration) {
             ManagementFactory.getGarbageCollectorMXBeans().forEach {
                 val currentTime = it.collectionTime
                 val elapsedTime = elapsedGCTime.getOrElse(it.name) { 0 }
                 val time = currentTime - elapsedTime
-                reportPerf(configuration, "GC time for ${it.name} is $time ms")
+                configuration.reportPerf("GC time for ${it.name} is $time ms")
                 elapsedGCTime[it.name] = currentTime
             }
         }
@@ -270,7 +267,7 @@ open class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
         fun reportCompilationTime(configuration: CompilerConfiguration) {
             val bean = ManagementFactory.getCompilationMXBean() ?: return
             val currentTime = bean.totalCompilationTime
-            reportPerf(configuration, "JIT time is ${currentTime - elapsedJITTime} ms")
+            configuration.reportPerf("JIT time is ${currentTime - elapsedJITTime} ms")
             elapsedJITTime = currentTime
         }
 
@@ -282,6 +279,18 @@ open class K2JVMCompiler : CLICompiler<K2JVMCompilerArguments>() {
             configuration.put(JVMConfigurationKeys.MULTIFILE_FACADES_OPEN, arguments.multifileFacadesOpen);
             configuration.put(CLIConfigurationKeys.ALLOW_KOTLIN_PACKAGE, arguments.allowKotlinPackage);
             configuration.put(CLIConfigurationKeys.REPORT_PERF, arguments.reportPerf);
+            configuration.put(JVMConfigurationKeys.BACKEND_THREADS, parseThreads(arguments.backendThreads))
+            configuration.put(JVMConfigurationKeys.PARSER_THREADS, parseThreads(arguments.parserThreads))
+        }
+
+        private fun parseThreads(value: String?): Int {
+            if (value == null) return 1
+            try {
+                return Math.max(value.toInt(), 1)
+            }
+            catch (e: NumberFormatException) {
+                return 1
+            }
         }
 
         private fun getClasspath(paths: KotlinPaths, arguments: K2JVMCompilerArguments): List<File> {
@@ -74,25 +74,53 @@ public class CompileEnvironmentUtil {
         return ModuleScriptData.EMPTY;
     }
 
-    // TODO: includeRuntime should be not a flag but a path to runtime
-    private static void doWriteToJar(OutputFileCollection outputFiles, OutputStream fos, @Nullable FqName mainClass, boolean includeRuntime) {
+    /**
+     * Creates a jar with the manifest; output files can then be written to it with {@link #writeToJar(JarOutputStream, OutputFileCollection)}
+     * as soon as they are generated, and the jar should be completed with {@link #finishJar(JarOutputStream, boolean)}.
+     */
+    @NotNull
+    public static JarOutputStream openJar(@NotNull File jarPath, @Nullable FqName mainClass) {
+        Manifest manifest = new Manifest();
+        Attributes mainAttributes = manifest.getMainAttributes();
+        mainAttributes.putValue("Manifest-Version", "1.0");
+        mainAttributes.putValue("Created-By", "JetBrains Kotlin");
+        if (mainClass != null) {
+            mainAttributes.putValue("Main-Class", mainClass.asString());
+        }
+
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(jarPath);
+            return new JarOutputStream(new BufferedOutputStream(outputStream), manifest);
+        }
+        catch (FileNotFoundException e) {
+            throw new CompileEnvironmentException("Invalid jar path " + jarPath, e);
+        }
+        catch (IOException e) {
+            ExceptionUtilsKt.closeQuietly(outputStream);
+            throw new CompileEnvironmentException("Failed to generate jar file", e);
+        }
+    }
+
+    public static void writeToJar(@NotNull JarOutputStream stream, @NotNull OutputFileCollection outputFiles) {
         try {
-            Manifest manifest = new Manifest();
-            Attributes mainAttributes = manifest.getMainAttributes();
-            mainAttributes.putValue("Manifest-Version", "1.0");
-            mainAttributes.putValue("Created-By", "JetBrains Kotlin");
-            if (mainClass != null) {
-                mainAttributes.putValue("Main-Class", mainClass.asString());
-            }
-            JarOutputStream stream = new JarOutputStream(fos, manifest);
             for (OutputFile outputFile : outputFiles.asList()) {
                 stream.putNextEntry(new JarEntry(outputFile.getRelativePath()));
                 stream.write(outputFile.asByteArray());
             }
+        }
+        catch (IOException e) {
+            throw new CompileEnvironmentException("Failed to generate jar file", e);
+        }
+    }
+
+    // TODO: includeRuntime should be not a flag but a path to runtime
+    public static void finishJar(@NotNull JarOutputStream stream, boolean includeRuntime) {
+        try {
             if (includeRuntime) {
                 writeRuntimeToJar(stream);
             }
-            stream.finish();
+            stream.close();
         }
         catch (IOException e) {
             throw new CompileEnvironmentException("Failed to generate jar file", e);
@@ -100,20 +128,13 @@ public class CompileEnvironmentUtil {
     }
 
     public static void writeToJar(File jarPath, boolean jarRuntime, FqName mainClass, OutputFileCollection outputFiles) {
-        FileOutputStream outputStream = null;
+        JarOutputStream stream = openJar(jarPath, mainClass);
         try {
-            outputStream = new FileOutputStream(jarPath);
-            doWriteToJar(outputFiles, outputStream, mainClass, jarRuntime);
-            outputStream.close();
-        }
-        catch (FileNotFoundException e) {
-            throw new CompileEnvironmentException("Invalid jar path " + jarPath, e);
-        }
-        catch (IOException e) {
-            throw ExceptionUtilsKt.rethrow(e);
+            writeToJar(stream, outputFiles);
+            finishJar(stream, jarRuntime);
         }
         finally {
-            ExceptionUtilsKt.closeQuietly(outputStream);
+            ExceptionUtilsKt.closeQuietly(stream);
         }
     }
 
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm.compiler
+
+import com.intellij.openapi.util.io.FileUtil
+import java.io.*
+import java.util.concurrent.ConcurrentHashMap
+
+// Remembers which packages are contained in classpath jars, so that JvmDependenciesIndex doesn't need to walk jar directories
+// to find out which roots contain a package.
+// Entries are kept in memory (so one instance can be shared between compilations, e.g. in the daemon) and, if storageDir is given,
+// also on disk, one file per jar. Each entry is keyed by the jar's path, size and modification time, so changed jars are rescanned.
+// Thread-safe.
+class JarPackagesSnapshot(private val storageDir: File? = null) {
+    private data class JarKey(val path: String, val length: Long, val lastModified: Long)
+
+    private class Entry(val key: JarKey, val packages: Set<String>)
+
+    private val entries = ConcurrentHashMap<String, Entry>()
+
+    // packages are represented as relative paths inside the jar: "" for the default package, "org/jetbrains/kotlin" etc.
+    fun getOrCompute(jar: File, computePackages: () -> Set<String>): Set<String> {
+        val key = JarKey(jar.absolutePath, jar.length(), jar.lastModified())
+
+        entries[key.path]?.let { if (it.key == key) return it.packages }
+
+        val packages = load(key) ?: computePackages().apply { save(key, this) }
+        entries.put(key.path, Entry(key, packages))
+        return packages
+    }
+
+    fun clear() {
+        entries.clear()
+    }
+
+    private fun storageFile(key: JarKey): File? =
+            storageDir?.let { File(it, "${FileUtil.sanitizeFileName(File(key.path).name)}-${Integer.toHexString(key.path.hashCode())}.packages") }
+
+    private fun load(key: JarKey): Set<String>? {
+        val file = storageFile(key) ?: return null
+        if (!file.exists()) return null
+
+        try {
+            DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                if (input.readInt() != VERSION) return null
+                if (JarKey(input.readUTF(), input.readLong(), input.readLong()) != key) return null
+
+                val size = input.readInt()
+                val packages = LinkedHashSet<String>(size)
+                var previous = ""
+                for (i in 0..size - 1) {
+                    // package names are sorted and stored as the length of the common prefix with the previous one plus the rest
+                    val commonPrefixLength = input.readShort().toInt()
+                    val current = previous.substring(0, commonPrefixLength) + input.readUTF()
+                    packages.add(current)
+                    previous = current
+                }
+                return packages
+            }
+        }
+        catch (e: IOException) {
+            return null
+        }
+    }
+
+    private fun save(key: JarKey, packages: Set<String>) {
+        val file = storageFile(key) ?: return
+
+        try {
+            file.parentFile.mkdirs()
+            val tempFile = File.createTempFile(file.name, ".tmp", file.parentFile)
+            DataOutputStream(BufferedOutputStream(FileOutputStream(tempFile))).use { output ->
+                output.writeInt(VERSION)
+                output.writeUTF(key.path)
+                output.writeLong(key.length)
+                output.writeLong(key.lastModified)
+
+                output.writeInt(packages.size)
+                var previous = ""
+                for (current in packages.sorted()) {
+                    val commonPrefixLength = previous.commonPrefixWith(current).length
+                    output.writeShort(commonPrefixLength)
+                    output.writeUTF(current.substring(commonPrefixLength))
+                    previous = current
+                }
+            }
+            // several compilations may write the same snapshot concurrently, the last one wins
+            FileUtil.rename(tempFile, file)
+        }
+        catch (e: IOException) {
+            // snapshot is only an optimization, the packages will be recomputed next time
+        }
+    }
+
+    companion object {
+        private val VERSION = 1
+    }
+}
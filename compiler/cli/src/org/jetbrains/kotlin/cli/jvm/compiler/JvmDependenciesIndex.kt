@@ -16,11 +16,15 @@
 
 package org.jetbrains.kotlin.cli.jvm.compiler
 
+import com.intellij.openapi.vfs.StandardFileSystems
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.util.containers.IntArrayList
+import com.intellij.util.io.URLUtil
 import org.jetbrains.kotlin.name.ClassId
 import org.jetbrains.kotlin.name.FqName
+import java.io.File
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 
 data class JavaRoot(val file: VirtualFile, val type: JavaRoot.RootType, val prefixFqName: FqName? = null) {
     enum class RootType {
@@ -35,9 +39,10 @@ data class JavaRoot(val file: VirtualFile, val type: JavaRoot.RootType, val pref
 }
 
 // speeds up finding files/classes in classpath/java source roots
-// NOT THREADSAFE, needs to be adapted/removed if we want compiler to be multithreaded
 // the main idea of this class is for each package to store roots which contains it to avoid excessive file system traversal
-class JvmDependenciesIndex(_roots: List<JavaRoot>) {
+// thread-safe: package information is computed once per package under a lock, searches themselves don't take any locks
+// if packagesSnapshot is given, packages contained in binary jar roots are taken from it instead of walking jar directories
+class JvmDependenciesIndex(_roots: List<JavaRoot>, private val packagesSnapshot: JarPackagesSnapshot? = null) {
 
     //these fields are computed based on _roots passed to constructor which are filled in later
     private val roots: List<JavaRoot> by lazy { _roots.toList() }
@@ -47,33 +52,33 @@ class JvmDependenciesIndex(_roots: List<JavaRoot>) {
 
     // each "Cache" object corresponds to a package
     private class Cache {
-        private val innerPackageCaches = HashMap<String, Cache>()
+        private val innerPackageCaches = ConcurrentHashMap<String, Cache>()
 
         operator fun get(name: String) = innerPackageCaches.getOrPut(name) { Cache() }
 
-        // indices of roots that are known to contain this package
-        // if this list contains [1, 3, 5] then roots with indices 1, 3 and 5 are known to contain this package, 2 and 4 are known not to (no information about roots 6 or higher)
-        // if this list contains maxIndex that means that all roots containing this package are known
-        val rootIndices = IntArrayList()
+        // indices of all roots that contain this package in increasing order, null if not computed yet
+        // written once under the lock on this object
+        @Volatile var rootIndices: IntArray? = null
     }
 
     // root "Cache" object corresponds to DefaultPackage which exists in every root. Roots with non-default fqname are also listed here but
     // they will be ignored on requests with invalid fqname prefix.
     private val rootCache: Cache by lazy {
         with(Cache()) {
-            roots.indices.forEach {
-                rootIndices.add(it)
-            }
-            rootIndices.add(maxIndex)
-            rootIndices.trimToSize()
+            rootIndices = IntArray(maxIndex) { it }
             this
         }
     }
 
+    // packages contained in binary jar roots, as relative paths ("org/jetbrains/kotlin"); null for other roots or if there's no snapshot
+    private val packagesInRoots: List<Lazy<Set<String>?>> by lazy {
+        roots.map { root -> lazy { computePackagesInRoot(root) } }
+    }
+
     // holds the request and the result last time we searched for class
     // helps improve several scenarios, LazyJavaResolverContext.findClassInJava being the most important
-    private var lastClassSearch: Pair<FindClassRequest, SearchResult>? = null
-
+    // may be overwritten concurrently, which only affects the efficiency of the cache
+    @Volatile private var lastClassSearch: Pair<FindClassRequest, SearchResult>? = null
 
     // findClassGivenDirectory MUST check whether the class with this classId exists in given package
     fun <T : Any> findClass(
@@ -188,49 +193,63 @@ class JvmDependenciesIndex(_roots: List<JavaRoot>) {
         // a list of caches corresponding to packages, [default, "org", "org.jb", "org.jb.kotlin"]
         val caches = cachesPath(packagesPath)
 
-        var processedRootsUpTo = -1
-        // traverse caches starting from last, which contains most specific information
-
-        // NOTE: indices manipulation instead of using caches.indices.reversed() is here for performance reasons
-        val cachesLastIndex = caches.lastIndex
-        for (cacheIndex in 0..cachesLastIndex) {
-            val reverseCacheIndex = cachesLastIndex - cacheIndex
-            val cache = caches[reverseCacheIndex]
-            for (i in 0..cache.rootIndices.size() - 1) {
-                val rootIndex = cache.rootIndices[i]
-                if (rootIndex <= processedRootsUpTo) continue // roots with those indices have been processed by now
-
-                val directoryInRoot = travelPath(rootIndex, packagesPath, reverseCacheIndex, caches) ?: continue
-                val root = roots[rootIndex]
-                val result = handle(root, directoryInRoot)
-                if (result != null) {
-                    return found(directoryInRoot, root, result)
-                }
+        for (rootIndex in computeRootIndices(packagesPath, caches)) {
+            val root = roots[rootIndex]
+            if (root.type !in request.acceptedRootTypes) continue
+
+            val directoryInRoot = travelPath(rootIndex, packagesPath, packagesPath.size) ?: continue
+            val result = handle(root, directoryInRoot)
+            if (result != null) {
+                return found(directoryInRoot, root, result)
             }
-            processedRootsUpTo = cache.rootIndices.lastOrNull() ?: processedRootsUpTo
         }
-        
+
         return notFound()
     }
 
-    // try to find a target directory corresponding to package represented by packagesPath in a given root reprenting by index
-    // possibly filling "Cache" objects with new information
-    private fun travelPath(rootIndex: Int, packagesPath: List<String>, fillCachesAfter: Int, cachesPath: List<Cache>): VirtualFile? {
-        if (rootIndex >= maxIndex) {
-            for (i in (fillCachesAfter + 1)..(cachesPath.size - 1)) {
-                // we all know roots that contain this package by now
-                cachesPath[i].rootIndices.add(maxIndex)
-                cachesPath[i].rootIndices.trimToSize()
+    // returns indices of roots that contain package represented by packagesPath, computing them for the package and its parents if needed
+    private fun computeRootIndices(packagesPath: List<String>, cachesPath: List<Cache>): IntArray {
+        var firstNotComputed = cachesPath.size
+        while (cachesPath[firstNotComputed - 1].rootIndices == null) {
+            firstNotComputed--
+        }
+
+        for (cacheIndex in firstNotComputed..cachesPath.lastIndex) {
+            val cache = cachesPath[cacheIndex]
+            synchronized(cache) {
+                if (cache.rootIndices == null) {
+                    val parentRootIndices = cachesPath[cacheIndex - 1].rootIndices!!
+                    val rootIndices = IntArrayList(parentRootIndices.size)
+                    for (rootIndex in parentRootIndices) {
+                        if (containsPackage(rootIndex, packagesPath, cacheIndex)) {
+                            rootIndices.add(rootIndex)
+                        }
+                    }
+                    cache.rootIndices = rootIndices.toArray()
+                }
             }
-            return null
         }
 
+        return cachesPath.last().rootIndices!!
+    }
+
+    // checks whether the root with given index contains package represented by first pathLength elements of packagesPath
+    private fun containsPackage(rootIndex: Int, packagesPath: List<String>, pathLength: Int): Boolean {
+        val packagesInRoot = packagesInRoots[rootIndex].value
+        if (packagesInRoot != null) {
+            return packagesPath.subList(0, pathLength).joinToString("/") in packagesInRoot
+        }
+        return travelPath(rootIndex, packagesPath, pathLength) != null
+    }
+
+    // try to find a target directory corresponding to package represented by first pathLength elements of packagesPath in a given root
+    private fun travelPath(rootIndex: Int, packagesPath: List<String>, pathLength: Int): VirtualFile? {
         val pathRoot = roots[rootIndex]
         val prefixPathSegments = pathRoot.prefixFqName?.pathSegments()
 
         var currentFile = pathRoot.file
 
-        for (pathIndex in packagesPath.indices) {
+        for (pathIndex in 0..pathLength - 1) {
             val subPackageName = packagesPath[pathIndex]
             if (prefixPathSegments != null && pathIndex < prefixPathSegments.size) {
                 // Traverse prefix first instead of traversing real directories
@@ -241,17 +260,33 @@ class JvmDependenciesIndex(_roots: List<JavaRoot>) {
             else {
                 currentFile = currentFile.findChild(subPackageName) ?: return null
             }
-
-            val correspondingCacheIndex = pathIndex + 1
-            if (correspondingCacheIndex > fillCachesAfter) {
-                // subPackageName exists in this root
-                cachesPath[correspondingCacheIndex].rootIndices.add(rootIndex)
-            }
         }
 
         return currentFile
     }
 
+    private fun computePackagesInRoot(root: JavaRoot): Set<String>? {
+        if (packagesSnapshot == null || root.type != JavaRoot.RootType.BINARY || root.prefixFqName != null) return null
+        if (root.file.fileSystem.protocol != StandardFileSystems.JAR_PROTOCOL) return null
+
+        val jarFile = File(root.file.path.substringBefore(URLUtil.JAR_SEPARATOR))
+        if (!jarFile.isFile) return null
+
+        return packagesSnapshot.getOrCompute(jarFile) {
+            val packages = hashSetOf<String>()
+            fun collectPackages(directory: VirtualFile, path: String) {
+                packages.add(path)
+                for (child in directory.children) {
+                    if (child.isDirectory) {
+                        collectPackages(child, if (path.isEmpty()) child.name else path + "/" + child.name)
+                    }
+                }
+            }
+            collectPackages(root.file, "")
+            packages
+        }
+    }
+
     private fun cachesPath(path: List<String>): List<Cache> {
         val caches = ArrayList<Cache>()
         caches.add(rootCache)
@@ -284,6 +319,3 @@ class JvmDependenciesIndex(_roots: List<JavaRoot>) {
         object NotFound : SearchResult
     }
 }
-
-private fun IntArrayList.lastOrNull() = if (isEmpty) null else get(size() - 1)
-private val IntArrayList.indices: IntRange get() = 0..(size() - 1)
\ No newline at end of file
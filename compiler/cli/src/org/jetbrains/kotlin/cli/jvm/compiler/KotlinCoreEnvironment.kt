@@ -58,11 +58,14 @@ import org.jetbrains.kotlin.asJava.KtLightClassForFacade
 import org.jetbrains.kotlin.asJava.LightClassGenerationSupport
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys
 import org.jetbrains.kotlin.cli.common.CliModuleVisibilityManagerImpl
+import org.jetbrains.kotlin.cli.common.CompilationPhase
 import org.jetbrains.kotlin.cli.common.KOTLIN_COMPILER_ENVIRONMENT_KEEPALIVE_PROPERTY
+import org.jetbrains.kotlin.cli.common.measurePhase
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageLocation
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity.ERROR
 import org.jetbrains.kotlin.cli.common.messages.CompilerMessageSeverity.WARNING
+import org.jetbrains.kotlin.cli.common.reportPerf
 import org.jetbrains.kotlin.cli.common.toBooleanLenient
 import org.jetbrains.kotlin.cli.jvm.config.JVMConfigurationKeys
 import org.jetbrains.kotlin.cli.jvm.config.JavaSourceRoot
@@ -94,6 +97,10 @@ import org.jetbrains.kotlin.script.KotlinScriptDefinitionProvider
 import org.jetbrains.kotlin.utils.PathUtil
 import java.io.File
 import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
 
 class KotlinCoreEnvironment private constructor(
         parentDisposable: Disposable, 
@@ -128,13 +135,22 @@ class KotlinCoreEnvironment private constructor(
 
         fillClasspath(configuration)
         val fileManager = ServiceManager.getService(project, CoreJavaFileManager::class.java)
-        val index = JvmDependenciesIndex(javaRoots)
+        val index = JvmDependenciesIndex(javaRoots, configuration.get(JVMConfigurationKeys.JAR_PACKAGES_SNAPSHOT))
         (fileManager as KotlinCliJavaFileManagerImpl).initIndex(index)
 
-        sourceFiles.addAll(CompileEnvironmentUtil.getKtFiles(project, getSourceRootsCheckingForDuplicates(), this.configuration, {
-            message ->
-            report(ERROR, message)
-        }))
+        val parseStart = System.nanoTime()
+        sourceFiles.addAll(configuration.measurePhase(CompilationPhase.PARSE) {
+            CompileEnvironmentUtil.getKtFiles(project, getSourceRootsCheckingForDuplicates(), this.configuration, {
+                message ->
+                report(ERROR, message)
+            }).apply {
+                parseSourceFiles(this, configuration.get(JVMConfigurationKeys.PARSER_THREADS, 1))
+            }
+        })
+        if (configuration.get(CLIConfigurationKeys.REPORT_PERF, false)) {
+            val time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - parseStart)
+            configuration.reportPerf("PARSE: ${sourceFiles.size} files (${countLinesOfCode(sourceFiles)} lines) in $time ms")
+        }
         sourceFiles.sortedWith(object : Comparator<KtFile> {
             override fun compare(o1: KtFile, o2: KtFile): Int {
                 return o1.virtualFile.path.compareTo(o2.virtualFile.path, ignoreCase = true)
@@ -168,6 +184,35 @@ class KotlinCoreEnvironment private constructor(
 
     val sourceLinesOfCode: Int by lazy { countLinesOfCode(sourceFiles) }
 
+    // Builds PSI of all source files before the analysis, which would otherwise parse them lazily on its thread, one by one
+    private fun parseSourceFiles(files: List<KtFile>, threads: Int) {
+        if (threads <= 1 || files.size <= 1) {
+            files.forEach { parseSourceFile(it) }
+            return
+        }
+
+        // Fork-join pool is not used here because the compiler should be able to run on JDK 1.6
+        val executor = Executors.newFixedThreadPool(Math.min(threads, files.size))
+        try {
+            for (future in executor.invokeAll(files.map { file -> Callable { parseSourceFile(file) } })) {
+                try {
+                    future.get()
+                }
+                catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun parseSourceFile(file: KtFile) {
+        // the file element is parsed lazily on the first access to its children
+        file.node.lastChildNode
+    }
+
     fun countLinesOfCode(sourceFiles: List<KtFile>): Int  =
             sourceFiles.sumBy {
                 val text = it.text
@@ -22,11 +22,13 @@ import org.jetbrains.kotlin.asJava.FilteredJvmDiagnostics
 import org.jetbrains.kotlin.backend.common.output.OutputFileCollection
 import org.jetbrains.kotlin.backend.common.output.SimpleOutputFileCollection
 import org.jetbrains.kotlin.cli.common.CLIConfigurationKeys
+import org.jetbrains.kotlin.cli.common.CompilationPhase
 import org.jetbrains.kotlin.cli.common.CompilerPluginContext
 import org.jetbrains.kotlin.cli.common.ExitCode
+import org.jetbrains.kotlin.cli.common.measurePhase
 import org.jetbrains.kotlin.cli.common.messages.*
 import org.jetbrains.kotlin.cli.common.output.outputUtils.writeAll
-import org.jetbrains.kotlin.cli.jvm.K2JVMCompiler
+import org.jetbrains.kotlin.cli.common.reportPerf
 import org.jetbrains.kotlin.cli.jvm.config.*
 import org.jetbrains.kotlin.codegen.*
 import org.jetbrains.kotlin.codegen.state.GenerationState
@@ -43,17 +45,20 @@ import org.jetbrains.kotlin.name.Name
 import org.jetbrains.kotlin.name.isSubpackageOf
 import org.jetbrains.kotlin.progress.ProgressIndicatorAndCompilationCanceledStatus
 import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.resolve.BindingContext
 import org.jetbrains.kotlin.resolve.jvm.JvmClassName
 import org.jetbrains.kotlin.resolve.jvm.TopDownAnalyzerFacadeForJVM
 import org.jetbrains.kotlin.util.PerformanceCounter
 import org.jetbrains.kotlin.utils.KotlinPaths
 import org.jetbrains.kotlin.utils.PathUtil
+import org.jetbrains.kotlin.utils.closeQuietly
 import java.io.File
 import java.lang.reflect.Constructor
 import java.lang.reflect.InvocationTargetException
 import java.net.URLClassLoader
 import java.util.*
 import java.util.concurrent.TimeUnit
+import java.util.jar.JarOutputStream
 import java.util.jar.Attributes
 
 object KotlinToJVMBytecodeCompiler {
@@ -74,7 +79,7 @@ object KotlinToJVMBytecodeCompiler {
             outputDir: File?,
             jarPath: File?,
             jarRuntime: Boolean,
-            mainClass: FqName?) {
+            mainClass: FqName?) = configuration.measurePhase(CompilationPhase.WRITE) {
         if (jarPath != null) {
             CompileEnvironmentUtil.writeToJar(jarPath, jarRuntime, mainClass, outputFiles)
         }
@@ -84,17 +89,31 @@ object KotlinToJVMBytecodeCompiler {
         }
     }
 
+    private fun writeOutputToJar(configuration: CompilerConfiguration, outputFiles: OutputFileCollection, jarStream: JarOutputStream) =
+            configuration.measurePhase(CompilationPhase.WRITE) {
+                CompileEnvironmentUtil.writeToJar(jarStream, outputFiles)
+            }
+
+    // Writes classes of every source file as soon as they are generated, so that they don't stay in memory until the end of code generation
     private fun createOutputFilesFlushingCallbackIfPossible(
             configuration: CompilerConfiguration,
             outputDir: File?,
-            jarPath: File?
+            jarStream: JarOutputStream?
     ): GenerationStateEventCallback {
-        if (jarPath != null) return GenerationStateEventCallback.DO_NOTHING
+        // files are generated in parallel in an arbitrary order, but entries of a jar should be written in a fixed order
+        if (jarStream != null && configuration.get(JVMConfigurationKeys.BACKEND_THREADS, 1) > 1) return GenerationStateEventCallback.DO_NOTHING
 
+        val lock = Any()
         return GenerationStateEventCallback { state ->
-            val currentOutput = SimpleOutputFileCollection(state.factory.currentOutput)
-            writeOutput(configuration, currentOutput, outputDir, jarPath = null, jarRuntime = false, mainClass = null)
-            state.factory.releaseGeneratedOutput()
+            val currentOutput = SimpleOutputFileCollection(state.factory.releaseCurrentPartOutput())
+            synchronized(lock) {
+                if (jarStream != null) {
+                    writeOutputToJar(configuration, currentOutput, jarStream)
+                }
+                else {
+                    writeOutput(configuration, currentOutput, outputDir, jarPath = null, jarRuntime = false, mainClass = null)
+                }
+            }
         }
     }
 
@@ -138,7 +157,8 @@ object KotlinToJVMBytecodeCompiler {
             val moduleOutputDirectory = File(module.getOutputDirectory())
 
             val onIndependentPartCompilationEnd =
-                    createOutputFilesFlushingCallbackIfPossible(configuration, File(module.getOutputDirectory()), jarPath)
+                    if (jarPath != null) GenerationStateEventCallback.DO_NOTHING
+                    else createOutputFilesFlushingCallbackIfPossible(configuration, File(module.getOutputDirectory()), jarStream = null)
 
             val generationState = generate(environment, result, ktFiles, module, moduleOutputDirectory,
                                            module.getModuleName(),  onIndependentPartCompilationEnd)
@@ -188,8 +208,8 @@ object KotlinToJVMBytecodeCompiler {
         return configuration
     }
 
-    private fun findMainClass(generationState: GenerationState, files: List<KtFile>): FqName? {
-        val mainFunctionDetector = MainFunctionDetector(generationState.bindingContext)
+    private fun findMainClass(bindingContext: BindingContext, files: List<KtFile>): FqName? {
+        val mainFunctionDetector = MainFunctionDetector(bindingContext)
         return files.asSequence()
                 .map { file ->
                     if (mainFunctionDetector.hasMain(file.declarations))
@@ -215,17 +235,38 @@ object KotlinToJVMBytecodeCompiler {
 
         if (!checkKotlinPackageUsage(environment, environment.getSourceFiles())) return false
 
-        val onIndependentPartCompilationEnd = createOutputFilesFlushingCallbackIfPossible(environment.configuration, outputDir, jar)
-        val generationState = analyzeAndGenerate(environment, onIndependentPartCompilationEnd) ?: return false
-
-        val mainClass = findMainClass(generationState, environment.getSourceFiles())
+        val result = analyze(environment, null) ?: return false
+        if (!result.shouldGenerateCode) return false
+        result.throwIfError()
 
+        // the jar is created before code generation, so that classes can be written to it right away;
+        // the main class is needed for the manifest, which is the first entry of the jar
+        val jarStream = jar?.let { CompileEnvironmentUtil.openJar(it, findMainClass(result.bindingContext, environment.getSourceFiles())) }
+        var jarFinished = false
         try {
-            writeOutput(environment.configuration, generationState.factory, outputDir, jar, includeRuntime, mainClass)
-            return true
+            val onIndependentPartCompilationEnd = createOutputFilesFlushingCallbackIfPossible(environment.configuration, outputDir, jarStream)
+            val generationState = generate(environment, result, environment.getSourceFiles(), null, null, null, onIndependentPartCompilationEnd)
+
+            try {
+                if (jarStream != null) {
+                    writeOutputToJar(environment.configuration, generationState.factory, jarStream)
+                    CompileEnvironmentUtil.finishJar(jarStream, includeRuntime)
+                    jarFinished = true
+                }
+                else {
+                    writeOutput(environment.configuration, generationState.factory, outputDir, jarPath = null, jarRuntime = false, mainClass = null)
+                }
+                return true
+            }
+            finally {
+                generationState.destroy()
+            }
         }
         finally {
-            generationState.destroy()
+            if (jarStream != null && !jarFinished) {
+                closeQuietly(jarStream)
+                jar?.delete()
+            }
         }
     }
 
@@ -330,6 +371,7 @@ object KotlinToJVMBytecodeCompiler {
         })
 
         val analysisNanos = PerformanceCounter.currentTime() - analysisStart
+        environment.configuration.get(CLIConfigurationKeys.COMPILATION_PHASE_LISTENER)?.phaseFinished(CompilationPhase.ANALYZE, analysisNanos)
 
         val sourceLinesOfCode = environment.sourceLinesOfCode
         val numberOfFiles = environment.getSourceFiles().size
@@ -339,7 +381,7 @@ object KotlinToJVMBytecodeCompiler {
         val message = "ANALYZE: $numberOfFiles files ($sourceLinesOfCode lines) ${targetDescription ?: ""}" +
                       "in $time ms - ${"%.3f".format(speed)} loc/s"
 
-        K2JVMCompiler.reportPerf(environment.configuration, message)
+        environment.configuration.reportPerf(message)
 
         val result = analyzerWithCompilerReport.analysisResult
 
@@ -399,7 +441,9 @@ object KotlinToJVMBytecodeCompiler {
                 outputDirectory,
                 incrementalCompilationComponents,
                 configuration.get(JVMConfigurationKeys.MULTIFILE_FACADES_OPEN, false),
-                onIndependentPartCompilationEnd = onIndependentPartCompilationEnd)
+                onIndependentPartCompilationEnd = onIndependentPartCompilationEnd,
+                codegenThreads = configuration.get(JVMConfigurationKeys.BACKEND_THREADS, 1),
+                libraryInlineMethodNodes = configuration.get(JVMConfigurationKeys.LIBRARY_INLINE_METHOD_NODES))
         ProgressIndicatorAndCompilationCanceledStatus.checkCanceled()
 
         val generationStart = PerformanceCounter.currentTime()
@@ -407,6 +451,7 @@ object KotlinToJVMBytecodeCompiler {
         KotlinCodegenFacade.compileCorrectFiles(generationState, CompilationErrorHandler.THROW_EXCEPTION)
 
         val generationNanos = PerformanceCounter.currentTime() - generationStart
+        configuration.get(CLIConfigurationKeys.COMPILATION_PHASE_LISTENER)?.phaseFinished(CompilationPhase.CODEGEN, generationNanos)
         val desc = if (module != null) "target " + module.getModuleName() + "-" + module.getModuleType() + " " else ""
         val numberOfSourceFiles = sourceFiles.size
         val numberOfLines = environment.countLinesOfCode(sourceFiles)
@@ -414,7 +459,10 @@ object KotlinToJVMBytecodeCompiler {
         val speed = numberOfLines.toFloat() * 1000 / time
         val message = "GENERATE: $numberOfSourceFiles files ($numberOfLines lines) ${desc}in $time ms - ${"%.3f".format(speed)} loc/s"
 
-        K2JVMCompiler.reportPerf(environment.configuration, message)
+        environment.configuration.reportPerf(message)
+        val inlineMethodNodeCache = generationState.inlineMethodNodeCache
+        environment.configuration.reportPerf(
+                "INLINE CACHE: ${inlineMethodNodeCache.hitCount} hits, ${inlineMethodNodeCache.missCount} misses")
         ProgressIndicatorAndCompilationCanceledStatus.checkCanceled()
 
         AnalyzerWithCompilerReport.reportDiagnostics(
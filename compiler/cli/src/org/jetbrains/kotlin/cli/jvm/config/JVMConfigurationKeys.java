@@ -17,6 +17,8 @@
 package org.jetbrains.kotlin.cli.jvm.config;
 
 import org.jetbrains.kotlin.cli.jvm.compiler.CompilerJarLocator;
+import org.jetbrains.kotlin.cli.jvm.compiler.JarPackagesSnapshot;
+import org.jetbrains.kotlin.codegen.inline.LibraryInlineMethodNodes;
 import org.jetbrains.kotlin.config.CompilerConfigurationKey;
 import org.jetbrains.kotlin.load.kotlin.incremental.components.IncrementalCompilationComponents;
 import org.jetbrains.kotlin.modules.Module;
@@ -37,6 +39,10 @@ public class JVMConfigurationKeys {
             CompilerConfigurationKey.create("disable optimization");
     public static final CompilerConfigurationKey<Boolean> MULTIFILE_FACADES_OPEN =
             CompilerConfigurationKey.create("compile multifile facade classes as open");
+    public static final CompilerConfigurationKey<Integer> BACKEND_THREADS =
+            CompilerConfigurationKey.create("number of threads used for bytecode generation");
+    public static final CompilerConfigurationKey<Integer> PARSER_THREADS =
+            CompilerConfigurationKey.create("number of threads used for parsing source files");
 
     public static final CompilerConfigurationKey<IncrementalCompilationComponents> INCREMENTAL_COMPILATION_COMPONENTS =
             CompilerConfigurationKey.create("incremental cache provider");
@@ -44,6 +50,12 @@ public class JVMConfigurationKeys {
     public static final CompilerConfigurationKey<CompilerJarLocator> COMPILER_JAR_LOCATOR =
             CompilerConfigurationKey.create("Compiler jar locator");
 
+    public static final CompilerConfigurationKey<JarPackagesSnapshot> JAR_PACKAGES_SNAPSHOT =
+            CompilerConfigurationKey.create("snapshot of packages in classpath jars");
+
+    public static final CompilerConfigurationKey<LibraryInlineMethodNodes> LIBRARY_INLINE_METHOD_NODES =
+            CompilerConfigurationKey.create("bodies of inline functions from library jars");
+
     public static final CompilerConfigurationKey<String> MODULE_XML_FILE_PATH = CompilerConfigurationKey.create("path to module.xml");
 
     public static final CompilerConfigurationKey<List<Module>> MODULES =
@@ -18,6 +18,7 @@ package org.jetbrains.kotlin.daemon.client
 
 import com.intellij.openapi.progress.ProcessCanceledException
 import org.jetbrains.kotlin.daemon.common.CompilerCallbackServicesFacade
+import org.jetbrains.kotlin.daemon.common.LookupBatchDecoder
 import org.jetbrains.kotlin.daemon.common.LoopbackNetworkInterface
 import org.jetbrains.kotlin.daemon.common.RmiFriendlyCompilationCancelledException
 import org.jetbrains.kotlin.daemon.common.SOCKET_ANY_FREE_PORT
@@ -28,6 +29,10 @@ import org.jetbrains.kotlin.load.kotlin.incremental.components.JvmPackagePartPro
 import org.jetbrains.kotlin.modules.TargetId
 import org.jetbrains.kotlin.progress.CompilationCanceledStatus
 import java.rmi.server.UnicastRemoteObject
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
 
 
 class CompilerCallbackServicesFacadeServer(
@@ -77,6 +82,57 @@ class CompilerCallbackServicesFacadeServer(
         }
     }
 
+    // batches are decoded and recorded on a separate thread, so the daemon can continue the compilation meanwhile,
+    // but no more than MAX_PENDING_LOOKUP_BATCHES are kept in memory: the daemon is blocked until there's room for a new one
+    private val pendingLookupBatches = Semaphore(MAX_PENDING_LOOKUP_BATCHES)
+    private val lookupBatchDecoder = LookupBatchDecoder()
+    private var lookupBatchesExecutor: ExecutorService? = null
+    @Volatile private var lookupBatchesError: Throwable? = null
+
+    override fun lookupTracker_recordBatch(batch: ByteArray) {
+        val lookupTracker = incrementalCompilationComponents!!.getLookupTracker()
+
+        pendingLookupBatches.acquire()
+        getLookupBatchesExecutor().execute {
+            try {
+                if (lookupBatchesError == null) {
+                    lookupBatchDecoder.decode(batch) { filePath, position, scopeFqName, scopeKind, name ->
+                        lookupTracker.record(filePath, position, scopeFqName, scopeKind, name)
+                    }
+                }
+            }
+            catch (e: Throwable) {
+                lookupBatchesError = e
+            }
+            finally {
+                pendingLookupBatches.release()
+            }
+        }
+    }
+
+    override fun lookupTracker_flush() {
+        val executor = synchronized(this) {
+            val executor = lookupBatchesExecutor
+            lookupBatchesExecutor = null
+            executor
+        }
+        if (executor != null) {
+            executor.shutdown()
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+        }
+
+        lookupBatchesError?.let {
+            lookupBatchesError = null
+            throw IllegalStateException("Unable to record lookups", it)
+        }
+    }
+
+    @Synchronized
+    private fun getLookupBatchesExecutor(): ExecutorService =
+            lookupBatchesExecutor ?: Executors.newSingleThreadExecutor {
+                Thread(it, "Kotlin daemon lookups recorder").apply { isDaemon = true }
+            }.apply { lookupBatchesExecutor = this }
+
     private val lookupTracker_isDoNothing: Boolean = incrementalCompilationComponents != null && incrementalCompilationComponents.getLookupTracker() == LookupTracker.DO_NOTHING
 
     override fun lookupTracker_isDoNothing(): Boolean = lookupTracker_isDoNothing
@@ -92,3 +148,5 @@ class CompilerCallbackServicesFacadeServer(
         }
     }
 }
+
+private val MAX_PENDING_LOOKUP_BATCHES = 4
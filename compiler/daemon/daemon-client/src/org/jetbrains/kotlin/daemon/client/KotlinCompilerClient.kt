@@ -150,10 +150,12 @@ object KotlinCompilerClient {
 
     val COMPILE_DAEMON_CLIENT_OPTIONS_PROPERTY: String = "kotlin.daemon.client.options"
     data class ClientOptions(
-            var stop: Boolean = false
+            var stop: Boolean = false,
+            var metrics: Boolean = false
     ) : OptionsGroup {
         override val mappers: List<PropMapper<*, *, *>>
-            get() = listOf(BoolPropMapper(this, ClientOptions::stop))
+            get() = listOf(BoolPropMapper(this, ClientOptions::stop),
+                           BoolPropMapper(this, ClientOptions::metrics))
     }
 
     private fun configureClientOptions(opts: ClientOptions): ClientOptions {
@@ -178,7 +180,9 @@ object KotlinCompilerClient {
         val clientOptions = configureClientOptions()
         val filteredArgs = args.asIterable().filterExtractProps(compilerId, daemonOptions, daemonLaunchingOptions, clientOptions, prefix = COMPILE_DAEMON_CMDLINE_OPTIONS_PREFIX)
 
-        if (!clientOptions.stop) {
+        val connectOnly = clientOptions.stop || clientOptions.metrics
+
+        if (!connectOnly) {
             if (compilerId.compilerClasspath.none()) {
                 // attempt to find compiler to use
                 System.err.println("compiler wasn't explicitly specified, attempt to find appropriate jar")
@@ -191,12 +195,15 @@ object KotlinCompilerClient {
                 println("desired compiler classpath: " + compilerId.compilerClasspath.joinToString(File.pathSeparator))
         }
 
-        val daemon = connectToCompileService(compilerId, daemonLaunchingOptions, daemonOptions, DaemonReportingTargets(out = System.out), autostart = !clientOptions.stop, checkId = !clientOptions.stop)
+        val daemon = connectToCompileService(compilerId, daemonLaunchingOptions, daemonOptions, DaemonReportingTargets(out = System.out), autostart = !connectOnly, checkId = !connectOnly)
 
         if (daemon == null) {
             if (clientOptions.stop) {
                 System.err.println("No daemon found to shut down")
             }
+            else if (clientOptions.metrics) {
+                System.err.println("No daemon found to get metrics from")
+            }
             else throw Exception("Unable to connect to daemon")
         }
         else when {
@@ -205,6 +212,9 @@ object KotlinCompilerClient {
                 daemon.shutdown()
                 println("Daemon shut down successfully")
             }
+            clientOptions.metrics -> {
+                println(daemon.getMetrics().get().toJson())
+            }
             filteredArgs.none() -> {
                 // so far used only in tests
                 println("Warning: empty arguments list, only daemon check is performed: checkCompilerId() returns ${daemon.checkCompilerId(compilerId)}")
@@ -71,6 +71,9 @@ interface CompileService : Remote {
     @Throws(RemoteException::class)
     fun getUsedMemory(): CallResult<Long>
 
+    @Throws(RemoteException::class)
+    fun getMetrics(): CallResult<DaemonMetrics>
+
     @Throws(RemoteException::class)
     fun getDaemonOptions(): CallResult<DaemonOptions>
 
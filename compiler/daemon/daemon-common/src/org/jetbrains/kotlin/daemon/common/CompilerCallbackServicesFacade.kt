@@ -77,6 +77,18 @@ interface CompilerCallbackServicesFacade : Remote {
     @Throws(RemoteException::class)
     fun lookupTracker_record(lookups: Collection<LookupInfo>)
 
+    /**
+     * records lookups encoded with [LookupBatchEncoder], may block if too many batches are not recorded yet
+     */
+    @Throws(RemoteException::class)
+    fun lookupTracker_recordBatch(batch: ByteArray)
+
+    /**
+     * waits until all batches passed to [lookupTracker_recordBatch] are recorded
+     */
+    @Throws(RemoteException::class)
+    fun lookupTracker_flush()
+
     @Throws(RemoteException::class)
     fun lookupTracker_isDoNothing(): Boolean
 
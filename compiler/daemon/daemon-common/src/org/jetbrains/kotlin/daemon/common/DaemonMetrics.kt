@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon.common
+
+import java.io.Serializable
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+// Histogram of latencies with fixed exponential buckets, from 1 ms to 100 s; thread-safe
+class LatencyHistogram {
+    private val buckets = AtomicLongArray(BUCKET_UPPER_BOUNDS_MS.size + 1)
+    private val totalNanos = AtomicLong(0L)
+    private val maxNanos = AtomicLong(0L)
+
+    fun add(nanos: Long) {
+        val ms = TimeUnit.NANOSECONDS.toMillis(nanos)
+        val bucket = BUCKET_UPPER_BOUNDS_MS.indexOfFirst { ms <= it }
+        buckets.incrementAndGet(if (bucket >= 0) bucket else BUCKET_UPPER_BOUNDS_MS.size)
+        totalNanos.addAndGet(nanos)
+        while (true) {
+            val max = maxNanos.get()
+            if (nanos <= max || maxNanos.compareAndSet(max, nanos)) break
+        }
+    }
+
+    fun snapshot(): LatencyHistogramSnapshot {
+        val counts = LongArray(buckets.length()) { buckets.get(it) }
+        return LatencyHistogramSnapshot(counts.sum(), TimeUnit.NANOSECONDS.toMillis(totalNanos.get()), TimeUnit.NANOSECONDS.toMillis(maxNanos.get()), counts)
+    }
+
+    companion object {
+        val BUCKET_UPPER_BOUNDS_MS: LongArray = longArrayOf(1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000, 50000, 100000)
+    }
+}
+
+// bucketCounts[i] is the number of measurements not longer than BUCKET_UPPER_BOUNDS_MS[i] (and longer than the previous bound),
+// the last element counts measurements longer than all bounds
+class LatencyHistogramSnapshot(
+        val count: Long,
+        val totalMs: Long,
+        val maxMs: Long,
+        val bucketCounts: LongArray
+) : Serializable
+
+class RpcCallsSnapshot(val count: Long, val totalMs: Long) : Serializable
+
+class GarbageCollectorSnapshot(val count: Long, val timeMs: Long) : Serializable
+
+// Metrics accumulated by a daemon since its start, returned by CompileService.getMetrics
+class DaemonMetrics(
+        val uptimeMs: Long,
+        val compilations: Long,
+        // whole compilations, from the daemon's point of view
+        val compileTime: LatencyHistogramSnapshot,
+        // by CompilationPhase name; only the JVM compiler reports phases so far
+        val phases: Map<String, LatencyHistogramSnapshot>,
+        // calls from the daemon to the client, by "<interface>.<method>"
+        val rpcCalls: Map<String, RpcCallsSnapshot>,
+        // by garbage collector name
+        val gc: Map<String, GarbageCollectorSnapshot>,
+        // maximum of used heap memory measured after compilations
+        val heapUsedAfterCompilationMax: Long,
+        // peak usage of heap memory pools, as tracked by the JVM, by pool name
+        val heapPeakUsage: Map<String, Long>,
+        val heapMax: Long
+) : Serializable {
+
+    fun toJson(): String = StringBuilder().apply {
+        append("{")
+        appendJsonField("uptimeMs", uptimeMs).append(",")
+        appendJsonField("compilations", compilations).append(",")
+        appendJsonString("compileTime").append(":").appendJson(compileTime).append(",")
+        appendJsonString("phases").append(":").appendJsonObject(phases) { appendJson(it) }.append(",")
+        appendJsonString("rpcCalls").append(":").appendJsonObject(rpcCalls) {
+            append("{").appendJsonField("count", it.count).append(",").appendJsonField("totalMs", it.totalMs).append("}")
+        }.append(",")
+        appendJsonString("gc").append(":").appendJsonObject(gc) {
+            append("{").appendJsonField("count", it.count).append(",").appendJsonField("timeMs", it.timeMs).append("}")
+        }.append(",")
+        appendJsonField("heapUsedAfterCompilationMax", heapUsedAfterCompilationMax).append(",")
+        appendJsonString("heapPeakUsage").append(":").appendJsonObject(heapPeakUsage) { append(it) }.append(",")
+        appendJsonField("heapMax", heapMax)
+        append("}")
+    }.toString()
+}
+
+private fun StringBuilder.appendJson(histogram: LatencyHistogramSnapshot): StringBuilder {
+    append("{")
+    appendJsonField("count", histogram.count).append(",")
+    appendJsonField("totalMs", histogram.totalMs).append(",")
+    appendJsonField("maxMs", histogram.maxMs).append(",")
+    appendJsonString("buckets").append(":[")
+    histogram.bucketCounts.forEachIndexed { i, count ->
+        if (i > 0) append(",")
+        // the last bucket has no upper bound
+        val bound = if (i < LatencyHistogram.BUCKET_UPPER_BOUNDS_MS.size) LatencyHistogram.BUCKET_UPPER_BOUNDS_MS[i].toString() else "null"
+        append("{").appendJsonString("leMs").append(":").append(bound).append(",").appendJsonField("count", count).append("}")
+    }
+    return append("]}")
+}
+
+private fun <T> StringBuilder.appendJsonObject(map: Map<String, T>, appendValue: StringBuilder.(T) -> Unit): StringBuilder {
+    append("{")
+    map.entries.sortedBy { it.key }.forEachIndexed { i, entry ->
+        if (i > 0) append(",")
+        appendJsonString(entry.key).append(":")
+        appendValue(entry.value)
+    }
+    return append("}")
+}
+
+private fun StringBuilder.appendJsonField(name: String, value: Long): StringBuilder = appendJsonString(name).append(":").append(value)
+
+private fun StringBuilder.appendJsonString(value: String): StringBuilder {
+    append('"')
+    for (c in value) {
+        when {
+            c == '"' || c == '\\' -> append('\\').append(c)
+            c < ' ' -> append("\\u%04x".format(c.toInt()))
+            else -> append(c)
+        }
+    }
+    return append('"')
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon.common
+
+import org.jetbrains.kotlin.incremental.components.Position
+import org.jetbrains.kotlin.incremental.components.ScopeKind
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+
+val DEFAULT_LOOKUP_BATCH_SIZE: Int = 10000
+
+// Lookups are sent from the daemon to the client in batches with the following layout (all numbers are unsigned varints):
+//   id of the first string added to the dictionary by this batch, number of such strings, strings in modified UTF-8,
+//   number of lookups, for each lookup: file path id, scope fq name id, scope kind ordinal, name id, line + 1, column + 1.
+// The dictionary of strings is shared by all batches of one compilation, so every file path, scope and name is sent only once;
+// batches must be decoded in the order they were encoded.
+
+class LookupBatchEncoder {
+    private data class Lookup(val filePathId: Int, val scopeFqNameId: Int, val scopeKind: Int, val nameId: Int, val line: Int, val column: Int)
+
+    private val stringIds = hashMapOf<String, Int>()
+    private var firstNewStringId = 0
+    private val newStrings = arrayListOf<String>()
+    private val lookups = linkedSetOf<Lookup>()
+
+    // number of distinct lookups in the current batch
+    val size: Int get() = lookups.size
+
+    fun add(filePath: String, position: Position, scopeFqName: String, scopeKind: ScopeKind, name: String) {
+        lookups.add(Lookup(stringId(filePath), stringId(scopeFqName), scopeKind.ordinal, stringId(name), position.line + 1, position.column + 1))
+    }
+
+    fun encodeAndReset(): ByteArray {
+        val bytes = ByteArrayOutputStream(lookups.size * 8 + newStrings.size * 16)
+        with(DataOutputStream(bytes)) {
+            writeVarInt(firstNewStringId)
+            writeVarInt(newStrings.size)
+            newStrings.forEach { writeUTF(it) }
+
+            writeVarInt(lookups.size)
+            for (lookup in lookups) {
+                writeVarInt(lookup.filePathId)
+                writeVarInt(lookup.scopeFqNameId)
+                writeVarInt(lookup.scopeKind)
+                writeVarInt(lookup.nameId)
+                writeVarInt(lookup.line)
+                writeVarInt(lookup.column)
+            }
+            flush()
+        }
+
+        firstNewStringId += newStrings.size
+        newStrings.clear()
+        lookups.clear()
+
+        return bytes.toByteArray()
+    }
+
+    private fun stringId(string: String): Int =
+            stringIds.getOrPut(string) {
+                newStrings.add(string)
+                stringIds.size
+            }
+}
+
+class LookupBatchDecoder {
+    private val strings = arrayListOf<String>()
+
+    fun decode(batch: ByteArray, consumer: (filePath: String, position: Position, scopeFqName: String, scopeKind: ScopeKind, name: String) -> Unit) {
+        with(DataInputStream(ByteArrayInputStream(batch))) {
+            val firstNewStringId = readVarInt()
+            if (firstNewStringId != strings.size) {
+                throw IllegalStateException("Lookup batch is out of order: expected strings starting from ${strings.size}, got $firstNewStringId")
+            }
+            for (i in 0..readVarInt() - 1) {
+                strings.add(readUTF())
+            }
+
+            val scopeKinds = ScopeKind.values()
+            for (i in 0..readVarInt() - 1) {
+                val filePath = strings[readVarInt()]
+                val scopeFqName = strings[readVarInt()]
+                val scopeKind = scopeKinds[readVarInt()]
+                val name = strings[readVarInt()]
+                val line = readVarInt() - 1
+                val column = readVarInt() - 1
+                val position = if (line == Position.NO_POSITION.line && column == Position.NO_POSITION.column) Position.NO_POSITION
+                               else Position(line, column)
+                consumer(filePath, position, scopeFqName, scopeKind, name)
+            }
+        }
+    }
+}
+
+private fun DataOutputStream.writeVarInt(value: Int) {
+    var rest = value
+    while (rest and 0x7F.inv() != 0) {
+        writeByte((rest and 0x7F) or 0x80)
+        rest = rest ushr 7
+    }
+    writeByte(rest)
+}
+
+private fun DataInputStream.readVarInt(): Int {
+    var result = 0
+    var shift = 0
+    while (true) {
+        val byte = readByte().toInt()
+        result = result or ((byte and 0x7F) shl shift)
+        if (byte and 0x80 == 0) return result
+        shift += 7
+    }
+}
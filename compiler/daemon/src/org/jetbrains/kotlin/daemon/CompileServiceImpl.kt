@@ -18,10 +18,14 @@ package org.jetbrains.kotlin.daemon
 
 import com.intellij.openapi.vfs.impl.ZipHandler
 import org.jetbrains.kotlin.cli.common.CLICompiler
+import org.jetbrains.kotlin.cli.common.CompilationPhaseListener
 import org.jetbrains.kotlin.cli.common.ExitCode
 import org.jetbrains.kotlin.cli.common.KOTLIN_COMPILER_ENVIRONMENT_KEEPALIVE_PROPERTY
+import org.jetbrains.kotlin.cli.jvm.compiler.JarPackagesSnapshot
 import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
+import org.jetbrains.kotlin.codegen.inline.LibraryInlineMethodNodes
 import org.jetbrains.kotlin.config.Services
+import org.jetbrains.kotlin.load.kotlin.KotlinBinaryClassCache
 import org.jetbrains.kotlin.daemon.common.*
 import org.jetbrains.kotlin.load.kotlin.incremental.components.IncrementalCompilationComponents
 import org.jetbrains.kotlin.progress.CompilationCanceledStatus
@@ -46,6 +50,10 @@ import kotlin.concurrent.write
 
 fun nowSeconds() = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime())
 
+private val JAR_PACKAGES_SNAPSHOT_DIR_NAME = "jar-packages"
+
+private val WARM_CACHES_MAX_USED_MEMORY_RATIO = 0.7
+
 interface CompilerSelector {
     operator fun get(targetPlatform: CompileService.TargetPlatform): CLICompiler<*>
 }
@@ -94,6 +102,14 @@ class CompileServiceImpl(
 
     private val classpathWatcher = LazyClasspathWatcher(compilerId.compilerClasspath)
 
+    // shared between all compilations on this daemon, also persisted to speed up the next daemon start
+    private val jarPackagesSnapshot = JarPackagesSnapshot(File(daemonOptions.runFilesPathOrDefault, JAR_PACKAGES_SNAPSHOT_DIR_NAME))
+
+    // bodies of inline functions from library jars, shared between all compilations on this daemon
+    private val inlineMethodNodes = JarInlineMethodNodeCache()
+
+    private val metrics = DaemonMetricsCollector()
+
     enum class Aliveness {
         // !!! ordering of values is used in state comparison
         Dying, LastSession, Alive
@@ -178,6 +194,7 @@ class CompileServiceImpl(
             state.sessions.remove(sessionId)
             log.info("cleaning after session $sessionId")
             clearJarCache()
+            clearWarmCachesIfMemoryIsLow()
             if (state.sessions.isEmpty()) {
                 // TODO: and some goes here
             }
@@ -194,6 +211,8 @@ class CompileServiceImpl(
 
     override fun getUsedMemory(): CompileService.CallResult<Long> = ifAlive { usedMemory(withGC = true) }
 
+    override fun getMetrics(): CompileService.CallResult<DaemonMetrics> = ifAlive(minAliveness = Aliveness.LastSession) { metrics.getMetrics() }
+
     override fun shutdown(): CompileService.CallResult<Nothing> = ifAliveExclusive_Nothing(minAliveness = Aliveness.LastSession, ignoreCompilerChanged = true) {
         shutdownImpl()
     }
@@ -226,7 +245,7 @@ class CompileServiceImpl(
     ): CompileService.CallResult<Int> =
             doCompile(sessionId, args, compilerOutputStream, serviceOutputStream, operationsTracer) { printStream, eventManager, profiler ->
                 when (outputFormat) {
-                    CompileService.OutputFormat.PLAIN -> compiler[targetPlatform].exec(printStream, *args)
+                    CompileService.OutputFormat.PLAIN -> compiler[targetPlatform].exec(printStream, createCompileServices(servicesFacade, eventManager, profiler), *args)
                     CompileService.OutputFormat.XML -> compiler[targetPlatform].execAndOutputXml(printStream, createCompileServices(servicesFacade, eventManager, profiler), *args)
                 }
             }
@@ -413,8 +432,8 @@ class CompileServiceImpl(
                 compilationsCounter.incrementAndGet()
                 val rpcProfiler = if (daemonOptions.reportPerf) WallAndThreadTotalProfiler() else DummyProfiler()
                 val eventManger = EventMangerImpl()
-                val compilerMessagesStream = PrintStream(BufferedOutputStream(RemoteOutputStreamClient(compilerMessagesStreamProxy, rpcProfiler), 4096))
-                val serviceOutputStream = PrintStream(BufferedOutputStream(RemoteOutputStreamClient(serviceOutputStreamProxy, rpcProfiler), 4096))
+                val compilerMessagesStream = PrintStream(BufferedOutputStream(RemoteOutputStreamClient(metrics.countingRpcCalls(compilerMessagesStreamProxy, RemoteOutputStream::class.java), rpcProfiler), 4096))
+                val serviceOutputStream = PrintStream(BufferedOutputStream(RemoteOutputStreamClient(metrics.countingRpcCalls(serviceOutputStreamProxy, RemoteOutputStream::class.java), rpcProfiler), 4096))
                 try {
                     checkedCompile(args, serviceOutputStream, rpcProfiler) {
                         val res = body(compilerMessagesStream, eventManger, rpcProfiler).code
@@ -430,8 +449,12 @@ class CompileServiceImpl(
                 }
             }
 
-    private fun createCompileServices(facade: CompilerCallbackServicesFacade, eventManger: EventManger, rpcProfiler: Profiler): Services {
+    private fun createCompileServices(remoteFacade: CompilerCallbackServicesFacade, eventManger: EventManger, rpcProfiler: Profiler): Services {
+        val facade = metrics.countingRpcCalls(remoteFacade, CompilerCallbackServicesFacade::class.java)
         val builder = Services.Builder()
+        builder.register(JarPackagesSnapshot::class.java, jarPackagesSnapshot)
+        builder.register(CompilationPhaseListener::class.java, metrics)
+        builder.register(LibraryInlineMethodNodes::class.java, inlineMethodNodes)
         if (facade.hasIncrementalCaches() || facade.hasLookupTracker()) {
             builder.register(IncrementalCompilationComponents::class.java, RemoteIncrementalCompilationComponentsClient(facade, eventManger, rpcProfiler))
         }
@@ -450,9 +473,11 @@ class CompileServiceImpl(
 
             val profiler = if (daemonOptions.reportPerf) WallAndThreadAndMemoryTotalProfiler(withGC = false) else DummyProfiler()
 
+            val startTime = System.nanoTime()
             val res = profiler.withMeasure(null, body)
 
-            val endMem = if (daemonOptions.reportPerf) usedMemory(withGC = false) else 0L
+            val endMem = usedMemory(withGC = false)
+            metrics.compilationFinished(System.nanoTime() - startTime, endMem)
 
             log.info("Done with result " + res.toString())
 
@@ -510,6 +535,17 @@ class CompileServiceImpl(
         }
     }
 
+    // library classes are kept between compilations (see KotlinBinaryClassCache), unless the daemon is short on memory
+    private fun clearWarmCachesIfMemoryIsLow() {
+        val maxMemory = Runtime.getRuntime().maxMemory()
+        val memory = usedMemory(withGC = false)
+        if (memory > maxMemory * WARM_CACHES_MAX_USED_MEMORY_RATIO) {
+            KotlinBinaryClassCache.clearJarClasses()
+            inlineMethodNodes.clear()
+            log.info("cleared warm caches: used memory ${memory / 1024} kb of ${maxMemory / 1024} kb")
+        }
+    }
+
     // copied (with edit) from gradle plugin
     private fun callVoidStaticMethod(classFqName: String, methodName: String) {
         // compiler classloader == current classloader for now
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import org.jetbrains.kotlin.cli.common.CompilationPhase
+import org.jetbrains.kotlin.cli.common.CompilationPhaseListener
+import org.jetbrains.kotlin.daemon.common.*
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+// Collects metrics of all compilations performed by the daemon, unlike Profiler, which is created for each compilation
+// and only used when reportPerf is on. Thread-safe.
+class DaemonMetricsCollector : CompilationPhaseListener {
+    private val startTime = System.nanoTime()
+    private val compilations = AtomicLong(0L)
+    private val compileTime = LatencyHistogram()
+    private val phases = EnumMap<CompilationPhase, LatencyHistogram>(CompilationPhase::class.java).apply {
+        CompilationPhase.values().forEach { put(it, LatencyHistogram()) }
+    }
+    private val rpcCalls = ConcurrentHashMap<String, SimplePerfCounters>()
+    private val heapUsedAfterCompilationMax = AtomicLong(0L)
+
+    override fun phaseFinished(phase: CompilationPhase, nanos: Long) {
+        phases[phase]!!.add(nanos)
+    }
+
+    fun compilationFinished(nanos: Long, usedMemory: Long) {
+        compilations.incrementAndGet()
+        compileTime.add(nanos)
+        while (true) {
+            val max = heapUsedAfterCompilationMax.get()
+            if (usedMemory <= max || heapUsedAfterCompilationMax.compareAndSet(max, usedMemory)) break
+        }
+    }
+
+    // returns a proxy of the remote object which counts calls of its methods
+    fun <T : Any> countingRpcCalls(remote: T, remoteInterface: Class<T>): T =
+            remoteInterface.cast(Proxy.newProxyInstance(remoteInterface.classLoader, arrayOf(remoteInterface), object : InvocationHandler {
+                override fun invoke(proxy: Any?, method: Method, args: Array<out Any?>?): Any? {
+                    if (method.declaringClass == Any::class.java) return method.invoke(remote, *(args ?: arrayOf()))
+                    val counters = rpcCalls.getOrPut("${remoteInterface.simpleName}.${method.name}") { SimplePerfCounters() }
+                    try {
+                        return withMeasureWallTime(counters) { method.invoke(remote, *(args ?: arrayOf())) }
+                    }
+                    catch (e: InvocationTargetException) {
+                        throw e.targetException
+                    }
+                }
+            }))
+
+    fun getMetrics(): DaemonMetrics {
+        fun Long.ms() = TimeUnit.NANOSECONDS.toMillis(this)
+        return DaemonMetrics(
+                uptimeMs = (System.nanoTime() - startTime).ms(),
+                compilations = compilations.get(),
+                compileTime = compileTime.snapshot(),
+                phases = phases.entries.associate { it.key.name to it.value.snapshot() },
+                rpcCalls = rpcCalls.entries.associate { it.key to RpcCallsSnapshot(it.value.count, it.value.time.ms()) },
+                gc = ManagementFactory.getGarbageCollectorMXBeans().associate { it.name to GarbageCollectorSnapshot(it.collectionCount, it.collectionTime) },
+                heapUsedAfterCompilationMax = heapUsedAfterCompilationMax.get(),
+                heapPeakUsage = ManagementFactory.getMemoryPoolMXBeans().filter { it.type == MemoryType.HEAP }.associate { it.name to it.peakUsage.used },
+                heapMax = Runtime.getRuntime().maxMemory())
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.io.URLUtil
+import org.jetbrains.kotlin.codegen.inline.LibraryInlineMethodNodes
+import org.jetbrains.kotlin.codegen.inline.SMAPAndMethodNode
+import org.jetbrains.org.objectweb.asm.commons.Method
+import java.lang.ref.SoftReference
+import java.math.BigInteger
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicLong
+
+// Bodies of inline functions from library jars, kept between compilations, so that a warm daemon neither reads them from jars
+// nor parses them again. Nodes are stored by the digest of the jar's content, so copies of the same jar share them.
+// Every jar is watched by its own LazyClasspathWatcher, which also provides the digest: when the jar at a path changes, it is watched again.
+// Nodes of a jar are softly referenced. Thread-safe.
+class JarInlineMethodNodeCache : LibraryInlineMethodNodes {
+    private data class MethodKey(val classPath: String, val name: String, val descriptor: String)
+
+    private class Jar(val watcher: LazyClasspathWatcher, val digest: String)
+
+    private class Nodes {
+        @Volatile var nodes: SoftReference<ConcurrentMap<MethodKey, SMAPAndMethodNode>> = SoftReference(ConcurrentHashMap())
+
+        fun getOrCreate(): ConcurrentMap<MethodKey, SMAPAndMethodNode> =
+                nodes.get() ?: ConcurrentHashMap<MethodKey, SMAPAndMethodNode>().apply { nodes = SoftReference(this) }
+    }
+
+    // by path
+    private val jars = ConcurrentHashMap<String, Jar>()
+    // by digest
+    private val nodesByDigest = ConcurrentHashMap<String, Nodes>()
+
+    private val hits = AtomicLong(0L)
+    private val misses = AtomicLong(0L)
+
+    val hitCount: Long get() = hits.get()
+    val missCount: Long get() = misses.get()
+
+    override fun getOrCompute(classFile: VirtualFile, method: Method, compute: () -> SMAPAndMethodNode?): SMAPAndMethodNode? {
+        val path = classFile.path
+        val separatorIndex = path.indexOf(URLUtil.JAR_SEPARATOR)
+        // classes from directories are usually compiled in the same build, so they are not cached
+        if (separatorIndex < 0) return compute()
+
+        val nodes = getNodes(path.substring(0, separatorIndex)) ?: return compute()
+        val key = MethodKey(path.substring(separatorIndex + URLUtil.JAR_SEPARATOR.length), method.name, method.descriptor)
+
+        nodes[key]?.let {
+            hits.incrementAndGet()
+            return it
+        }
+
+        misses.incrementAndGet()
+        val computed = compute() ?: return null
+        return nodes.putIfAbsent(key, computed) ?: computed
+    }
+
+    fun clear() {
+        jars.clear()
+        nodesByDigest.clear()
+    }
+
+    private fun getNodes(jarPath: String): ConcurrentMap<MethodKey, SMAPAndMethodNode>? {
+        val existing = jars[jarPath]
+        val jar = if (existing != null && !existing.watcher.isChanged) existing else watchJar(jarPath, existing) ?: return null
+        return nodesByDigest.getOrPut(jar.digest) { Nodes() }.getOrCreate()
+    }
+
+    private fun watchJar(jarPath: String, previous: Jar?): Jar? {
+        // no check period: a jar may be rebuilt right before a compilation which uses it
+        val watcher = LazyClasspathWatcher(listOf(jarPath), checkPeriod = 0)
+        // the digest of the content the watcher compares with, so that a change right after the jar is read is not missed
+        val digestBytes = watcher.baselineDigests?.values?.singleOrNull()
+        if (digestBytes == null) {
+            jars.remove(jarPath)
+            return null
+        }
+
+        val digest = BigInteger(1, digestBytes).toString(16)
+        val jar = Jar(watcher, digest)
+        jars[jarPath] = jar
+        if (previous != null && previous.digest != digest && jars.values.none { it.digest == previous.digest }) {
+            nodesByDigest.remove(previous.digest)
+        }
+        return jar
+    }
+}
@@ -78,6 +78,16 @@ class LazyClasspathWatcher(classpath: Iterable<String>,
         }
     }
 
+    /**
+     * Digests of the watched files which changes are checked against, waits until they are computed;
+     * null if the classpath couldn't be walked
+     */
+    val baselineDigests: Map<File, ByteArray>? get() {
+        fileIdsLock.acquire()
+        fileIdsLock.release()
+        return fileIds?.associate { Pair(it.file, it.digest) }
+    }
+
     val isChanged: Boolean get() {
         if (lastChangedStatus.get()) return true
         val nowMs = TimeUnit.MILLISECONDS.toMillis(System.nanoTime())
@@ -16,45 +16,68 @@
 
 package org.jetbrains.kotlin.daemon
 
-import com.intellij.util.containers.StringInterner
 import org.jetbrains.kotlin.daemon.common.CompilerCallbackServicesFacade
+import org.jetbrains.kotlin.daemon.common.DEFAULT_LOOKUP_BATCH_SIZE
 import org.jetbrains.kotlin.daemon.common.DummyProfiler
+import org.jetbrains.kotlin.daemon.common.LookupBatchEncoder
 import org.jetbrains.kotlin.daemon.common.Profiler
-import org.jetbrains.kotlin.incremental.components.LookupInfo
 import org.jetbrains.kotlin.incremental.components.LookupTracker
 import org.jetbrains.kotlin.incremental.components.Position
 import org.jetbrains.kotlin.incremental.components.ScopeKind
 
 
-class RemoteLookupTrackerClient(val facade: CompilerCallbackServicesFacade, val eventManger: EventManger, val profiler: Profiler = DummyProfiler()) : LookupTracker {
+// lookups are streamed to the client in batches of at most batchSize distinct lookups during the compilation,
+// so that they are neither accumulated in the daemon memory nor sent all at once at the end
+class RemoteLookupTrackerClient(
+        val facade: CompilerCallbackServicesFacade,
+        val eventManger: EventManger,
+        val profiler: Profiler = DummyProfiler(),
+        private val batchSize: Int = DEFAULT_LOOKUP_BATCH_SIZE
+) : LookupTracker {
     private val isDoNothing = profiler.withMeasure(this) { facade.lookupTracker_isDoNothing() }
 
-    private val lookups = hashSetOf<LookupInfo>()
-    private val interner = StringInterner()
+    private val batchEncoder = LookupBatchEncoder()
+    private var anyBatchSent = false
 
     override val requiresPosition: Boolean = profiler.withMeasure(this) { facade.lookupTracker_requiresPosition() }
 
+    @Synchronized
     override fun record(filePath: String, position: Position, scopeFqName: String, scopeKind: ScopeKind, name: String) {
         if (isDoNothing) return
 
-        val internedFilePath = interner.intern(filePath)
-        val internedScopeFqName = interner.intern(scopeFqName)
-        val internedName = interner.intern(name)
+        batchEncoder.add(filePath, position, scopeFqName, scopeKind, name)
 
-        lookups.add(LookupInfo(internedFilePath, position, internedScopeFqName, scopeKind, internedName))
+        if (batchEncoder.size >= batchSize) {
+            sendBatch()
+        }
     }
 
     init {
         eventManger.onCompilationFinished { flush() }
     }
 
-    private fun flush() {
-        if (isDoNothing || lookups.isEmpty()) return
+    private fun sendBatch() {
+        val batch = batchEncoder.encodeAndReset()
 
         profiler.withMeasure(this) {
-            facade.lookupTracker_record(lookups)
+            facade.lookupTracker_recordBatch(batch)
+        }
+
+        anyBatchSent = true
+    }
+
+    @Synchronized
+    private fun flush() {
+        if (isDoNothing) return
+
+        if (batchEncoder.size > 0) {
+            sendBatch()
         }
 
-        lookups.clear()
+        if (anyBatchSent) {
+            profiler.withMeasure(this) {
+                facade.lookupTracker_flush()
+            }
+        }
     }
 }
@@ -80,6 +80,11 @@ public abstract class FileBasedKotlinClass implements KotlinJvmBinaryClass {
     @NotNull
     protected abstract byte[] getFileContents();
 
+    @NotNull
+    /*package*/ InnerClassesInfo getInnerClasses() {
+        return innerClasses;
+    }
+
     // TODO public to be accessible in companion object of subclass, workaround for KT-3974
     @Nullable
     public static <T extends FileBasedKotlinClass> T create(
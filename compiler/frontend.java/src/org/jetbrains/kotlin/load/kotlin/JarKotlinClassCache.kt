@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.load.kotlin
+
+import com.intellij.openapi.vfs.VfsUtilCore
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.impl.jar.CoreJarFileSystem
+import com.intellij.util.io.URLUtil
+import org.jetbrains.kotlin.load.kotlin.header.KotlinClassHeader
+import org.jetbrains.kotlin.name.ClassId
+import java.io.File
+import java.io.IOException
+import java.lang.ref.SoftReference
+import java.lang.ref.WeakReference
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.zip.ZipFile
+
+// Remembers which classes in jars are Kotlin classes, and their headers, as long as the application environment lives.
+// When the environment is kept between compilations (e.g. in the daemon, see KOTLIN_COMPILER_ENVIRONMENT_KEEPALIVE_PROPERTY),
+// classes of unchanged libraries are not read and parsed again on each compilation.
+// A jar is checked once per its root file, i.e. once per compilation: if its size or modification time changed, classes are kept
+// only if the hash of its content (names, sizes and CRCs of entries) is the same. Classes of a jar are softly referenced,
+// so they are dropped under memory pressure; clear() drops everything.
+class JarKotlinClassCache {
+    private class ClassInfo(
+            val classId: ClassId,
+            val classHeader: KotlinClassHeader,
+            val innerClasses: FileBasedKotlinClass.InnerClassesInfo
+    )
+
+    private class JarClasses(val length: Long, val lastModified: Long, val contentHash: Long) {
+        // root of the jar which is known to correspond to this state of the jar
+        @Volatile var checkedRoot: WeakReference<VirtualFile>? = null
+
+        // values are either ClassInfo or NOT_KOTLIN_CLASS
+        @Volatile var classes: SoftReference<ConcurrentMap<String, Any>> = SoftReference(ConcurrentHashMap())
+
+        fun getOrCreateClasses(): ConcurrentMap<String, Any> =
+                classes.get() ?: ConcurrentHashMap<String, Any>().apply { classes = SoftReference(this) }
+    }
+
+    private val jars = ConcurrentHashMap<String, JarClasses>()
+
+    fun getOrCreate(file: VirtualFile, create: () -> VirtualFileKotlinClass?): VirtualFileKotlinClass? {
+        if (file.fileSystem !is CoreJarFileSystem) return create()
+
+        val root = VfsUtilCore.getRootFile(file)
+        val classes = getJarClasses(root)?.getOrCreateClasses() ?: return create()
+        val relativePath = file.path.substring(root.path.length)
+
+        val cached = classes[relativePath]
+        if (cached === NOT_KOTLIN_CLASS) return null
+        if (cached is ClassInfo) return VirtualFileKotlinClass(file, cached.classId, cached.classHeader, cached.innerClasses)
+
+        val kotlinClass = create()
+        classes[relativePath] =
+                if (kotlinClass != null) ClassInfo(kotlinClass.classId, kotlinClass.classHeader, kotlinClass.innerClasses)
+                else NOT_KOTLIN_CLASS
+        return kotlinClass
+    }
+
+    fun clear() {
+        jars.clear()
+    }
+
+    private fun getJarClasses(root: VirtualFile): JarClasses? {
+        val path = root.path.substringBefore(URLUtil.JAR_SEPARATOR)
+        val existing = jars[path]
+        if (existing != null && existing.checkedRoot?.get() == root) return existing
+
+        val jar = File(path)
+        val length = jar.length()
+        val lastModified = jar.lastModified()
+
+        val checked = when {
+            existing != null && existing.length == length && existing.lastModified == lastModified -> existing
+            else -> {
+                val contentHash = contentHash(jar) ?: return null
+                JarClasses(length, lastModified, contentHash).apply {
+                    if (existing != null && existing.contentHash == contentHash) {
+                        classes = existing.classes
+                    }
+                }
+            }
+        }
+
+        checked.checkedRoot = WeakReference(root)
+        jars[path] = checked
+        return checked
+    }
+
+    private fun contentHash(jar: File): Long? {
+        try {
+            ZipFile(jar).use { zip ->
+                var hash = 0L
+                for (entry in zip.entries()) {
+                    hash = hash * 31 + entry.name.hashCode()
+                    hash = hash * 31 + entry.size
+                    hash = hash * 31 + entry.crc
+                }
+                return hash
+            }
+        }
+        catch (e: IOException) {
+            return null
+        }
+    }
+
+    companion object {
+        private val NOT_KOTLIN_CLASS = Any()
+    }
+}
@@ -44,6 +44,9 @@ class KotlinBinaryClassCache : Disposable {
         }
     }
 
+    // lives as long as the application environment, i.e. between compilations if the environment is kept
+    private val jarClasses = JarKotlinClassCache()
+
     override fun dispose() {
         // This is only relevant for tests. We create a new instance of Application for each test, and so a new instance of this service is
         // also created for each test. However all tests share the same event dispatch thread, which would collect all instances of this
@@ -62,12 +65,19 @@ class KotlinBinaryClassCache : Disposable {
                 return requestCache.virtualFileKotlinClass
             }
 
-            val aClass = ApplicationManager.getApplication().runReadAction(Computable {
-                //noinspection deprecation
-                VirtualFileKotlinClass.create(file, fileContent)
-            })
+            val aClass = service.jarClasses.getOrCreate(file) {
+                ApplicationManager.getApplication().runReadAction(Computable {
+                    //noinspection deprecation
+                    VirtualFileKotlinClass.create(file, fileContent)
+                })
+            }
 
             return requestCache.cache(file, aClass)
         }
+
+        fun clearJarClasses() {
+            if (ApplicationManager.getApplication() == null) return
+            ServiceManager.getService(KotlinBinaryClassCache::class.java)?.jarClasses?.clear()
+        }
     }
 }
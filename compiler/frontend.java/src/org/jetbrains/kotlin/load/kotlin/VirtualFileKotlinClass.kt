@@ -26,7 +26,7 @@ import org.jetbrains.kotlin.utils.rethrow
 import java.io.FileNotFoundException
 import java.io.IOException
 
-class VirtualFileKotlinClass private constructor(
+class VirtualFileKotlinClass internal constructor(
         val file: VirtualFile,
         className: ClassId,
         classHeader: KotlinClassHeader,
@@ -0,0 +1,16 @@
+fun foo(): Long =
+        intArrayOf(1000, 2000, 3000).asPrimitiveSequence()
+                .filter { it > 1500 }
+                .map { it * 1000 }
+                .fold(0) { acc, e -> acc + e }
+                .toLong()
+
+fun bar(): Double? =
+        doubleArrayOf(1000.0, 2000.0).asPrimitiveSequence()
+                .map { it / 3 }
+                .filter { it > 500.0 }
+                .max()
+
+// 0 valueOf
+// 0 Value\s\(\)
+// 0 kotlin/jvm/functions/Function
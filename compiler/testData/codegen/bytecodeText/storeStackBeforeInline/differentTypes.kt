@@ -6,8 +6,8 @@ fun foo() : String {
     return foobar(1, 2L, bar(3, 4L, 5.toByte(), "6"), 7.toByte())
 }
 
-// 3 ISTORE
-// 7 ILOAD
+// 2 ISTORE
+// 6 ILOAD
 // 2 ASTORE
 // 6 ALOAD
 // 2 LSTORE
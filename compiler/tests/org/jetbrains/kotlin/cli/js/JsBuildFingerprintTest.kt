@@ -0,0 +1,126 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.cli.js
+
+import org.jetbrains.kotlin.cli.AbstractCliTest
+import org.jetbrains.kotlin.cli.common.ExitCode
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.File
+
+class JsBuildFingerprintTest : TestCaseWithTmpdir() {
+    private val librarySource by lazy { File(tmpdir, "lib.kt") }
+    private val source by lazy { File(tmpdir, "main.kt") }
+    private val libraryDirectory by lazy { File(tmpdir, "lib") }
+    private val libraryJs by lazy { File(libraryDirectory, "lib.js") }
+    private val cache by lazy { File(tmpdir, "main.fingerprint") }
+    private val output by lazy { File(tmpdir, "out/main.js") }
+
+    override fun setUp() {
+        super.setUp()
+        librarySource.writeText("package lib\n\ninline fun value(): Int = 1\n")
+        source.writeText("package main\n\nfun box(): Int = lib.value()\n")
+        compileLibrary()
+    }
+
+    fun testSecondCompilationIsSkipped() {
+        assertCompiled(compile(libraryDirectory))
+        assertSkipped(compile(libraryDirectory))
+    }
+
+    fun testChangedSourceIsCompiled() {
+        assertCompiled(compile(libraryDirectory))
+        source.writeText("package main\n\nfun box(): Int = lib.value() + 1\n")
+        assertCompiled(compile(libraryDirectory))
+        assertSkipped(compile(libraryDirectory))
+    }
+
+    fun testChangedLibraryIsCompiled() {
+        assertCompiled(compile(libraryDirectory))
+        librarySource.writeText("package lib\n\ninline fun value(): Int = 2\n")
+        compileLibrary()
+        assertCompiled(compile(libraryDirectory))
+    }
+
+    // size and modification time of a directory don't change when a file inside it is rewritten
+    fun testChangedFileOfDirectoryLibraryIsCompiled() {
+        assertCompiled(compile(libraryDirectory))
+        libraryJs.appendText("\n// changed\n")
+        assertCompiled(compile(libraryDirectory))
+    }
+
+    // bodies of inline functions are read from the .js file next to the .meta.js library
+    fun testChangedJsFileOfMetaJsLibraryIsCompiled() {
+        val metaJs = File(libraryDirectory, "lib.meta.js")
+        assertCompiled(compile(metaJs))
+        assertSkipped(compile(metaJs))
+        libraryJs.appendText("\n// changed\n")
+        assertCompiled(compile(metaJs))
+    }
+
+    // the library is hashed again, but its contents are the same
+    fun testTouchedLibraryIsSkipped() {
+        assertCompiled(compile(libraryDirectory))
+        libraryJs.setLastModified(libraryJs.lastModified() + 10000)
+        assertSkipped(compile(libraryDirectory))
+    }
+
+    fun testChangedOutputIsCompiled() {
+        assertCompiled(compile(libraryDirectory))
+        val text = output.readText()
+        output.writeText(text.replace("box", "xob"))
+        assertEquals(text.length.toLong(), output.length())
+        assertCompiled(compile(libraryDirectory))
+        assertEquals(text, output.readText())
+        assertSkipped(compile(libraryDirectory))
+    }
+
+    fun testMalformedCacheIsIgnored() {
+        assertCompiled(compile(libraryDirectory))
+        cache.appendText("x\tmalformed\n")
+        assertCompiled(compile(libraryDirectory))
+        assertSkipped(compile(libraryDirectory))
+    }
+
+    private fun compileLibrary() {
+        val (output, exitCode) = AbstractCliTest.executeCompilerGrabOutput(K2JSCompiler(), listOf(
+                librarySource.path, "-no-stdlib", "-meta-info", "-output", libraryJs.path
+        ))
+        assertEquals(output, ExitCode.OK, exitCode)
+    }
+
+    private fun compile(library: File): String {
+        val (output, exitCode) = AbstractCliTest.executeCompilerGrabOutput(K2JSCompiler(), listOf(
+                source.path, "-no-stdlib", "-verbose", "-library-files", library.path,
+                "-Xincremental-cache", cache.path, "-output", output.path
+        ))
+        assertEquals(output, ExitCode.OK, exitCode)
+        return output
+    }
+
+    private fun assertCompiled(output: String) {
+        assertFalse("Compilation is skipped:\n$output", output.contains(SKIPPED_MESSAGE))
+    }
+
+    private fun assertSkipped(output: String) {
+        assertTrue("Compilation is not skipped:\n$output", output.contains(SKIPPED_MESSAGE))
+    }
+
+    companion object {
+        private val SKIPPED_MESSAGE = "compilation is skipped"
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.cli.js
+
+import org.jetbrains.kotlin.cli.AbstractCliTest
+import org.jetbrains.kotlin.cli.common.ExitCode
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.File
+
+class JsParallelTranslationTest : TestCaseWithTmpdir() {
+    fun testParallelTranslationIsDeterministic() {
+        val sources = (1..PACKAGES).map { writePackage(it) }
+
+        val expected = compile(sources, 1)
+        repeat(5) {
+            val actual = compile(sources, 4)
+            assertEquals("Diagnostics differ", expected.first, actual.first)
+            assertEquals("Generated code differs", expected.second, actual.second)
+        }
+    }
+
+    fun testClashingDeclarationsAreNamedDeterministically() {
+        val sources = (1..PACKAGES).flatMap { writePackageWithClashingDeclarations(it) }
+
+        val expected = compile(sources, 4)
+        repeat(5) {
+            val actual = compile(sources, 4)
+            assertEquals("Diagnostics differ", expected.first, actual.first)
+            assertEquals("Generated code differs", expected.second, actual.second)
+        }
+    }
+
+    // Every package declares names which clash with the names of other packages and refers to declarations of the previous package,
+    // so that fresh names and qualifiers are generated concurrently
+    private fun writePackage(index: Int): File {
+        val previous = if (index > 1) "p${index - 1}" else null
+        val file = File(tmpdir, "p$index.kt")
+        file.writeText("""
+            package p$index
+
+            ${if (previous != null) "import $previous.*" else ""}
+
+            interface Shape { fun area(): Int }
+
+            class Square(val side: Int) : Shape {
+                override fun area(): Int = side * side
+            }
+
+            object Registry {
+                var count = 0
+                fun register(shape: Shape): Int { count++; return shape.area() }
+            }
+
+            inline fun twice(f: () -> Int): Int = f() + f()
+
+            fun compute(x: Int): Int {
+                val unused = x
+                val square = Square(x)
+                val local = object : Shape { override fun area(): Int = x + 1 }
+                return twice { Registry.register(square) + local.area() } ${if (previous != null) "+ $previous.compute(x) + $previous.twice { x }" else ""}
+            }
+
+            fun box(): String = if (compute($index) > 0) "OK" else "fail"
+        """.trimIndent())
+        return file
+    }
+
+    // Both files of a package declare private functions with the same name, which get fresh names, and other declarations
+    // which are named when the next package refers to them: overloads, secondary constructors, properties and extension properties
+    private fun writePackageWithClashingDeclarations(index: Int): List<File> {
+        val previous = "p${index - 1}"
+        val previousCalls =
+                if (index > 1) "+ $previous.overloaded(2) + $previous.overloaded(\"b\") + $previous.Point(2, 3).sum() + $previous.Point(4).moves"
+                else ""
+
+        val first = File(tmpdir, "p${index}a.kt")
+        first.writeText("""
+            package p$index
+
+            private fun helper(x: Int): Int = x + 1
+
+            class Point(val x: Int, val y: Int) {
+                constructor(x: Int) : this(x, x)
+
+                var moves = 0
+
+                private fun scale(k: Int): Int = x * k
+
+                private fun scale(k: Int, l: Int): Int = scale(k) + y * l
+
+                fun sum(): Int = scale(2) + scale(1, 1) + helper(moves)
+            }
+
+            val Int.doubled: Int get() = this * 2
+
+            fun overloaded(x: Int): Int = helper(x).doubled
+
+            fun overloaded(x: String): Int = x.length
+        """.trimIndent())
+
+        val second = File(tmpdir, "p${index}b.kt")
+        second.writeText("""
+            package p$index
+
+            private fun helper(x: Int): Int = x + 2
+
+            val String.doubled: Int get() = length * 2
+
+            fun useClashing(): Int = helper(1) + "ab".doubled + Point(1).sum() + { helper(2) }()
+
+            fun box(): String {
+                val result = overloaded(1) + overloaded("a") + useClashing() $previousCalls
+                return if (result > 0) "OK" else "fail"
+            }
+        """.trimIndent())
+
+        return listOf(first, second)
+    }
+
+    private fun compile(sources: List<File>, threads: Int): Pair<String, String> {
+        val output = File(tmpdir, "out$threads/out.js")
+        val (compilerOutput, exitCode) = AbstractCliTest.executeCompilerGrabOutput(K2JSCompiler(), sources.map { it.path } + listOf(
+                "-no-stdlib", "-Xtranslation-threads", threads.toString(), "-output", output.path
+        ))
+        assertEquals(compilerOutput, ExitCode.OK, exitCode)
+        return Pair(compilerOutput.replace(output.path, "<output>"), output.readText())
+    }
+
+    companion object {
+        private val PACKAGES = 8
+    }
+}
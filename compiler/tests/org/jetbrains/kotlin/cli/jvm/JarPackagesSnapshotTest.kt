@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.cli.jvm
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.cli.jvm.compiler.JarPackagesSnapshot
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import java.io.File
+
+class JarPackagesSnapshotTest : TestCase() {
+    private val packages = setOf("", "META-INF", "org", "org/jetbrains", "org/jetbrains/kotlin", "org/jetbrains/kotlin/test", "test")
+
+    fun testSnapshotIsReusedAfterRestart() {
+        val tmpdir = KotlinTestUtils.tmpDirForTest(this)
+        val jar = File(tmpdir, "lib.jar").apply { writeText("not really a jar") }
+        val storageDir = File(tmpdir, "snapshot")
+
+        assertEquals(packages, JarPackagesSnapshot(storageDir).getOrCompute(jar) { packages })
+
+        val loaded = JarPackagesSnapshot(storageDir).getOrCompute(jar) { fail("Packages should be loaded from the snapshot"); setOf<String>() }
+        assertEquals(packages, loaded)
+    }
+
+    fun testChangedJarIsRescanned() {
+        val tmpdir = KotlinTestUtils.tmpDirForTest(this)
+        val jar = File(tmpdir, "lib.jar").apply { writeText("not really a jar") }
+        val snapshot = JarPackagesSnapshot(File(tmpdir, "snapshot"))
+
+        snapshot.getOrCompute(jar) { packages }
+
+        jar.writeText("not really a jar, but a bigger one")
+        assertEquals(setOf("", "other"), snapshot.getOrCompute(jar) { setOf("", "other") })
+        assertEquals(setOf("", "other"), JarPackagesSnapshot(File(tmpdir, "snapshot")).getOrCompute(jar) { setOf<String>() })
+    }
+}
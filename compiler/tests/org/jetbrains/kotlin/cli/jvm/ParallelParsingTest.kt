@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.cli.jvm
+
+import com.intellij.psi.impl.DebugUtil
+import org.jetbrains.kotlin.cli.AbstractCliTest
+import org.jetbrains.kotlin.cli.jvm.compiler.EnvironmentConfigFiles
+import org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment
+import org.jetbrains.kotlin.cli.jvm.config.JVMConfigurationKeys
+import org.jetbrains.kotlin.config.addKotlinSourceRoot
+import org.jetbrains.kotlin.test.ConfigurationKind
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import org.jetbrains.kotlin.test.TestJdkKind
+import java.io.File
+
+class ParallelParsingTest : TestCaseWithTmpdir() {
+    private val sourceDir by lazy { File(tmpdir, "src") }
+
+    override fun setUp() {
+        super.setUp()
+        for (index in 1..FILES) {
+            val packageDir = File(sourceDir, "p$index").apply { mkdirs() }
+            File(packageDir, "a$index.kt").writeText("""
+                package p$index
+
+                class A$index(val x: Int) {
+                    fun twice() = run { x * 2 }
+                }
+
+                fun f$index(a: A$index): String = "${'$'}{a.x} ${'$'}{a.twice()}"
+            """.trimIndent())
+        }
+        // files with syntax errors, whose diagnostics are reported for the parsed trees
+        File(sourceDir, "broken1.kt").writeText("package broken\n\nfun g(: Int = \n\nclass {\n")
+        File(sourceDir, "broken2.kt").writeText("package broken\n\nval x = (1 + \n")
+    }
+
+    fun testParallelParsingProducesSameFiles() {
+        val expected = parseFiles(1)
+        assertEquals(FILES + 2, expected.size)
+        repeat(5) {
+            assertEquals(expected, parseFiles(4))
+        }
+    }
+
+    fun testParallelParsingReportsSameDiagnostics() {
+        val expected = compile(1)
+        assertTrue("Syntax errors are not reported:\n$expected", expected.contains("error:"))
+        repeat(5) {
+            assertEquals(expected, compile(4))
+        }
+    }
+
+    private fun parseFiles(threads: Int): List<Pair<String, String>> {
+        val configuration = KotlinTestUtils.compilerConfigurationForTests(ConfigurationKind.JDK_ONLY, TestJdkKind.MOCK_JDK)
+        configuration.addKotlinSourceRoot(sourceDir.path)
+        configuration.put(JVMConfigurationKeys.PARSER_THREADS, threads)
+        val environment = KotlinCoreEnvironment.createForTests(testRootDisposable, configuration, EnvironmentConfigFiles.JVM_CONFIG_FILES)
+        return environment.getSourceFiles().map { file -> Pair(file.virtualFile.path, DebugUtil.psiToString(file, false)) }
+    }
+
+    private fun compile(threads: Int): String {
+        return AbstractCliTest.executeCompilerGrabOutput(K2JVMCompiler(), listOf(
+                sourceDir.path, "-Xparser-threads", threads.toString(), "-d", File(tmpdir, "out$threads").path
+        )).first
+    }
+
+    companion object {
+        private val FILES = 16
+    }
+}
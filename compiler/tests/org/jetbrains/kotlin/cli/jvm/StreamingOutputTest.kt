@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.cli.jvm
+
+import org.jetbrains.kotlin.cli.AbstractCliTest
+import org.jetbrains.kotlin.cli.common.ExitCode
+import org.jetbrains.kotlin.test.TestCaseWithTmpdir
+import java.io.File
+import java.util.*
+import java.util.jar.JarFile
+
+// Classes are written to the output jar or directory as soon as their source file is generated
+class StreamingOutputTest : TestCaseWithTmpdir() {
+    private val sourceDir by lazy { File(tmpdir, "src") }
+
+    override fun setUp() {
+        super.setUp()
+        for (index in 1..FILES) {
+            File(sourceDir, "a$index.kt").apply { parentFile.mkdirs() }.writeText("""
+                package p$index
+
+                class A$index(val x: Int) {
+                    val f = { y: Int -> x + y }
+                }
+
+                fun f$index(): Int = A$index($index).f($index)
+            """.trimIndent())
+        }
+        File(sourceDir, "main.kt").writeText("package app\n\nfun main(args: Array<String>) {\n    println(p1.f1())\n}\n")
+    }
+
+    fun testJarContainsSameClassesAsDirectory() {
+        val directory = compileToDirectory()
+        assertTrue("Module file is missing: ${directory.keys}", directory.containsKey("META-INF/main.kotlin_module"))
+        val jar = compileToJar("out.jar")
+
+        assertEquals(directory, jarEntries(jar).filterKeys { !it.startsWith("META-INF/MANIFEST") })
+    }
+
+    fun testJarWithParallelCodegenContainsSameClassesAsDirectory() {
+        val directory = compileToDirectory()
+        val jar = compileToJar("out.jar", "-Xbackend-threads", "4")
+
+        assertEquals(directory, jarEntries(jar).filterKeys { !it.startsWith("META-INF/MANIFEST") })
+    }
+
+    fun testManifestIsFirstEntry() {
+        val jar = compileToJar("out.jar")
+
+        JarFile(jar).use { jarFile ->
+            val manifest = jarFile.manifest
+            assertNotNull("Manifest is missing", manifest)
+            assertEquals("1.0", manifest.mainAttributes.getValue("Manifest-Version"))
+            assertEquals("JetBrains Kotlin", manifest.mainAttributes.getValue("Created-By"))
+            assertEquals("app.MainKt", manifest.mainAttributes.getValue("Main-Class"))
+        }
+
+        val names = jarEntries(jar).keys.toList()
+        assertEquals(listOf("META-INF/MANIFEST.MF"), names.take(1))
+        assertTrue("Module file is missing: $names", names.contains("META-INF/main.kotlin_module"))
+    }
+
+    fun testRuntimeIsIncludedAfterGeneratedClasses() {
+        val names = jarEntries(compileToJar("out.jar", "-include-runtime")).keys.toList()
+
+        val firstRuntimeEntry = names.indexOfFirst { it.startsWith("kotlin/") }
+        assertTrue("Runtime is not included: $names", firstRuntimeEntry >= 0)
+        assertTrue("Generated classes follow the runtime: $names",
+                   names.subList(firstRuntimeEntry, names.size).none { it.startsWith("p1/") || it.startsWith("app/") })
+    }
+
+    fun testJarIsDeletedOnCompilationError() {
+        File(sourceDir, "broken.kt").writeText("package broken\n\nfun g(): Int = \"\"\n")
+        val jar = File(tmpdir, "out.jar")
+
+        val (output, exitCode) = AbstractCliTest.executeCompilerGrabOutput(K2JVMCompiler(), listOf(sourceDir.path, "-d", jar.path))
+        assertEquals(output, ExitCode.COMPILATION_ERROR, exitCode)
+        assertFalse("Partial jar is left after a failed compilation", jar.exists())
+    }
+
+    private fun compileToDirectory(): Map<String, List<Byte>> {
+        val outputDir = File(tmpdir, "out")
+        compile(outputDir)
+        return outputDir.walkTopDown().filter { it.isFile }.associateTo(TreeMap()) { file ->
+            Pair(file.relativeTo(outputDir).path.replace(File.separatorChar, '/'), file.readBytes().toList())
+        }
+    }
+
+    private fun compileToJar(name: String, vararg extraArguments: String): File {
+        val jar = File(tmpdir, name)
+        compile(jar, *extraArguments)
+        return jar
+    }
+
+    private fun compile(destination: File, vararg extraArguments: String) {
+        val (output, exitCode) = AbstractCliTest.executeCompilerGrabOutput(K2JVMCompiler(), listOf(
+                sourceDir.path, "-d", destination.path
+        ) + extraArguments)
+        assertEquals(output, ExitCode.OK, exitCode)
+    }
+
+    // entries in the order of the jar, with their contents
+    private fun jarEntries(jar: File): Map<String, List<Byte>> {
+        val result = LinkedHashMap<String, List<Byte>>()
+        JarFile(jar).use { jarFile ->
+            for (entry in jarFile.entries()) {
+                result[entry.name] = jarFile.getInputStream(entry).use { it.readBytes() }.toList()
+            }
+        }
+        return result
+    }
+
+    companion object {
+        private val FILES = 8
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.codegen
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.codegen.inline.InlineCodegenUtil
+import org.jetbrains.kotlin.codegen.inline.InlineMethodNodeCache
+import org.jetbrains.kotlin.codegen.inline.SMAPAndMethodNode
+import org.jetbrains.kotlin.name.ClassId
+import org.jetbrains.kotlin.name.FqName
+import org.jetbrains.org.objectweb.asm.ClassWriter
+import org.jetbrains.org.objectweb.asm.Label
+import org.jetbrains.org.objectweb.asm.Opcodes.*
+import org.jetbrains.org.objectweb.asm.commons.Method
+
+class InlineMethodNodeCacheTest : TestCase() {
+    private val classId = ClassId.topLevel(FqName("test.Foo"))
+    private val foo = Method("foo", "(I)I")
+    private val bar = Method("bar", "(I)I")
+    private val classData = generateClass()
+
+    private var parsed = 0
+
+    private fun parse(method: Method): SMAPAndMethodNode? {
+        parsed++
+        return InlineCodegenUtil.getMethodNode(classData, method.name, method.descriptor, classId)
+    }
+
+    fun testClassIsParsedOnce() {
+        val cache = InlineMethodNodeCache()
+        repeat(3) { assertNotNull(cache.getOrCompute(classId, foo) { parse(foo) }) }
+
+        assertEquals(1, parsed)
+        assertEquals(2, cache.hitCount)
+        assertEquals(1, cache.missCount)
+    }
+
+    fun testCopiesAreIndependent() {
+        val cache = InlineMethodNodeCache()
+        val first = cache.getOrCompute(classId, foo) { parse(foo) }!!.node
+        val size = first.instructions.size()
+        first.instructions.clear()
+        first.tryCatchBlocks.clear()
+
+        val second = cache.getOrCompute(classId, foo) { parse(foo) }!!.node
+        val third = cache.getOrCompute(classId, foo) { parse(foo) }!!.node
+        assertEquals(size, second.instructions.size())
+        assertEquals(1, second.tryCatchBlocks.size)
+        assertNotSame(second.instructions.first, third.instructions.first)
+
+        val tryCatchBlock = second.tryCatchBlocks.single()
+        assertTrue(second.instructions.contains(tryCatchBlock.start))
+        assertTrue(second.instructions.contains(tryCatchBlock.handler))
+        assertFalse(third.instructions.contains(tryCatchBlock.start))
+        assertTrue(second.instructions.contains(second.localVariables.single().end))
+    }
+
+    fun testLeastRecentlyUsedIsEvicted() {
+        val cache = InlineMethodNodeCache(maxSize = 1)
+        cache.getOrCompute(classId, foo) { parse(foo) }
+        cache.getOrCompute(classId, bar) { parse(bar) }
+        cache.getOrCompute(classId, bar) { parse(bar) }
+        cache.getOrCompute(classId, foo) { parse(foo) }
+
+        assertEquals(3, parsed)
+        assertEquals(1, cache.hitCount)
+    }
+
+    fun testMissingMethodIsNotCached() {
+        val cache = InlineMethodNodeCache()
+        val missing = Method("missing", "()V")
+        assertNull(cache.getOrCompute(classId, missing) { parse(missing) })
+        assertNull(cache.getOrCompute(classId, missing) { parse(missing) })
+
+        assertEquals(2, parsed)
+        assertEquals(0, cache.hitCount)
+    }
+
+    private fun generateClass(): ByteArray {
+        val writer = ClassWriter(ClassWriter.COMPUTE_MAXS)
+        writer.visit(V1_6, ACC_PUBLIC, "test/Foo", null, "java/lang/Object", null)
+        writer.visitSource("Foo.kt", null)
+
+        for (method in listOf(foo, bar)) {
+            val mv = writer.visitMethod(ACC_PUBLIC or ACC_STATIC, method.name, method.descriptor, null, null)
+            val start = Label()
+            val end = Label()
+            val handler = Label()
+            mv.visitCode()
+            mv.visitTryCatchBlock(start, end, handler, "java/lang/Exception")
+            mv.visitLabel(start)
+            mv.visitLineNumber(1, start)
+            mv.visitVarInsn(ILOAD, 0)
+            mv.visitLabel(end)
+            mv.visitInsn(IRETURN)
+            mv.visitLabel(handler)
+            mv.visitLineNumber(2, handler)
+            mv.visitInsn(ICONST_0)
+            mv.visitInsn(IRETURN)
+            mv.visitLocalVariable("x", "I", null, start, handler, 0)
+            mv.visitMaxs(0, 0)
+            mv.visitEnd()
+        }
+
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.codegen.inline.ReifiedTypeInliner
+import org.jetbrains.kotlin.codegen.intrinsics.IntrinsicMethods
+import org.jetbrains.kotlin.codegen.optimization.*
+import org.jetbrains.kotlin.codegen.optimization.transformer.MethodTransformer
+import org.jetbrains.org.objectweb.asm.Label
+import org.jetbrains.org.objectweb.asm.Opcodes.*
+import org.jetbrains.org.objectweb.asm.tree.MethodNode
+import org.jetbrains.org.objectweb.asm.tree.TypeInsnNode
+import org.jetbrains.org.objectweb.asm.util.Printer
+
+class OptimizationPipelineTest : TestCase() {
+    fun testCheckcastToKnownType() {
+        val result = optimize("()Ljava/lang/Object;") {
+            visitTypeInsn(NEW, "Foo")
+            visitInsn(DUP)
+            visitMethodInsn(INVOKESPECIAL, "Foo", "<init>", "()V", false)
+            visitTypeInsn(CHECKCAST, "Foo")
+            visitTypeInsn(CHECKCAST, "java/lang/Object")
+            visitTypeInsn(CHECKCAST, "Bar")
+            visitInsn(ARETURN)
+        }
+        assertEquals(listOf("NEW", "DUP", "INVOKESPECIAL", "CHECKCAST Bar", "ARETURN"), result)
+    }
+
+    fun testCheckcastAfterReifiedMarkerIsKept() {
+        val result = optimize("(Ljava/lang/Object;)Ljava/lang/Object;") {
+            visitVarInsn(ALOAD, 0)
+            visitInsn(ICONST_1)
+            visitLdcInsn("T")
+            visitMethodInsn(INVOKESTATIC, IntrinsicMethods.INTRINSICS_CLASS_NAME, ReifiedTypeInliner.REIFIED_OPERATION_MARKER_METHOD_NAME,
+                            "(ILjava/lang/String;)V", false)
+            visitTypeInsn(CHECKCAST, "java/lang/Object")
+            visitInsn(ARETURN)
+        }
+        assertEquals(listOf("ALOAD", "ICONST_1", "LDC", "INVOKESTATIC", "CHECKCAST java/lang/Object", "ARETURN"), result)
+    }
+
+    fun testConstantInSyntheticVariable() {
+        val result = optimize("()I") {
+            visitInsn(ICONST_2)
+            visitVarInsn(ISTORE, 0)
+            visitVarInsn(ILOAD, 0)
+            visitInsn(ICONST_3)
+            visitInsn(IMUL)
+            visitInsn(IRETURN)
+        }
+        assertEquals(listOf("BIPUSH", "IRETURN"), result)
+    }
+
+    fun testConstantInVisibleVariableIsNotPropagated() {
+        val result = optimize("()I") {
+            val start = Label()
+            val end = Label()
+            visitInsn(ICONST_2)
+            visitVarInsn(ISTORE, 0)
+            visitLabel(start)
+            visitVarInsn(ILOAD, 0)
+            visitInsn(IRETURN)
+            visitLabel(end)
+            visitLocalVariable("x", "I", null, start, end, 0)
+        }
+        assertEquals(listOf("ICONST_2", "ISTORE", "ILOAD", "IRETURN"), result)
+    }
+
+    fun testConstantMergedFromBranches() {
+        val result = optimize("(Z)I") {
+            val otherwise = Label()
+            val end = Label()
+            visitVarInsn(ILOAD, 0)
+            visitJumpInsn(IFEQ, otherwise)
+            visitInsn(ICONST_1)
+            visitVarInsn(ISTORE, 1)
+            visitJumpInsn(GOTO, end)
+            visitLabel(otherwise)
+            visitInsn(ICONST_2)
+            visitVarInsn(ISTORE, 1)
+            visitLabel(end)
+            visitVarInsn(ILOAD, 1)
+            visitInsn(IRETURN)
+        }
+        assertEquals(listOf("ILOAD", "IFEQ", "ICONST_1", "ISTORE", "GOTO", "ICONST_2", "ISTORE", "ILOAD", "IRETURN"), result)
+    }
+
+    fun testDivisionByZeroIsNotFolded() {
+        val result = optimize("()I") {
+            visitInsn(ICONST_1)
+            visitInsn(ICONST_0)
+            visitInsn(IDIV)
+            visitInsn(IRETURN)
+        }
+        assertEquals(listOf("ICONST_1", "ICONST_0", "IDIV", "IRETURN"), result)
+    }
+
+    fun testStoreFollowedByLoad() {
+        val result = optimize("()Ljava/lang/String;") {
+            visitMethodInsn(INVOKESTATIC, "Foo", "foo", "()Ljava/lang/String;", false)
+            visitVarInsn(ASTORE, 0)
+            visitVarInsn(ALOAD, 0)
+            visitInsn(ARETURN)
+        }
+        assertEquals(listOf("INVOKESTATIC", "ARETURN"), result)
+    }
+
+    fun testDeadStore() {
+        val result = optimize("()V") {
+            visitMethodInsn(INVOKESTATIC, "Foo", "foo", "()J", false)
+            visitVarInsn(LSTORE, 0)
+            visitInsn(RETURN)
+        }
+        assertEquals(listOf("INVOKESTATIC", "POP2", "RETURN"), result)
+    }
+
+    fun testNotNullAssertionOnNewObject() {
+        val result = optimize("()Ljava/lang/Object;") {
+            visitTypeInsn(NEW, "Foo")
+            visitInsn(DUP)
+            visitMethodInsn(INVOKESPECIAL, "Foo", "<init>", "()V", false)
+            visitInsn(DUP)
+            visitLdcInsn("foo")
+            visitMethodInsn(INVOKESTATIC, IntrinsicMethods.INTRINSICS_CLASS_NAME, "checkExpressionValueIsNotNull",
+                            "(Ljava/lang/Object;Ljava/lang/String;)V", false)
+            visitInsn(ARETURN)
+        }
+        assertEquals(listOf("NEW", "DUP", "INVOKESPECIAL", "ARETURN"), result)
+    }
+
+    fun testNonEscapingRef() {
+        val result = optimize("()I") {
+            createIntRef()
+            useIntRef()
+        }
+        assertEquals(listOf("ICONST_3", "IRETURN"), result)
+    }
+
+    fun testNonEscapingRefInLocalVariableTable() {
+        val methodNode = transform("()I") {
+            val start = Label()
+            val end = Label()
+            createIntRef()
+            visitLabel(start)
+            useIntRef()
+            visitLabel(end)
+            visitLocalVariable("x", "L$INT_REF;", null, start, end, 0)
+        }
+        assertEquals(listOf("ICONST_0", "ISTORE", "ICONST_1", "ISTORE", "ILOAD", "ICONST_2", "IADD", "ISTORE", "ILOAD", "IRETURN"),
+                     methodNode.opcodes())
+
+        val localVariable = methodNode.localVariables.single()
+        assertEquals("I", localVariable.desc)
+        assertEquals(methodNode.maxLocals - 1, localVariable.index)
+    }
+
+    fun testNonEscapingObjectRefInLocalVariableTable() {
+        val localVariable = transformObjectRef("L$OBJECT_REF<Ljava/lang/String;>;").localVariables.single()
+        assertEquals("Ljava/lang/String;", localVariable.desc)
+        assertNull(localVariable.signature)
+    }
+
+    fun testNonEscapingObjectRefWithoutSignatureInLocalVariableTable() {
+        val localVariable = transformObjectRef(null).localVariables.single()
+        assertEquals("Ljava/lang/Object;", localVariable.desc)
+    }
+
+    fun testNonEscapingObjectRefWithGenericElementInLocalVariableTable() {
+        val localVariable = transformObjectRef("L$OBJECT_REF<Ljava/util/List<Ljava/lang/String;>;>;").localVariables.single()
+        assertEquals("Ljava/lang/Object;", localVariable.desc)
+    }
+
+    fun testEscapingRef() {
+        val result = optimize("()I") {
+            createIntRef()
+            visitVarInsn(ALOAD, 0)
+            visitMethodInsn(INVOKESTATIC, "Foo", "foo", "(L$INT_REF;)V", false)
+            visitVarInsn(ALOAD, 0)
+            visitFieldInsn(GETFIELD, INT_REF, "element", "I")
+            visitInsn(IRETURN)
+        }
+        assertEquals(listOf("NEW", "DUP", "INVOKESPECIAL", "ASTORE", "ALOAD", "INVOKESTATIC", "ALOAD", "GETFIELD", "IRETURN"), result)
+    }
+
+    fun testPipelineOrder() {
+        val inserted = object : MethodTransformer() {
+            override fun transform(internalClassName: String, methodNode: MethodNode) {}
+        }
+        val pipeline = OptimizationPipeline.DEFAULT
+                .withTransformerBefore(DeadCodeEliminationMethodTransformer::class.java, inserted)
+                .withoutTransformer(RedundantGotoMethodTransformer::class.java)
+        val transformers: List<Class<*>> = pipeline.transformers.map { it.javaClass }
+
+        assertEquals(OptimizationPipeline.DEFAULT.transformers.size, transformers.size)
+        assertEquals(transformers.indexOf(DeadCodeEliminationMethodTransformer::class.java) - 1, transformers.indexOf(inserted.javaClass))
+        assertFalse(RedundantGotoMethodTransformer::class.java in transformers)
+
+        try {
+            pipeline.withTransformerAfter(RedundantGotoMethodTransformer::class.java, inserted)
+            fail()
+        }
+        catch (e: IllegalArgumentException) {
+            // expected
+        }
+    }
+
+    private fun optimize(desc: String, body: MethodNode.() -> Unit): List<String> = transform(desc, body).opcodes()
+
+    private fun transform(desc: String, body: MethodNode.() -> Unit): MethodNode {
+        val methodNode = MethodNode(ACC_PUBLIC or ACC_STATIC, "test", desc, null, null)
+        methodNode.body()
+        methodNode.visitMaxs(4, 4)
+        OptimizationPipeline.DEFAULT.transform("Test", methodNode)
+        return methodNode
+    }
+
+    private fun MethodNode.opcodes(): List<String> =
+            instructions.toArray().filter { it.opcode >= 0 }.map {
+                val opcode = Printer.OPCODES[it.opcode]
+                if (it.opcode == CHECKCAST) "$opcode ${(it as TypeInsnNode).desc}" else opcode
+            }
+
+    // x = "a"; return x
+    private fun transformObjectRef(signature: String?): MethodNode {
+        val methodNode = transform("()Ljava/lang/String;") {
+            val start = Label()
+            val end = Label()
+            visitTypeInsn(NEW, OBJECT_REF)
+            visitInsn(DUP)
+            visitMethodInsn(INVOKESPECIAL, OBJECT_REF, "<init>", "()V", false)
+            visitVarInsn(ASTORE, 0)
+            visitLabel(start)
+            visitVarInsn(ALOAD, 0)
+            visitLdcInsn("a")
+            visitFieldInsn(PUTFIELD, OBJECT_REF, "element", "Ljava/lang/Object;")
+            visitVarInsn(ALOAD, 0)
+            visitFieldInsn(GETFIELD, OBJECT_REF, "element", "Ljava/lang/Object;")
+            visitTypeInsn(CHECKCAST, "java/lang/String")
+            visitInsn(ARETURN)
+            visitLabel(end)
+            visitLocalVariable("x", "L$OBJECT_REF;", signature, start, end, 0)
+        }
+        assertFalse("Ref is not replaced", methodNode.opcodes().contains("NEW"))
+        return methodNode
+    }
+
+    private fun MethodNode.createIntRef() {
+        visitTypeInsn(NEW, INT_REF)
+        visitInsn(DUP)
+        visitMethodInsn(INVOKESPECIAL, INT_REF, "<init>", "()V", false)
+        visitVarInsn(ASTORE, 0)
+    }
+
+    // x = 1; x += 2; return x
+    private fun MethodNode.useIntRef() {
+        visitVarInsn(ALOAD, 0)
+        visitInsn(ICONST_1)
+        visitFieldInsn(PUTFIELD, INT_REF, "element", "I")
+        visitVarInsn(ALOAD, 0)
+        visitInsn(DUP)
+        visitFieldInsn(GETFIELD, INT_REF, "element", "I")
+        visitInsn(ICONST_2)
+        visitInsn(IADD)
+        visitFieldInsn(PUTFIELD, INT_REF, "element", "I")
+        visitVarInsn(ALOAD, 0)
+        visitFieldInsn(GETFIELD, INT_REF, "element", "I")
+        visitInsn(IRETURN)
+    }
+
+    companion object {
+        private val INT_REF = "kotlin/jvm/internal/Ref\$IntRef"
+        private val OBJECT_REF = "kotlin/jvm/internal/Ref\$ObjectRef"
+    }
+}
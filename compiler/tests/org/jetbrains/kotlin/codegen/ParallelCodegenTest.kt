@@ -0,0 +1,96 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.codegen
+
+import org.jetbrains.kotlin.codegen.state.GenerationState
+import org.jetbrains.kotlin.diagnostics.Severity
+import org.jetbrains.kotlin.psi.KtFile
+import org.jetbrains.kotlin.resolve.lazy.JvmResolveUtil
+import org.jetbrains.kotlin.test.ConfigurationKind
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import java.util.*
+
+class ParallelCodegenTest : CodegenTestCase() {
+    fun testOutputIsSameAsSequential() {
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY)
+        val project = myEnvironment.project
+
+        val files = arrayListOf<KtFile>()
+        files.add(KotlinTestUtils.createFile("inlines.kt", """
+            package inlines
+
+            inline fun twice(f: () -> Int): Int = f() + f()
+
+            // the nested call of 'twice' is the same call element for every package which inlines 'callTwice'
+            inline fun callTwice(x: Int): Int = twice { x }
+        """, project))
+
+        for (i in 1..PACKAGES) {
+            files.add(KotlinTestUtils.createFile("part$i.kt", """
+                package p$i
+
+                fun f$i(): Int = inlines.callTwice($i) + inlines.twice { $i }
+
+                val lambda$i = { x: Int -> inlines.callTwice(x) }
+            """, project))
+            files.add(KotlinTestUtils.createFile("classes$i.kt", """
+                package p$i
+
+                class C$i {
+                    fun g() = inlines.callTwice(f$i())
+
+                    inner class Inner { fun h() = inlines.twice { g() } }
+                }
+
+                object O$i { val x = C$i().g() }
+            """, project))
+        }
+
+        val expected = generate(files, threads = 1)
+        repeat(ITERATIONS) {
+            val actual = generate(files, threads = 4)
+            assertEquals(expected.keys.toList(), actual.keys.toList())
+            for ((path, bytes) in expected) {
+                assertTrue("Class file differs from the sequential output: $path", Arrays.equals(bytes, actual[path]))
+            }
+        }
+    }
+
+    private fun generate(files: List<KtFile>, threads: Int): Map<String, ByteArray> {
+        val analysisResult = JvmResolveUtil.analyzeFilesWithJavaIntegrationAndCheckForErrors(myEnvironment.project, files)
+        val state = GenerationState(
+                myEnvironment.project, ClassBuilderFactories.TEST, analysisResult.moduleDescriptor, analysisResult.bindingContext, files,
+                disableCallAssertions = false, disableParamAssertions = false, codegenThreads = threads
+        )
+        KotlinCodegenFacade.compileCorrectFiles(state, CompilationErrorHandler.THROW_EXCEPTION)
+
+        val errors = state.collectedExtraJvmDiagnostics.all().filter { it.severity == Severity.ERROR }
+        assertTrue("Unexpected errors: " + errors.map { it.factory.name }, errors.isEmpty())
+
+        val result = LinkedHashMap<String, ByteArray>()
+        for (outputFile in state.factory.asList()) {
+            result[outputFile.relativePath] = outputFile.asByteArray()
+        }
+        return result
+    }
+
+    companion object {
+        private val PACKAGES = 8
+        private val ITERATIONS = 5
+    }
+}
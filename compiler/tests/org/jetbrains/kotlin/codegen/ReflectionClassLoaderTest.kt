@@ -16,6 +16,7 @@
 
 package org.jetbrains.kotlin.codegen
 
+import org.jetbrains.kotlin.codegen.forTestCompile.ForTestCompileRuntime
 import org.jetbrains.kotlin.test.ConfigurationKind
 
 class ReflectionClassLoaderTest : CodegenTestCase() {
@@ -76,4 +77,37 @@ class ReflectionClassLoaderTest : CodegenTestCase() {
                 ChildClassLoader(parent)
         )
     }
+
+    fun testEntriesOfCollectedClassLoadersArePurged() {
+        loadFile(prefix + "/differentClassLoaders.kt")
+        val modules = getCachedModules()
+
+        val keys = createModules(modules)
+        assertEquals(2, keys.size)
+
+        for (attempt in 1..20) {
+            if (modules.keys.none { key -> keys.any { it === key } }) return
+            System.gc()
+            Thread.sleep(50)
+            // collected entries are removed when a module for another class loader is created
+            createModules(modules)
+        }
+        fail("Entries of collected class loaders are not removed from the cache of modules")
+    }
+
+    private fun createModules(modules: Map<*, *>): List<Any> {
+        val cl1 = createClassLoader()
+        val cl2 = createClassLoader()
+        doTest(cl1, cl2)
+
+        val names = setOf(cl1.toString(), cl2.toString())
+        return modules.keys.filterNotNull().filter { it.toString() in names }
+    }
+
+    private fun getCachedModules(): Map<*, *> {
+        val facade = ForTestCompileRuntime.runtimeAndReflectJarClassLoader().loadClass("kotlin.reflect.jvm.internal.ModuleByClassLoaderKt")
+        val field = facade.getDeclaredField("moduleByClassLoader")
+        field.isAccessible = true
+        return field.get(null) as Map<*, *>
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.cli.common.CompilationPhase
+import org.jetbrains.kotlin.daemon.common.LatencyHistogram
+import org.jetbrains.kotlin.daemon.common.RemoteOutputStream
+import java.util.concurrent.TimeUnit
+
+class DaemonMetricsTest : TestCase() {
+    fun testHistogram() {
+        val histogram = LatencyHistogram()
+        listOf(0L, 1L, 3L, 3L, 150L, 1000000L).forEach { histogram.add(TimeUnit.MILLISECONDS.toNanos(it)) }
+
+        val snapshot = histogram.snapshot()
+        assertEquals(6, snapshot.count)
+        assertEquals(1000157, snapshot.totalMs)
+        assertEquals(1000000, snapshot.maxMs)
+        assertEquals(LatencyHistogram.BUCKET_UPPER_BOUNDS_MS.size + 1, snapshot.bucketCounts.size)
+        assertEquals(2, snapshot.bucketCounts[0]) // <= 1 ms
+        assertEquals(2, snapshot.bucketCounts[2]) // <= 5 ms
+        assertEquals(1, snapshot.bucketCounts[7]) // <= 200 ms
+        assertEquals(1, snapshot.bucketCounts.last())
+    }
+
+    fun testPhasesAndCompilations() {
+        val collector = DaemonMetricsCollector()
+        collector.phaseFinished(CompilationPhase.ANALYZE, TimeUnit.MILLISECONDS.toNanos(30))
+        collector.phaseFinished(CompilationPhase.ANALYZE, TimeUnit.MILLISECONDS.toNanos(40))
+        collector.compilationFinished(TimeUnit.MILLISECONDS.toNanos(100), usedMemory = 2048)
+        collector.compilationFinished(TimeUnit.MILLISECONDS.toNanos(100), usedMemory = 1024)
+
+        val metrics = collector.getMetrics()
+        assertEquals(2, metrics.compilations)
+        assertEquals(200, metrics.compileTime.totalMs)
+        assertEquals(2, metrics.phases[CompilationPhase.ANALYZE.name]!!.count)
+        assertEquals(0, metrics.phases[CompilationPhase.CODEGEN.name]!!.count)
+        assertEquals(2048, metrics.heapUsedAfterCompilationMax)
+    }
+
+    fun testRpcCalls() {
+        val collector = DaemonMetricsCollector()
+        val written = arrayListOf<Int>()
+        val stream = collector.countingRpcCalls(object : RemoteOutputStream {
+            override fun close() {}
+            override fun write(data: ByteArray, offset: Int, length: Int) { written.add(length) }
+            override fun write(dataByte: Int) { written.add(1) }
+        }, RemoteOutputStream::class.java)
+
+        stream.write(ByteArray(10), 0, 10)
+        stream.write(ByteArray(10), 2, 5)
+        stream.write(0)
+        stream.toString()
+
+        assertEquals(listOf(10, 5, 1), written)
+        val rpcCalls = collector.getMetrics().rpcCalls
+        assertEquals(setOf("RemoteOutputStream.write"), rpcCalls.keys)
+        assertEquals(3, rpcCalls["RemoteOutputStream.write"]!!.count)
+    }
+
+    fun testJson() {
+        val collector = DaemonMetricsCollector()
+        collector.phaseFinished(CompilationPhase.WRITE, TimeUnit.MILLISECONDS.toNanos(7))
+
+        val json = collector.getMetrics().toJson()
+        assertTrue(json, json.startsWith("{\"uptimeMs\":"))
+        assertTrue(json, json.contains("\"WRITE\":{\"count\":1,\"totalMs\":7,\"maxMs\":7,\"buckets\":[{\"leMs\":1,\"count\":0},"))
+        assertTrue(json, json.contains("{\"leMs\":null,\"count\":0}]}"))
+        assertEquals(json.count { it == '{' }, json.count { it == '}' })
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import com.intellij.testFramework.LightVirtualFile
+import junit.framework.TestCase
+import org.jetbrains.kotlin.codegen.inline.SMAPAndMethodNode
+import org.jetbrains.kotlin.codegen.inline.SMAPParser
+import org.jetbrains.kotlin.test.KotlinTestUtils
+import org.jetbrains.org.objectweb.asm.Opcodes
+import org.jetbrains.org.objectweb.asm.commons.Method
+import org.jetbrains.org.objectweb.asm.tree.InsnNode
+import org.jetbrains.org.objectweb.asm.tree.MethodNode
+import java.io.File
+import java.util.*
+
+class JarInlineMethodNodeCacheTest : TestCase() {
+    private val method = Method("foo", "()V")
+
+    private var parsed = 0
+
+    private fun parse(): SMAPAndMethodNode {
+        parsed++
+        val node = MethodNode(Opcodes.ASM5, Opcodes.ACC_PUBLIC or Opcodes.ACC_STATIC, method.name, method.descriptor, null, null)
+        node.instructions.add(InsnNode(Opcodes.RETURN))
+        return SMAPAndMethodNode(node, SMAPParser.parseOrCreateDefault(null, "Foo.kt", "test/Foo", 1, 1))
+    }
+
+    private fun classFile(path: String) = object : LightVirtualFile("Foo.class") {
+        override fun getPath() = path
+    }
+
+    private fun classInJar(jar: File) = classFile(jar.path + "!/test/Foo.class")
+
+    fun testNodesAreReused() {
+        val jar = File(KotlinTestUtils.tmpDirForTest(this), "lib.jar").apply { writeText("not really a jar") }
+        val cache = JarInlineMethodNodeCache()
+
+        val first = cache.getOrCompute(classInJar(jar), method) { parse() }
+        val second = cache.getOrCompute(classInJar(jar), method) { parse() }
+
+        assertSame(first, second)
+        assertEquals(1, parsed)
+        assertEquals(1, cache.hitCount)
+    }
+
+    fun testCopiesOfJarShareNodes() {
+        val tmpdir = KotlinTestUtils.tmpDirForTest(this)
+        val jar = File(tmpdir, "lib.jar").apply { writeText("not really a jar") }
+        val copy = File(tmpdir, "copy.jar").apply { writeText("not really a jar") }
+        val cache = JarInlineMethodNodeCache()
+
+        cache.getOrCompute(classInJar(jar), method) { parse() }
+        cache.getOrCompute(classInJar(copy), method) { parse() }
+
+        assertEquals(1, parsed)
+    }
+
+    fun testChangedJarIsReadAgain() {
+        val jar = File(KotlinTestUtils.tmpDirForTest(this), "lib.jar").apply { writeText("not really a jar") }
+        val cache = JarInlineMethodNodeCache()
+        cache.getOrCompute(classInJar(jar), method) { parse() }
+
+        val lastModified = jar.lastModified()
+        jar.writeText("not really a jar, but a different one")
+        jar.setLastModified(lastModified + 2000)
+
+        cache.getOrCompute(classInJar(jar), method) { parse() }
+        cache.getOrCompute(classInJar(jar), method) { parse() }
+        assertEquals(2, parsed)
+    }
+
+    fun testMissingJarIsNotCached() {
+        val jar = File(KotlinTestUtils.tmpDirForTest(this), "missing.jar")
+        val cache = JarInlineMethodNodeCache()
+
+        cache.getOrCompute(classInJar(jar), method) { parse() }
+        cache.getOrCompute(classInJar(jar), method) { parse() }
+
+        assertEquals(2, parsed)
+    }
+
+    fun testWatcherBaselineDigestIsDigestOfJar() {
+        val jar = File(KotlinTestUtils.tmpDirForTest(this), "lib.jar").apply { writeText("not really a jar") }
+        val watcher = LazyClasspathWatcher(listOf(jar.path), checkPeriod = 0)
+
+        val digests = watcher.baselineDigests!!
+        assertEquals(setOf(jar), digests.keys)
+        assertTrue(Arrays.equals(jar.md5Digest(), digests[jar]))
+        assertFalse(watcher.isChanged)
+    }
+
+    fun testClassesFromDirectoriesAreNotCached() {
+        val classFile = classFile(File(KotlinTestUtils.tmpDirForTest(this), "test/Foo.class").path)
+        val cache = JarInlineMethodNodeCache()
+
+        cache.getOrCompute(classFile, method) { parse() }
+        cache.getOrCompute(classFile, method) { parse() }
+
+        assertEquals(2, parsed)
+    }
+}
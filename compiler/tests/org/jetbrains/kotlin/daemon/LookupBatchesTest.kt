@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.daemon
+
+import junit.framework.TestCase
+import org.jetbrains.kotlin.daemon.common.LookupBatchDecoder
+import org.jetbrains.kotlin.daemon.common.LookupBatchEncoder
+import org.jetbrains.kotlin.incremental.components.LookupInfo
+import org.jetbrains.kotlin.incremental.components.Position
+import org.jetbrains.kotlin.incremental.components.ScopeKind
+
+class LookupBatchesTest : TestCase() {
+    private val first = listOf(
+            LookupInfo("/src/a.kt", Position.NO_POSITION, "foo.bar", ScopeKind.PACKAGE, "baz"),
+            LookupInfo("/src/a.kt", Position(1, 200), "foo.bar.Baz", ScopeKind.CLASSIFIER, "baz"),
+            LookupInfo("/src/b.kt", Position(100000, 0), "foo.bar", ScopeKind.PACKAGE, "Baz")
+    )
+
+    private val second = listOf(
+            LookupInfo("/src/b.kt", Position.NO_POSITION, "foo.bar", ScopeKind.PACKAGE, "baz"),
+            LookupInfo("/src/c.kt", Position.NO_POSITION, "", ScopeKind.PACKAGE, "qux")
+    )
+
+    fun testRoundTrip() {
+        val encoder = LookupBatchEncoder()
+        val decoder = LookupBatchDecoder()
+
+        assertEquals(first, decoder.decodeAll(encoder.encodeAll(first)))
+        assertEquals(second, decoder.decodeAll(encoder.encodeAll(second)))
+    }
+
+    fun testDuplicatesInBatch() {
+        val encoder = LookupBatchEncoder()
+        assertEquals(first, LookupBatchDecoder().decodeAll(encoder.encodeAll(first + first)))
+        assertEquals(0, encoder.size)
+    }
+
+    fun testOutOfOrderBatch() {
+        val encoder = LookupBatchEncoder()
+        encoder.encodeAll(first)
+        val secondBatch = encoder.encodeAll(second)
+
+        try {
+            LookupBatchDecoder().decodeAll(secondBatch)
+            fail("Out of order batch should not be decoded")
+        }
+        catch (e: IllegalStateException) {
+            // expected
+        }
+    }
+
+    private fun LookupBatchEncoder.encodeAll(lookups: List<LookupInfo>): ByteArray {
+        lookups.forEach { add(it.filePath, it.position, it.scopeFqName, it.scopeKind, it.name) }
+        assertEquals(lookups.distinct().size, size)
+        return encodeAndReset()
+    }
+
+    private fun LookupBatchDecoder.decodeAll(batch: ByteArray): List<LookupInfo> {
+        val result = arrayListOf<LookupInfo>()
+        decode(batch) { filePath, position, scopeFqName, scopeKind, name ->
+            result.add(LookupInfo(filePath, position, scopeFqName, scopeKind, name))
+        }
+        return result
+    }
+}
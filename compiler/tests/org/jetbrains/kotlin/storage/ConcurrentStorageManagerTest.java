@@ -0,0 +1,188 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.storage;
+
+import kotlin.jvm.functions.Function0;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentStorageManagerTest extends StorageManagerTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private ExecutorService executor;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    @NotNull
+    @Override
+    protected StorageManager createStorageManager() {
+        return new ConcurrentStorageManager();
+    }
+
+    public void testDifferentValuesAreComputedConcurrently() throws Exception {
+        StorageManager m = createStorageManager();
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+
+        Function0<String> computable = new Function0<String>() {
+            @Override
+            public String invoke() {
+                bothStarted.countDown();
+                await(bothStarted);
+                return "computed";
+            }
+        };
+
+        Future<String> first = invokeInBackground(m.createLazyValue(computable));
+        Future<String> second = invokeInBackground(m.createLazyValue(computable));
+
+        assertEquals("computed", first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("computed", second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    public void testValueIsComputedOnceByConcurrentThreads() throws Exception {
+        StorageManager m = createStorageManager();
+        final AtomicInteger counter = new AtomicInteger();
+
+        final NotNullLazyValue<Object> value = m.createLazyValue(new Function0<Object>() {
+            @Override
+            public Object invoke() {
+                counter.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return new Object();
+            }
+        });
+
+        List<Future<Object>> results = new ArrayList<Future<Object>>();
+        for (int i = 0; i < 8; i++) {
+            results.add(invokeInBackground(value));
+        }
+
+        for (Future<Object> result : results) {
+            assertSame(value.invoke(), result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        assertEquals(1, counter.get());
+    }
+
+    public void testMutualDependencyOfThreadsIsRecursion() throws Exception {
+        StorageManager m = createStorageManager();
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+
+        final List<NotNullLazyValue<String>> values = new ArrayList<NotNullLazyValue<String>>();
+        for (int i = 0; i < 2; i++) {
+            final int other = 1 - i;
+            values.add(m.createLazyValue(new Function0<String>() {
+                @Override
+                public String invoke() {
+                    bothStarted.countDown();
+                    await(bothStarted);
+                    return values.get(other).invoke();
+                }
+            }));
+        }
+
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (NotNullLazyValue<String> value : values) {
+            results.add(invokeInBackground(value));
+        }
+
+        int recursions = 0;
+        for (Future<String> result : results) {
+            try {
+                result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            catch (ExecutionException e) {
+                assertTrue("Unexpected exception: " + e.getCause(), e.getCause() instanceof IllegalStateException);
+                recursions++;
+            }
+        }
+        assertTrue("Recursion is not detected", recursions > 0);
+    }
+
+    public void testComputeIsNotBlockedByThreadWaitingForCurrentOne() throws Exception {
+        final StorageManager m = createStorageManager();
+        final CountDownLatch valueStarted = new CountDownLatch(1);
+
+        final NotNullLazyValue<String> value = m.createLazyValue(new Function0<String>() {
+            @Override
+            public String invoke() {
+                valueStarted.countDown();
+                return m.compute(new Function0<String>() {
+                    @Override
+                    public String invoke() {
+                        return "computed";
+                    }
+                });
+            }
+        });
+
+        Future<String> result = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return m.compute(new Function0<String>() {
+                    @Override
+                    public String invoke() {
+                        invokeInBackground(value);
+                        await(valueStarted);
+                        return value.invoke();
+                    }
+                });
+            }
+        });
+
+        assertEquals("computed", result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @NotNull
+    private <T> Future<T> invokeInBackground(@NotNull final Function0<T> value) {
+        return executor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return value.invoke();
+            }
+        });
+    }
+
+    private static void await(@NotNull CountDownLatch latch) {
+        try {
+            if (!latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new AssertionError("Timeout");
+            }
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -35,9 +35,21 @@ internal abstract class FunctionCaller<out M : Member>(
 
     abstract fun call(args: Array<*>): Any?
 
+    // Property accessors take at most three arguments and are called very often, e.g. by serialization libraries,
+    // so callers which access a member directly override these to avoid creating and copying arrays of arguments
+    open fun call0(): Any? = call(emptyArray<Any?>())
+
+    open fun call1(arg: Any?): Any? = call(arrayOf(arg))
+
+    open fun call2(arg1: Any?, arg2: Any?): Any? = call(arrayOf(arg1, arg2))
+
     protected open fun checkArguments(args: Array<*>) {
-        if (parameterTypes.size != args.size) {
-            throw IllegalArgumentException("Callable expects ${parameterTypes.size} arguments, but ${args.size} were provided.")
+        checkArgumentCount(args.size)
+    }
+
+    protected fun checkArgumentCount(count: Int) {
+        if (parameterTypes.size != count) {
+            throw IllegalArgumentException("Callable expects ${parameterTypes.size} arguments, but $count were provided.")
         }
     }
 
@@ -77,12 +89,10 @@ internal abstract class FunctionCaller<out M : Member>(
     ) {
         private val isVoidMethod = returnType == Void.TYPE
 
-        protected fun callMethod(instance: Any?, args: Array<*>): Any? {
-            val result = member.invoke(instance, *args)
+        protected fun callMethod(instance: Any?, args: Array<*>): Any? = result(member.invoke(instance, *args))
 
-            // If this is a Unit function, the method returns void, Method#invoke returns null, while we should return Unit
-            return if (isVoidMethod) Unit else result
-        }
+        // If this is a Unit function, the method returns void, Method#invoke returns null, while we should return Unit
+        protected fun result(value: Any?): Any? = if (isVoidMethod) Unit else value
     }
 
     class StaticMethod(method: ReflectMethod) : Method(method) {
@@ -90,12 +100,37 @@ internal abstract class FunctionCaller<out M : Member>(
             checkArguments(args)
             return callMethod(null, args)
         }
+
+        override fun call0(): Any? {
+            checkArgumentCount(0)
+            return result(member.invoke(null))
+        }
+
+        override fun call1(arg: Any?): Any? {
+            checkArgumentCount(1)
+            return result(member.invoke(null, arg))
+        }
+
+        override fun call2(arg1: Any?, arg2: Any?): Any? {
+            checkArgumentCount(2)
+            return result(member.invoke(null, arg1, arg2))
+        }
     }
 
     class InstanceMethod(method: ReflectMethod) : Method(method) {
         override fun call(args: Array<*>): Any? {
             checkArguments(args)
-            return callMethod(args[0], args.asList().subList(1, args.size).toTypedArray())
+            return callMethod(args[0], args.copyOfRange(1, args.size))
+        }
+
+        override fun call1(arg: Any?): Any? {
+            checkArgumentCount(1)
+            return result(member.invoke(arg))
+        }
+
+        override fun call2(arg1: Any?, arg2: Any?): Any? {
+            checkArgumentCount(2)
+            return result(member.invoke(arg1, arg2))
         }
     }
 
@@ -136,7 +171,11 @@ internal abstract class FunctionCaller<out M : Member>(
     ) {
         override fun checkArguments(args: Array<*>) {
             super.checkArguments(args)
-            if (notNull && args.last() == null) {
+            checkValue(args.last())
+        }
+
+        protected fun checkValue(value: Any?) {
+            if (notNull && value == null) {
                 throw IllegalArgumentException("null is not allowed as a value for this property.")
             }
         }
@@ -147,9 +186,19 @@ internal abstract class FunctionCaller<out M : Member>(
         }
     }
 
-    class StaticFieldGetter(field: ReflectField) : FieldGetter(field)
+    class StaticFieldGetter(field: ReflectField) : FieldGetter(field) {
+        override fun call0(): Any? {
+            checkArgumentCount(0)
+            return member.get(null)
+        }
+    }
 
-    class InstanceFieldGetter(field: ReflectField) : FieldGetter(field)
+    class InstanceFieldGetter(field: ReflectField) : FieldGetter(field) {
+        override fun call1(arg: Any?): Any? {
+            checkArgumentCount(1)
+            return member.get(arg)
+        }
+    }
 
     class JvmStaticInObjectFieldGetter(field: ReflectField) : FieldGetter(field, requiresInstance = true) {
         override fun checkArguments(args: Array<*>) {
@@ -173,9 +222,21 @@ internal abstract class FunctionCaller<out M : Member>(
         }
     }
 
-    class StaticFieldSetter(field: ReflectField, notNull: Boolean) : FieldSetter(field, notNull)
+    class StaticFieldSetter(field: ReflectField, notNull: Boolean) : FieldSetter(field, notNull) {
+        override fun call1(arg: Any?): Any? {
+            checkArgumentCount(1)
+            checkValue(arg)
+            return member.set(null, arg)
+        }
+    }
 
-    class InstanceFieldSetter(field: ReflectField, notNull: Boolean) : FieldSetter(field, notNull)
+    class InstanceFieldSetter(field: ReflectField, notNull: Boolean) : FieldSetter(field, notNull) {
+        override fun call2(arg1: Any?, arg2: Any?): Any? {
+            checkArgumentCount(2)
+            checkValue(arg2)
+            return member.set(arg1, arg2)
+        }
+    }
 
     class JvmStaticInObjectFieldSetter(field: ReflectField, notNull: Boolean) : FieldSetter(field, notNull, requiresInstance = true) {
         override fun checkArguments(args: Array<*>) {
@@ -29,7 +29,8 @@ internal open class KProperty0Impl<out R> : DescriptorBasedProperty<R>, KPropert
 
     override val getter: Getter<R> get() = getter_()
 
-    override fun get(): R = getter.call()
+    @Suppress("UNCHECKED_CAST")
+    override fun get(): R = reflectionCall { getter.caller.call0() as R }
 
     override fun invoke(): R = get()
 
@@ -47,7 +48,9 @@ internal open class KMutableProperty0Impl<R> : KProperty0Impl<R>, KMutableProper
 
     override val setter: Setter<R> get() = setter_()
 
-    override fun set(value: R) = setter.call(value)
+    override fun set(value: R) {
+        reflectionCall { setter.caller.call1(value) }
+    }
 
     class Setter<R>(override val property: KMutableProperty0Impl<R>) : KMutablePropertyImpl.Setter<R>(), KMutableProperty0.Setter<R> {
         override fun invoke(value: R): Unit = property.set(value)
@@ -29,7 +29,8 @@ internal open class KProperty1Impl<T, out R> : DescriptorBasedProperty<R>, KProp
 
     override val getter: Getter<T, R> get() = getter_()
 
-    override fun get(receiver: T): R = getter.call(receiver)
+    @Suppress("UNCHECKED_CAST")
+    override fun get(receiver: T): R = reflectionCall { getter.caller.call1(receiver) as R }
 
     override fun invoke(receiver: T): R = get(receiver)
 
@@ -47,7 +48,9 @@ internal open class KMutableProperty1Impl<T, R> : KProperty1Impl<T, R>, KMutable
 
     override val setter: Setter<T, R> get() = setter_()
 
-    override fun set(receiver: T, value: R) = setter.call(receiver, value)
+    override fun set(receiver: T, value: R) {
+        reflectionCall { setter.caller.call2(receiver, value) }
+    }
 
     class Setter<T, R>(override val property: KMutableProperty1Impl<T, R>) : KMutablePropertyImpl.Setter<R>(), KMutableProperty1.Setter<T, R> {
         override fun invoke(receiver: T, value: R): Unit = property.set(receiver, value)
@@ -29,7 +29,8 @@ internal open class KProperty2Impl<D, E, out R> : DescriptorBasedProperty<R>, KP
 
     override val getter: Getter<D, E, R> get() = getter_()
 
-    override fun get(receiver1: D, receiver2: E): R = getter.call(receiver1, receiver2)
+    @Suppress("UNCHECKED_CAST")
+    override fun get(receiver1: D, receiver2: E): R = reflectionCall { getter.caller.call2(receiver1, receiver2) as R }
 
     override fun invoke(receiver1: D, receiver2: E): R = get(receiver1, receiver2)
 
@@ -16,52 +16,115 @@
 
 package kotlin.reflect.jvm.internal
 
+import java.lang.ref.ReferenceQueue
 import java.lang.ref.WeakReference
-import kotlin.reflect.jvm.internal.pcollections.HashPMap
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 
-// TODO: collect nulls periodically
-// Key of the map is Class.getName(), each value is either a WeakReference<KClassImpl<*>> or an Array<WeakReference<KClassImpl<*>>>.
+// Key of the map is Class.getName(), each value is either a KClassReference or an Array<KClassReference>.
 // Arrays are needed because the same class can be loaded by different class loaders, which results in different Class instances.
-// This variable is not volatile intentionally: we don't care if there's a data race on it and some KClass instances will be lost.
-// We do care however about general performance on read access to it, thus no synchronization is done here whatsoever
-private var K_CLASS_CACHE = HashPMap.empty<String, Any>()
+// Values are only replaced with compare-and-set operations, so that no KClass instances are lost on concurrent access.
+// Once a KClassImpl instance is collected, its reference is removed from the map, so entries of unloaded classes don't pile up
+private val K_CLASS_CACHE = ConcurrentHashMap<String, Any>()
+
+private val K_CLASS_QUEUE = ReferenceQueue<KClassImpl<*>>()
+
+private class KClassReference(kClass: KClassImpl<*>, val name: String) : WeakReference<KClassImpl<*>>(kClass, K_CLASS_QUEUE)
 
 // This function is invoked on each reflection access to Java classes, properties, etc. Performance is critical here.
 internal fun <T : Any> getOrCreateKotlinClass(jClass: Class<T>): KClassImpl<T> {
     val name = jClass.name
     val cached = K_CLASS_CACHE[name]
-    if (cached is WeakReference<*>) {
-        @Suppress("UNCHECKED_CAST")
-        val kClass = cached.get() as KClassImpl<T>?
+    if (cached != null) {
+        val kClass = findKotlinClass(cached, jClass)
+        if (kClass != null) return kClass
+    }
+
+    return createKotlinClass(jClass, name)
+}
+
+private fun <T : Any> findKotlinClass(cached: Any, jClass: Class<T>): KClassImpl<T>? {
+    if (cached is KClassReference) {
+        val kClass = cached.get()
         if (kClass?.jClass == jClass) {
-            return kClass!!
+            @Suppress("UNCHECKED_CAST")
+            return kClass as KClassImpl<T>
         }
+        return null
     }
-    else if (cached != null) {
-        // If the cached value is not a weak reference, it's an array of weak references
-        @Suppress("UNCHECKED_CAST")
-        (cached as Array<WeakReference<KClassImpl<T>>>)
-        for (ref in cached) {
-            val kClass = ref.get()
-            if (kClass?.jClass == jClass) {
-                return kClass
-            }
-        }
 
-        // This is the most unlikely case: we found a cached array of references of length at least 2 (can't be 1 because
-        // the single element would be cached instead), and none of those classes is the one we're looking for
-        val size = cached.size
-        // Don't use Array constructor because it creates a lambda
-        val newArray = arrayOfNulls<WeakReference<KClassImpl<*>>>(size + 1)
-        // Don't use Arrays.copyOf because it works reflectively
-        System.arraycopy(cached, 0, newArray, 0, size)
-        val newKClass = KClassImpl(jClass)
-        newArray[size] = WeakReference(newKClass)
-        K_CLASS_CACHE = K_CLASS_CACHE.plus(name, newArray)
-        return newKClass
+    // If the cached value is not a reference, it's an array of references
+    for (ref in cached as Array<*>) {
+        val kClass = (ref as KClassReference).get()
+        if (kClass?.jClass == jClass) {
+            @Suppress("UNCHECKED_CAST")
+            return kClass as KClassImpl<T>
+        }
     }
+    return null
+}
+
+private fun <T : Any> createKotlinClass(jClass: Class<T>, name: String): KClassImpl<T> {
+    removeCollectedReferences()
 
     val newKClass = KClassImpl(jClass)
-    K_CLASS_CACHE = K_CLASS_CACHE.plus(name, WeakReference(newKClass))
-    return newKClass
+    val newRef = KClassReference(newKClass, name)
+    while (true) {
+        val cached = K_CLASS_CACHE[name]
+        if (cached == null) {
+            if (K_CLASS_CACHE.putIfAbsent(name, newRef) == null) return newKClass
+        }
+        else {
+            // Another thread could have created the class in the meantime
+            val kClass = findKotlinClass(cached, jClass)
+            if (kClass != null) return kClass
+
+            // This is the most unlikely case: the same class is loaded by several class loaders
+            val refs = liveReferences(cached, removed = null)
+            refs.add(newRef)
+            if (K_CLASS_CACHE.replace(name, cached, toCachedValue(refs))) return newKClass
+        }
+    }
+}
+
+private fun removeCollectedReferences() {
+    while (true) {
+        val ref = K_CLASS_QUEUE.poll() as KClassReference? ?: return
+        removeReference(ref)
+    }
+}
+
+private fun removeReference(ref: KClassReference) {
+    while (true) {
+        val cached = K_CLASS_CACHE[ref.name] ?: return
+        // The entry may already contain a reference to another instance of the class
+        if (cached !== ref && (cached !is Array<*> || ref !in cached)) return
+
+        val refs = liveReferences(cached, removed = ref)
+        val removed = if (refs.isEmpty()) K_CLASS_CACHE.remove(ref.name, cached) else K_CLASS_CACHE.replace(ref.name, cached, toCachedValue(refs))
+        if (removed) return
+    }
+}
+
+private fun liveReferences(cached: Any, removed: KClassReference?): MutableList<KClassReference> {
+    val result = ArrayList<KClassReference>(2)
+    if (cached is KClassReference) {
+        if (cached !== removed && cached.get() != null) result.add(cached)
+    }
+    else {
+        for (ref in cached as Array<*>) {
+            if (ref !== removed && (ref as KClassReference).get() != null) result.add(ref)
+        }
+    }
+    return result
+}
+
+private fun toCachedValue(refs: List<KClassReference>): Any {
+    if (refs.size == 1) return refs[0]
+    // Don't use Array constructor because it creates a lambda
+    val array = arrayOfNulls<KClassReference>(refs.size)
+    for (i in 0..refs.size - 1) {
+        array[i] = refs[i]
+    }
+    return array
 }
@@ -18,15 +18,21 @@ package kotlin.reflect.jvm.internal
 
 import org.jetbrains.kotlin.load.java.structure.reflect.safeClassLoader
 import org.jetbrains.kotlin.load.kotlin.reflect.RuntimeModuleData
+import java.lang.ref.ReferenceQueue
 import java.lang.ref.WeakReference
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ConcurrentMap
 
-// TODO: collect nulls periodically
-private val moduleByClassLoader: ConcurrentMap<WeakClassLoaderBox, WeakReference<RuntimeModuleData>> = ConcurrentHashMap()
+// Modules are held on weak references here, they're kept alive by KDeclarationContainerImpl instances which use them.
+// References to collected class loaders and modules are put to the queue, and their entries are removed on the next insertion.
+// The map is not bounded: a module can only be released when no KClass uses it, and then its entry is purged anyway,
+// while evicting a module which is still in use would create a second module for the same class loader
+private val moduleByClassLoader: ConcurrentMap<WeakClassLoaderBox, ModuleReference> = ConcurrentHashMap()
+
+private val collectedReferences = ReferenceQueue<Any>()
 
 private class WeakClassLoaderBox(classLoader: ClassLoader) {
-    val ref: WeakReference<ClassLoader> = WeakReference(classLoader)
+    val ref: WeakReference<ClassLoader> = ClassLoaderReference(classLoader, this)
 
     // Identity hash code is saved because otherwise once the weak reference is GC'd we cannot compute it anymore
     val identityHashCode: Int = System.identityHashCode(classLoader)
@@ -44,6 +50,12 @@ private class WeakClassLoaderBox(classLoader: ClassLoader) {
             ref.get()?.let { it.toString() } ?: "<null>"
 }
 
+private class ClassLoaderReference(classLoader: ClassLoader, val box: WeakClassLoaderBox) :
+        WeakReference<ClassLoader>(classLoader, collectedReferences)
+
+private class ModuleReference(module: RuntimeModuleData, val box: WeakClassLoaderBox) :
+        WeakReference<RuntimeModuleData>(module, collectedReferences)
+
 internal fun Class<*>.getOrCreateModule(): RuntimeModuleData {
     val classLoader = this.safeClassLoader
 
@@ -51,15 +63,17 @@ internal fun Class<*>.getOrCreateModule(): RuntimeModuleData {
 
     val cached = moduleByClassLoader[key]
     if (cached != null) {
-        cached.get()?.let { return it }
+        val module = cached.get()
+        if (module != null) return module
         moduleByClassLoader.remove(key, cached)
     }
 
+    removeCollectedReferences()
+
     val module = RuntimeModuleData.create(classLoader)
     try {
         while (true) {
-            val ref = moduleByClassLoader.putIfAbsent(key, WeakReference(module))
-            if (ref == null) return module
+            val ref = moduleByClassLoader.putIfAbsent(key, ModuleReference(module, key)) ?: return module
 
             val result = ref.get()
             if (result != null) return result
@@ -70,3 +84,16 @@ internal fun Class<*>.getOrCreateModule(): RuntimeModuleData {
         key.temporaryStrongRef = null
     }
 }
+
+private fun removeCollectedReferences() {
+    while (true) {
+        val ref = collectedReferences.poll() ?: return
+        if (ref is ClassLoaderReference) {
+            // Boxes of collected class loaders are equal to each other, so this may also remove another dead entry with the same hash code
+            moduleByClassLoader.remove(ref.box)
+        }
+        else if (ref is ModuleReference) {
+            moduleByClassLoader.remove(ref.box, ref)
+        }
+    }
+}
@@ -0,0 +1,556 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.storage;
+
+import kotlin.Unit;
+import kotlin.jvm.functions.Function0;
+import kotlin.jvm.functions.Function1;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.utils.WrappedValues;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A storage manager which lets different threads compute different lazy values and memoized function values at the same time.
+ * <p>
+ * {@link LockBasedStorageManager} computes everything under one lock. Here a value is computed by the thread which requested it first,
+ * other threads requesting the same value wait for that computation only, and reading a computed value takes no lock.
+ * <p>
+ * Requesting a value which is being computed by a thread that (maybe transitively) waits for the current thread is a recursive call,
+ * as well as requesting a value which is being computed by the current thread; both are handled as in {@link LockBasedStorageManager}.
+ * <p>
+ * {@link #compute(Function0)} is exclusive. If its lock is held by a thread that (maybe transitively) waits for the current thread,
+ * the current thread runs the computation without taking the lock: the owner of the lock can't proceed until the current thread is done.
+ */
+public class ConcurrentStorageManager implements StorageManager {
+    // how often a waiting thread checks whether it waits for itself
+    private static final long CYCLE_CHECK_INTERVAL_MS = 10;
+
+    private static final Object COMPUTE_LOCK = new Object() {
+        @Override
+        public String toString() {
+            return "COMPUTE_LOCK";
+        }
+    };
+
+    private final LockBasedStorageManager.ExceptionHandlingStrategy exceptionHandlingStrategy;
+    private final String debugText;
+
+    private final ReentrantLock computeLock = new ReentrantLock();
+    @Nullable
+    private volatile Thread computeLockOwner = null;
+
+    // values are either a Computation or COMPUTE_LOCK
+    private final ConcurrentMap<Thread, Object> waitingFor = new ConcurrentHashMap<Thread, Object>();
+
+    public ConcurrentStorageManager() {
+        this(LockBasedStorageManager.getPointOfConstruction(), LockBasedStorageManager.ExceptionHandlingStrategy.THROW);
+    }
+
+    public ConcurrentStorageManager(@NotNull LockBasedStorageManager.ExceptionHandlingStrategy exceptionHandlingStrategy) {
+        this(LockBasedStorageManager.getPointOfConstruction(), exceptionHandlingStrategy);
+    }
+
+    private ConcurrentStorageManager(
+            @NotNull String debugText,
+            @NotNull LockBasedStorageManager.ExceptionHandlingStrategy exceptionHandlingStrategy
+    ) {
+        this.debugText = debugText;
+        this.exceptionHandlingStrategy = exceptionHandlingStrategy;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "@" + Integer.toHexString(hashCode()) + " (" + debugText + ")";
+    }
+
+    @NotNull
+    @Override
+    public <K, V> MemoizedFunctionToNotNull<K, V> createMemoizedFunction(@NotNull Function1<? super K, ? extends V> compute) {
+        return createMemoizedFunction(compute, ConcurrentStorageManager.<K>createConcurrentHashMap());
+    }
+
+    @NotNull
+    @Override
+    public <K, V> MemoizedFunctionToNotNull<K, V> createMemoizedFunction(
+            @NotNull Function1<? super K, ? extends V> compute,
+            @NotNull ConcurrentMap<K, Object> map
+    ) {
+        return new ConcurrentMemoizedFunctionToNotNull<K, V>(map, compute);
+    }
+
+    @NotNull
+    @Override
+    public <K, V> MemoizedFunctionToNullable<K, V> createMemoizedFunctionWithNullableValues(@NotNull Function1<? super K, ? extends V> compute) {
+        return createMemoizedFunctionWithNullableValues(compute, ConcurrentStorageManager.<K>createConcurrentHashMap());
+    }
+
+    @NotNull
+    @Override
+    public <K, V> MemoizedFunctionToNullable<K, V> createMemoizedFunctionWithNullableValues(
+            @NotNull Function1<? super K, ? extends V> compute,
+            @NotNull ConcurrentMap<K, Object> map
+    ) {
+        return new ConcurrentMemoizedFunction<K, V>(map, compute);
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createLazyValue(@NotNull Function0<? extends T> computable) {
+        return new ConcurrentNotNullLazyValue<T>(this, computable);
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createRecursionTolerantLazyValue(
+            @NotNull Function0<? extends T> computable, @NotNull final T onRecursiveCall
+    ) {
+        return new ConcurrentNotNullLazyValue<T>(this, computable) {
+            @NotNull
+            @Override
+            protected RecursionDetectedResult<T> recursionDetected(boolean firstTime) {
+                return RecursionDetectedResult.value(onRecursiveCall);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NotNullLazyValue<T> createLazyValueWithPostCompute(
+            @NotNull Function0<? extends T> computable,
+            final Function1<? super Boolean, ? extends T> onRecursiveCall,
+            @NotNull final Function1<? super T, Unit> postCompute
+    ) {
+        return new ConcurrentNotNullLazyValue<T>(this, computable) {
+            @NotNull
+            @Override
+            protected RecursionDetectedResult<T> recursionDetected(boolean firstTime) {
+                if (onRecursiveCall == null) {
+                    return super.recursionDetected(firstTime);
+                }
+                return RecursionDetectedResult.value(onRecursiveCall.invoke(firstTime));
+            }
+
+            @Override
+            protected void postCompute(@NotNull T value) {
+                postCompute.invoke(value);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createNullableLazyValue(@NotNull Function0<? extends T> computable) {
+        return new ConcurrentLazyValue<T>(this, computable);
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createRecursionTolerantNullableLazyValue(@NotNull Function0<? extends T> computable, final T onRecursiveCall) {
+        return new ConcurrentLazyValue<T>(this, computable) {
+            @NotNull
+            @Override
+            protected RecursionDetectedResult<T> recursionDetected(boolean firstTime) {
+                return RecursionDetectedResult.value(onRecursiveCall);
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public <T> NullableLazyValue<T> createNullableLazyValueWithPostCompute(
+            @NotNull Function0<? extends T> computable, @NotNull final Function1<? super T, Unit> postCompute
+    ) {
+        return new ConcurrentLazyValue<T>(this, computable) {
+            @Override
+            protected void postCompute(@Nullable T value) {
+                postCompute.invoke(value);
+            }
+        };
+    }
+
+    @Override
+    public <T> T compute(@NotNull Function0<? extends T> computable) {
+        boolean locked = lockOrBorrowComputeLock();
+        try {
+            return computable.invoke();
+        }
+        catch (Throwable throwable) {
+            throw exceptionHandlingStrategy.handleException(throwable);
+        }
+        finally {
+            if (locked) {
+                unlockComputeLock();
+            }
+        }
+    }
+
+    @NotNull
+    private static <K> ConcurrentMap<K, Object> createConcurrentHashMap() {
+        // memory optimization: fewer segments and entries stored
+        return new ConcurrentHashMap<K, Object>(3, 1, 2);
+    }
+
+    @NotNull
+    protected <T> RecursionDetectedResult<T> recursionDetectedDefault() {
+        throw LockBasedStorageManager.sanitizeStackTrace(new IllegalStateException("Recursive call in a lazy value under " + this));
+    }
+
+    // A value being computed. Stored instead of the value until the computation is finished
+    private static final class Computation {
+        private final Thread owner = Thread.currentThread();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean recursionDetected = false;
+
+        @Override
+        public String toString() {
+            return "COMPUTING in " + owner.getName();
+        }
+    }
+
+    private enum Cycle {
+        NONE,
+        VALUES_ONLY,
+        THROUGH_COMPUTE_LOCK
+    }
+
+    /**
+     * Follows the chain of threads waiting for each other, starting from the owner of {@code blocker}
+     * @return whether this chain leads to the current thread, i.e. waiting for {@code blocker} would never end
+     */
+    @NotNull
+    private Cycle findCycle(@NotNull Object blocker) {
+        Thread current = Thread.currentThread();
+        Set<Thread> visited = new HashSet<Thread>();
+        boolean throughComputeLock = false;
+
+        Object next = blocker;
+        while (next != null) {
+            Thread owner;
+            if (next == COMPUTE_LOCK) {
+                owner = computeLockOwner;
+                throughComputeLock = true;
+            }
+            else {
+                owner = ((Computation) next).owner;
+            }
+
+            if (owner == null || !visited.add(owner)) return Cycle.NONE;
+            if (owner == current) return throughComputeLock ? Cycle.THROUGH_COMPUTE_LOCK : Cycle.VALUES_ONLY;
+
+            next = waitingFor.get(owner);
+        }
+
+        return Cycle.NONE;
+    }
+
+    /**
+     * @return {@code true} when the computation is finished, {@code false} if it (maybe transitively) waits for the current thread
+     */
+    private boolean await(@NotNull Computation computation) {
+        Thread current = Thread.currentThread();
+        if (computation.owner == current) return false;
+
+        waitingFor.put(current, computation);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                // A cycle through the compute lock is broken by the thread waiting for the lock, see lockOrBorrowComputeLock()
+                if (findCycle(computation) == Cycle.VALUES_ONLY) return false;
+
+                try {
+                    if (computation.done.await(CYCLE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) return true;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        finally {
+            waitingFor.remove(current);
+            if (interrupted) {
+                current.interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the lock is taken, {@code false} if its owner waits for the current thread, so the lock is not needed
+     */
+    private boolean lockOrBorrowComputeLock() {
+        Thread current = Thread.currentThread();
+        if (computeLock.tryLock()) {
+            computeLockOwner = current;
+            return true;
+        }
+
+        waitingFor.put(current, COMPUTE_LOCK);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                if (findCycle(COMPUTE_LOCK) != Cycle.NONE) return false;
+
+                try {
+                    if (computeLock.tryLock(CYCLE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                        computeLockOwner = current;
+                        return true;
+                    }
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        finally {
+            waitingFor.remove(current);
+            if (interrupted) {
+                current.interrupt();
+            }
+        }
+    }
+
+    private void unlockComputeLock() {
+        if (computeLock.getHoldCount() == 1) {
+            computeLockOwner = null;
+        }
+        computeLock.unlock();
+    }
+
+    private enum NotValue {
+        NOT_COMPUTED,
+        RECURSION_WAS_DETECTED
+    }
+
+    private static class ConcurrentLazyValue<T> implements NullableLazyValue<T> {
+        private static final AtomicReferenceFieldUpdater<ConcurrentLazyValue, Object> VALUE =
+                AtomicReferenceFieldUpdater.newUpdater(ConcurrentLazyValue.class, Object.class, "value");
+
+        private final ConcurrentStorageManager storageManager;
+        private final Function0<? extends T> computable;
+
+        @Nullable
+        private volatile Object value = NotValue.NOT_COMPUTED;
+
+        public ConcurrentLazyValue(@NotNull ConcurrentStorageManager storageManager, @NotNull Function0<? extends T> computable) {
+            this.storageManager = storageManager;
+            this.computable = computable;
+        }
+
+        @Override
+        public boolean isComputed() {
+            Object _value = value;
+            return _value != NotValue.NOT_COMPUTED && !(_value instanceof Computation);
+        }
+
+        @Override
+        public boolean isComputing() {
+            return value instanceof Computation;
+        }
+
+        @Override
+        public T invoke() {
+            while (true) {
+                Object _value = value;
+                if (!(_value instanceof NotValue) && !(_value instanceof Computation)) return WrappedValues.unescapeThrowable(_value);
+
+                if (_value instanceof Computation) {
+                    Computation computation = (Computation) _value;
+                    if (storageManager.await(computation)) continue;
+
+                    boolean firstTime = !computation.recursionDetected;
+                    computation.recursionDetected = true;
+                    RecursionDetectedResult<T> result = recursionDetected(firstTime);
+                    if (!result.isFallThrough()) {
+                        return result.getValue();
+                    }
+                    return computeWithoutStoring();
+                }
+
+                if (_value == NotValue.RECURSION_WAS_DETECTED) {
+                    RecursionDetectedResult<T> result = recursionDetected(/*firstTime = */ false);
+                    if (!result.isFallThrough()) {
+                        return result.getValue();
+                    }
+                }
+
+                Computation computation = new Computation();
+                if (VALUE.compareAndSet(this, _value, computation)) {
+                    return computeAndStore(computation);
+                }
+            }
+        }
+
+        private T computeAndStore(@NotNull Computation computation) {
+            try {
+                T typedValue = computable.invoke();
+                value = typedValue;
+                postCompute(typedValue);
+                return typedValue;
+            }
+            catch (Throwable throwable) {
+                if (value == computation) {
+                    // Store only if it's a genuine result, not something thrown through recursionDetected()
+                    value = computation.recursionDetected ? NotValue.RECURSION_WAS_DETECTED : WrappedValues.escapeThrowable(throwable);
+                }
+                throw storageManager.exceptionHandlingStrategy.handleException(throwable);
+            }
+            finally {
+                computation.done.countDown();
+            }
+        }
+
+        private T computeWithoutStoring() {
+            try {
+                return computable.invoke();
+            }
+            catch (Throwable throwable) {
+                throw storageManager.exceptionHandlingStrategy.handleException(throwable);
+            }
+        }
+
+        /**
+         * @param firstTime {@code true} when recursion has been just detected, {@code false} otherwise
+         * @return a value to be returned on a recursive call or subsequent calls
+         */
+        @NotNull
+        protected RecursionDetectedResult<T> recursionDetected(boolean firstTime) {
+            return storageManager.recursionDetectedDefault();
+        }
+
+        protected void postCompute(T value) {
+            // Doing something in post-compute helps prevent infinite recursion
+        }
+    }
+
+    private static class ConcurrentNotNullLazyValue<T> extends ConcurrentLazyValue<T> implements NotNullLazyValue<T> {
+
+        public ConcurrentNotNullLazyValue(@NotNull ConcurrentStorageManager storageManager, @NotNull Function0<? extends T> computable) {
+            super(storageManager, computable);
+        }
+
+        @Override
+        @NotNull
+        public T invoke() {
+            T result = super.invoke();
+            assert result != null : "compute() returned null";
+            return result;
+        }
+    }
+
+    private class ConcurrentMemoizedFunction<K, V> implements MemoizedFunctionToNullable<K, V> {
+        private final ConcurrentMap<K, Object> cache;
+        private final Function1<? super K, ? extends V> compute;
+
+        public ConcurrentMemoizedFunction(@NotNull ConcurrentMap<K, Object> map, @NotNull Function1<? super K, ? extends V> compute) {
+            this.cache = map;
+            this.compute = compute;
+        }
+
+        @Override
+        @Nullable
+        public V invoke(K input) {
+            while (true) {
+                Object value = cache.get(input);
+                if (value instanceof Computation) {
+                    if (await((Computation) value)) continue;
+                    throw recursionDetected(input);
+                }
+                if (value != null) return WrappedValues.unescapeExceptionOrNull(value);
+
+                Computation computation = new Computation();
+                if (cache.putIfAbsent(input, computation) == null) {
+                    return computeAndStore(input, computation);
+                }
+            }
+        }
+
+        @Nullable
+        private V computeAndStore(K input, @NotNull Computation computation) {
+            AssertionError error = null;
+            try {
+                V typedValue = compute.invoke(input);
+
+                // See LockBasedStorageManager.MapBasedMemoizedFunction: the only exception which shouldn't be stored
+                if (!cache.replace(input, computation, WrappedValues.escapeNull(typedValue))) {
+                    error = raceCondition(input, cache.get(input));
+                    throw error;
+                }
+
+                return typedValue;
+            }
+            catch (Throwable throwable) {
+                if (throwable == error) throw exceptionHandlingStrategy.handleException(throwable);
+
+                if (!cache.replace(input, computation, WrappedValues.escapeThrowable(throwable))) {
+                    throw raceCondition(input, cache.get(input));
+                }
+
+                throw exceptionHandlingStrategy.handleException(throwable);
+            }
+            finally {
+                computation.done.countDown();
+            }
+        }
+
+        @NotNull
+        private AssertionError recursionDetected(K input) {
+            return LockBasedStorageManager.sanitizeStackTrace(
+                    new AssertionError("Recursion detected on input: " + input + " under " + ConcurrentStorageManager.this)
+            );
+        }
+
+        @NotNull
+        private AssertionError raceCondition(K input, Object oldValue) {
+            return LockBasedStorageManager.sanitizeStackTrace(
+                    new AssertionError("Race condition detected on input " + input + ". Old value is " + oldValue +
+                                       " under " + ConcurrentStorageManager.this)
+            );
+        }
+
+        @Override
+        public boolean isComputed(K key) {
+            Object value = cache.get(key);
+            return value != null && !(value instanceof Computation);
+        }
+    }
+
+    private class ConcurrentMemoizedFunctionToNotNull<K, V> extends ConcurrentMemoizedFunction<K, V> implements MemoizedFunctionToNotNull<K, V> {
+
+        public ConcurrentMemoizedFunctionToNotNull(
+                @NotNull ConcurrentMap<K, Object> map,
+                @NotNull Function1<? super K, ? extends V> compute
+        ) {
+            super(map, compute);
+        }
+
+        @NotNull
+        @Override
+        public V invoke(K input) {
+            V result = super.invoke(input);
+            assert result != null : "compute() returned null under " + ConcurrentStorageManager.this;
+            return result;
+        }
+    }
+}
@@ -87,7 +87,7 @@ public class LockBasedStorageManager implements StorageManager {
         this(getPointOfConstruction(), exceptionHandlingStrategy, new ReentrantLock());
     }
 
-    private static String getPointOfConstruction() {
+    /*package*/ static String getPointOfConstruction() {
         StackTraceElement[] trace = Thread.currentThread().getStackTrace();
         // we need to skip frames for getStackTrace(), this method and the constructor that's calling it
         if (trace.length <= 3) return "<unknown creating class>";
@@ -229,41 +229,6 @@ public class LockBasedStorageManager implements StorageManager {
         throw sanitizeStackTrace(new IllegalStateException("Recursive call in a lazy value under " + this));
     }
 
-    private static class RecursionDetectedResult<T> {
-
-        @NotNull
-        public static <T> RecursionDetectedResult<T> value(T value) {
-            return new RecursionDetectedResult<T>(value, false);
-        }
-
-        @NotNull
-        public static <T> RecursionDetectedResult<T> fallThrough() {
-            return new RecursionDetectedResult<T>(null, true);
-        }
-
-        private final T value;
-        private final boolean fallThrough;
-
-        private RecursionDetectedResult(T value, boolean fallThrough) {
-            this.value = value;
-            this.fallThrough = fallThrough;
-        }
-
-        public T getValue() {
-            assert !fallThrough : "A value requested from FALL_THROUGH in " + this;
-            return value;
-        }
-
-        public boolean isFallThrough() {
-            return fallThrough;
-        }
-
-        @Override
-        public String toString() {
-            return isFallThrough() ? "FALL_THROUGH" : String.valueOf(value);
-        }
-    }
-
     private enum NotValue {
         NOT_COMPUTED,
         COMPUTING,
@@ -470,7 +435,7 @@ public class LockBasedStorageManager implements StorageManager {
     }
 
     @NotNull
-    private static <T extends Throwable> T sanitizeStackTrace(@NotNull T throwable) {
+    /*package*/ static <T extends Throwable> T sanitizeStackTrace(@NotNull T throwable) {
         String storagePackageName = LockBasedStorageManager.class.getPackage().getName();
         StackTraceElement[] stackTrace = throwable.getStackTrace();
         int size = stackTrace.length;
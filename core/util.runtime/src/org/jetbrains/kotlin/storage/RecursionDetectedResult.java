@@ -0,0 +1,54 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+/*package*/ class RecursionDetectedResult<T> {
+
+    @NotNull
+    public static <T> RecursionDetectedResult<T> value(T value) {
+        return new RecursionDetectedResult<T>(value, false);
+    }
+
+    @NotNull
+    public static <T> RecursionDetectedResult<T> fallThrough() {
+        return new RecursionDetectedResult<T>(null, true);
+    }
+
+    private final T value;
+    private final boolean fallThrough;
+
+    private RecursionDetectedResult(T value, boolean fallThrough) {
+        this.value = value;
+        this.fallThrough = fallThrough;
+    }
+
+    public T getValue() {
+        assert !fallThrough : "A value requested from FALL_THROUGH in " + this;
+        return value;
+    }
+
+    public boolean isFallThrough() {
+        return fallThrough;
+    }
+
+    @Override
+    public String toString() {
+        return isFallThrough() ? "FALL_THROUGH" : String.valueOf(value);
+    }
+}
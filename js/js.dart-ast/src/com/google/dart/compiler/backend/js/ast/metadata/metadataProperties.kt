@@ -33,6 +33,12 @@ var JsInvocation.psiElement: PsiElement? by MetadataProperty(default = null)
 
 var JsFunction.isLocal: Boolean by MetadataProperty(default = false)
 
+/**
+ * Function is a private or an internal member of a package or a private member of a class,
+ * so it can't be referenced from another module and can be removed when unused
+ */
+var JsFunction.isModulePrivate: Boolean by MetadataProperty(default = false)
+
 var JsParameter.hasDefaultValue: Boolean by MetadataProperty(default = false)
 
 var JsInvocation.typeCheck: TypeCheck? by MetadataProperty(default = null)
@@ -4,9 +4,13 @@
 
 package com.google.dart.compiler.util;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Arrays;
 
 public class TextOutputImpl implements TextOutput {
+    private static final int FLUSH_THRESHOLD = 8192;
+
     private final boolean compact;
     private int identLevel = 0;
     private final static int indentGranularity = 2;
@@ -19,6 +23,10 @@ public class TextOutputImpl implements TextOutput {
 
     private OutListener outListener;
 
+    // If not null, the text is moved from the buffer to it on new lines, so that the whole output isn't kept in memory
+    private final Writer writer;
+    private IOException writeError;
+
     public TextOutputImpl() {
         this(false);
     }
@@ -28,10 +36,41 @@ public class TextOutputImpl implements TextOutput {
     }
 
     public TextOutputImpl(boolean compact) {
+        this(compact, null);
+    }
+
+    public TextOutputImpl(boolean compact, Writer writer) {
         this.compact = compact;
+        this.writer = writer;
         out = new StringBuilder();
     }
 
+    /**
+     * Writes the rest of the buffered text to the writer, and throws the exception if some text could not be written.
+     */
+    public void flush() throws IOException {
+        if (writer == null) return;
+
+        writeBuffer();
+        if (writeError != null) {
+            throw writeError;
+        }
+        writer.flush();
+    }
+
+    private void writeBuffer() {
+        if (writeError == null) {
+            try {
+                writer.append(out);
+            }
+            catch (IOException e) {
+                writeError = e;
+            }
+        }
+        out.setLength(0);
+    }
+
+    // Only returns the text which is not yet written if there's a writer
     @Override
     public String toString() {
         return out.toString();
@@ -81,6 +120,9 @@ public class TextOutputImpl implements TextOutput {
         if (outListener != null) {
             outListener.newLined();
         }
+        if (writer != null && out.length() >= FLUSH_THRESHOLD) {
+            writeBuffer();
+        }
     }
 
     @Override
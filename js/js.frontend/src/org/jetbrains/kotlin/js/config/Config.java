@@ -58,6 +58,7 @@ public abstract class Config {
     private final boolean sourcemap;
     private final boolean metaInfo;
     private final boolean kjsm;
+    private final int translationThreads;
 
     @NotNull
     protected final List<KotlinJavascriptMetadata> metadata = new SmartList<KotlinJavascriptMetadata>();
@@ -74,7 +75,8 @@ public abstract class Config {
             boolean sourcemap,
             boolean inlineEnabled,
             boolean metaInfo,
-            boolean kjsm
+            boolean kjsm,
+            int translationThreads
     ) {
         this.project = project;
         this.target = ecmaVersion;
@@ -83,6 +85,7 @@ public abstract class Config {
         this.inlineEnabled = inlineEnabled;
         this.metaInfo = metaInfo;
         this.kjsm = kjsm;
+        this.translationThreads = translationThreads;
     }
 
     public boolean isSourcemap() {
@@ -101,6 +104,11 @@ public abstract class Config {
         return inlineEnabled;
     }
 
+    // number of threads used to translate packages, see PackageDeclarationTranslator
+    public int getTranslationThreads() {
+        return translationThreads;
+    }
+
     @NotNull
     public Project getProject() {
         return project;
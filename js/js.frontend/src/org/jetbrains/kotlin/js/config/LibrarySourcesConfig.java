@@ -71,9 +71,10 @@ public class LibrarySourcesConfig extends Config {
             boolean inlineEnabled,
             boolean isUnitTestConfig,
             boolean metaInfo,
-            boolean kjsm
+            boolean kjsm,
+            int translationThreads
     ) {
-        super(project, moduleId, ecmaVersion, sourceMap, inlineEnabled, metaInfo, kjsm);
+        super(project, moduleId, ecmaVersion, sourceMap, inlineEnabled, metaInfo, kjsm, translationThreads);
         this.files = files;
         this.isUnitTestConfig = isUnitTestConfig;
     }
@@ -199,6 +200,7 @@ public class LibrarySourcesConfig extends Config {
         boolean isUnitTestConfig = false;
         boolean metaInfo = false;
         boolean kjsm = false;
+        int translationThreads = 1;
 
         public Builder(@NotNull Project project, @NotNull String moduleId, @NotNull List<String> files) {
             this.project = project;
@@ -236,8 +238,14 @@ public class LibrarySourcesConfig extends Config {
             return this;
         }
 
+        public Builder translationThreads(int translationThreads) {
+            this.translationThreads = translationThreads;
+            return this;
+        }
+
         public Config build() {
-            return new LibrarySourcesConfig(project, moduleId, files, ecmaVersion, sourceMap, inlineEnabled, isUnitTestConfig, metaInfo, kjsm);
+            return new LibrarySourcesConfig(project, moduleId, files, ecmaVersion, sourceMap, inlineEnabled, isUnitTestConfig, metaInfo, kjsm,
+                                            translationThreads);
         }
     }
 
@@ -43,6 +43,12 @@ import java.io.File
  */
 private val DEFINE_MODULE_PATTERN = "(\\w+)\\.defineModule\\(\\s*(['\"])(\\w+)\\2\\s*,\\s*(\\w+)\\s*\\)".toRegex()
 
+/**
+ * Matches string like Kotlin.defineInlineFunction("stdlib.kotlin.foo", function
+ * The tag is the second group
+ */
+private val DEFINE_INLINE_FUNCTION_PATTERN = "\\.defineInlineFunction\\(\\s*(['\"])([^'\"]+)\\1\\s*,".toRegex()
+
 class FunctionReader(private val context: TranslationContext) {
     /**
      * Maps module name to .js file content, that contains this module definition.
@@ -62,6 +68,12 @@ class FunctionReader(private val context: TranslationContext) {
      */
     private val moduleKotlinVariable = hashMapOf<String, String>()
 
+    /**
+     * Maps module name to offsets of inline function tags in the module's .js file.
+     * Built on the first function read from the module, so that the file is not searched for every function.
+     */
+    private val moduleFunctionTags = hashMapOf<String, InlineFunctionTagIndex>()
+
     init {
         val config = context.config as LibrarySourcesConfig
         val libs = config.libraries.map { File(it) }
@@ -99,14 +111,14 @@ class FunctionReader(private val context: TranslationContext) {
 
         val moduleName = getExternalModuleName(descriptor)
         val file = moduleJsDefinition[moduleName].sure { "Module $moduleName file have not been read" }
-        val function = readFunctionFromSource(descriptor, file)
+        val function = readFunctionFromSource(descriptor, moduleName!!, file)
         function?.markInlineArguments(descriptor)
         return function
     }
 
-    private fun readFunctionFromSource(descriptor: CallableDescriptor, source: String): JsFunction? {
+    private fun readFunctionFromSource(descriptor: CallableDescriptor, moduleName: String, source: String): JsFunction? {
         val tag = Namer.getFunctionTag(descriptor)
-        val index = source.indexOf(tag)
+        val index = moduleFunctionTags.getOrPut(moduleName) { InlineFunctionTagIndex(source) }.offsetOf(tag)
         if (index < 0) return null
 
         // + 1 for closing quote
@@ -116,7 +128,6 @@ class FunctionReader(private val context: TranslationContext) {
         }
 
         val function = parseFunction(source, offset, ThrowExceptionOnErrorReporter, JsRootScope(JsProgram("<inline>")))
-        val moduleName = getExternalModuleName(descriptor)!!
         val moduleNameLiteral = context.program().getStringLiteral(moduleName)
         val moduleReference =  context.namer().getModuleReference(moduleNameLiteral)
 
@@ -127,6 +138,31 @@ class FunctionReader(private val context: TranslationContext) {
     }
 }
 
+/**
+ * Offsets of inline function tags (right after their opening quotes) in the .js file of a module, collected in a single pass.
+ * A tag which is not defined by defineInlineFunction is searched in quotes, so that it doesn't match a longer tag it is a prefix of.
+ */
+class InlineFunctionTagIndex(private val source: String) {
+    private val offsets = hashMapOf<String, Int>()
+
+    init {
+        val matcher = DEFINE_INLINE_FUNCTION_PATTERN.toPattern().matcher(source)
+        while (matcher.find()) {
+            val tag = matcher.group(2)
+            if (tag !in offsets) {
+                offsets[tag] = matcher.start(2)
+            }
+        }
+    }
+
+    fun offsetOf(tag: String): Int = offsets[tag] ?: indexOfQuoted(tag)
+
+    private fun indexOfQuoted(tag: String): Int {
+        val index = listOf("\"", "'").map { source.indexOf(it + tag + it) }.filter { it >= 0 }.min() ?: return -1
+        return index + 1
+    }
+}
+
 private val Char.isWhitespaceOrComma: Boolean
     get() = this == ',' || this.isWhitespace()
 
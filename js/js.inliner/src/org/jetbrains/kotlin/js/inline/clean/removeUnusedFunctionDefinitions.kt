@@ -19,16 +19,20 @@ package org.jetbrains.kotlin.js.inline.clean
 import com.google.dart.compiler.backend.js.ast.*
 import com.google.dart.compiler.backend.js.ast.metadata.staticRef
 import com.google.dart.compiler.backend.js.ast.metadata.isLocal
+import com.google.dart.compiler.backend.js.ast.metadata.isModulePrivate
 
 import org.jetbrains.kotlin.js.inline.util.IdentitySet
-import org.jetbrains.kotlin.js.inline.util.collectFunctionReferencesInside
 
 /**
  * Removes unused function definitions:
  *  f: function() { return 10 }
  *
- * At now, it only removes unused local functions and function literals,
- * because named functions can be referenced from another module.
+ * Only local functions, function literals and module private functions (see isModulePrivate)
+ * unreachable from the rest of the program are removed,
+ * because other named functions can be referenced from another module.
+ *
+ * Code of js("...") calls is parsed with its own names for declarations which are not visible from the calling function,
+ * and with property references without names, so such a reference keeps every removable function with the same identifier.
  */
 fun removeUnusedFunctionDefinitions(root: JsNode, functions: Map<JsName, JsFunction>) {
     val removable = with(UnusedLocalFunctionsCollector(functions)) {
@@ -47,16 +51,17 @@ private class UnusedLocalFunctionsCollector(functions: Map<JsName, JsFunction>)
     private val tracker = ReferenceTracker<JsName, JsFunction>()
     private val functions = functions
     private val processed = IdentitySet<JsFunction>()
+    private val removableByIdent = functions.filter { isRemovable(it.value) }.keys.groupBy { it.ident }
 
     val removableFunctions: List<JsFunction>
         get() = tracker.removable
 
     fun process() {
-        functions.filter { it.value.isLocal }
+        functions.filter { isRemovable(it.value) }
                  .forEach { tracker.addCandidateForRemoval(it.key, it.value) }
 
         for ((name, function) in functions) {
-            if (function.isLocal) {
+            if (isRemovable(function)) {
                 processLocalFunction(name, function)
             } else {
                 processNonLocalFunction(function)
@@ -84,26 +89,48 @@ private class UnusedLocalFunctionsCollector(functions: Map<JsName, JsFunction>)
     }
 
     override fun endVisit(x: JsNameRef, ctx: JsContext<*>) {
-        val name = x.name
-        if (isFunctionReference(x) && name != null) {
-            tracker.markReachable(name)
+        for (referenced in resolveFunctionReference(x)) {
+            tracker.markReachable(referenced)
         }
     }
 
     private fun processLocalFunction(name: JsName, function: JsFunction) {
-        for (referenced in collectFunctionReferencesInside(function)) {
+        for (referenced in collectFunctionReferences(function)) {
             tracker.addRemovableReference(name, referenced)
         }
     }
 
     private fun processNonLocalFunction(function: JsFunction) {
-        for (referenced in collectFunctionReferencesInside(function)) {
+        for (referenced in collectFunctionReferences(function)) {
             tracker.markReachable(referenced)
         }
     }
 
-    private fun isFunctionReference(nameRef: HasName?): Boolean {
-        return nameRef?.name?.staticRef is JsFunction
+    private fun isRemovable(function: JsFunction): Boolean = function.isLocal || function.isModulePrivate
+
+    private fun collectFunctionReferences(scope: JsNode): List<JsName> {
+        val references = IdentitySet<JsName>()
+
+        object : RecursiveJsVisitor() {
+            override fun visitNameRef(nameRef: JsNameRef) {
+                super.visitNameRef(nameRef)
+                references.addAll(resolveFunctionReference(nameRef))
+            }
+        }.accept(scope)
+
+        return references.toList()
+    }
+
+    private fun resolveFunctionReference(nameRef: JsNameRef): List<JsName> {
+        val name = nameRef.name
+        if (name != null && isFunctionReference(name)) return listOf(name)
+
+        return removableByIdent[nameRef.ident].orEmpty()
+    }
+
+    // names of module private functions are declared by the translator without static references
+    private fun isFunctionReference(name: JsName): Boolean {
+        return name.staticRef is JsFunction || name in functions
     }
 
     private fun wasProcessed(function: JsFunction?): Boolean = function != null && function in processed
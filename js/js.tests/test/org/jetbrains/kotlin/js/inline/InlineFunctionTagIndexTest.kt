@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.js.inline
+
+import junit.framework.TestCase
+
+class InlineFunctionTagIndexTest : TestCase() {
+    fun testDoubleQuotedTag() {
+        val source = "Kotlin.defineInlineFunction(\"lib.foo.bar\", function (x) { return x; })"
+        assertEquals(source.indexOf("lib.foo.bar"), InlineFunctionTagIndex(source).offsetOf("lib.foo.bar"))
+    }
+
+    fun testSingleQuotedTag() {
+        val source = "_.defineInlineFunction( 'lib.foo.bar' , function (x) { return x; })"
+        assertEquals(source.indexOf("lib.foo.bar"), InlineFunctionTagIndex(source).offsetOf("lib.foo.bar"))
+    }
+
+    fun testTagWhichIsPrefixOfAnotherTag() {
+        val source = "Kotlin.defineInlineFunction('lib.foo.bar_za3lpa$', function (x) { return x; }),\n" +
+                     "Kotlin.defineInlineFunction(\"lib.foo.bar\", function () { return 1; })"
+        val index = InlineFunctionTagIndex(source)
+
+        assertEquals(source.indexOf("lib.foo.bar\""), index.offsetOf("lib.foo.bar"))
+        assertEquals(source.indexOf("lib.foo.bar_za3lpa$"), index.offsetOf("lib.foo.bar_za3lpa$"))
+    }
+
+    fun testFirstDefinitionOfTagIsUsed() {
+        val source = "Kotlin.defineInlineFunction('lib.foo', function () { return 1; }),\n" +
+                     "Kotlin.defineInlineFunction('lib.foo', function () { return 2; })"
+        assertEquals(source.indexOf("lib.foo"), InlineFunctionTagIndex(source).offsetOf("lib.foo"))
+    }
+
+    fun testTagOutsideOfDefineInlineFunctionIsSearchedInQuotes() {
+        val source = "var tags = ['lib.foo.barBaz', \"lib.foo.bar\"];"
+        assertEquals(source.indexOf("lib.foo.bar\""), InlineFunctionTagIndex(source).offsetOf("lib.foo.bar"))
+    }
+
+    fun testMissingTag() {
+        val source = "Kotlin.defineInlineFunction('lib.foo.barBaz', function () { return 1; })"
+        assertEquals(-1, InlineFunctionTagIndex(source).offsetOf("lib.foo.bar"))
+    }
+}
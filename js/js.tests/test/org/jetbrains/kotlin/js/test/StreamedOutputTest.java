@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.js.test;
+
+import com.intellij.openapi.util.io.FileUtil;
+import kotlin.Unit;
+import kotlin.jvm.functions.Function2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.kotlin.backend.common.output.OutputFile;
+import org.jetbrains.kotlin.backend.common.output.OutputFileCollection;
+import org.jetbrains.kotlin.js.config.Config;
+import org.jetbrains.kotlin.js.facade.K2JSTranslator;
+import org.jetbrains.kotlin.js.facade.MainCallParameters;
+import org.jetbrains.kotlin.js.facade.TranslationResult;
+import org.jetbrains.kotlin.psi.KtFile;
+import org.jetbrains.kotlin.test.KotlinTestUtils;
+
+import java.io.File;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Checks that the code and the source map written by TranslationResult.Success.writeOutputFiles while they're generated
+// are the same as the ones returned by getOutputFiles
+public final class StreamedOutputTest extends SingleFileTranslationTest {
+    private static final String FILENAME = "simpleWithPrefixAndPostfix.kt";
+
+    public StreamedOutputTest() {
+        super("outputPrefixPostfix/");
+    }
+
+    public void testSmallOutput() throws Exception {
+        checkFooBoxIsOk(FILENAME);
+    }
+
+    // the code and the source map are bigger than the buffers which are moved to the files on new lines
+    public void testBigOutput() throws Exception {
+        StringBuilder text = new StringBuilder("package foo\n\n");
+        for (int i = 0; i < 1000; i++) {
+            text.append("fun f").append(i).append("(x: Int): Int {\n    val y = x + ").append(i).append("\n    return y * 2\n}\n\n");
+        }
+        text.append("fun box(): String = if (f999(1) == 2000) \"OK\" else \"fail\"\n");
+
+        File file = new File(KotlinTestUtils.tmpDirForTest(this), "bigOutput.kt");
+        FileUtil.writeToFile(file, text.toString());
+        checkFooBoxIsOkByPath(file.getPath());
+    }
+
+    @Override
+    protected boolean shouldGenerateSourceMap() {
+        return true;
+    }
+
+    @Override
+    protected File getOutputPrefixFile() {
+        return new File(getInputFilePath(FILENAME + ".prefix"));
+    }
+
+    @Override
+    protected File getOutputPostfixFile() {
+        return new File(getInputFilePath(FILENAME + ".postfix"));
+    }
+
+    @Override
+    protected void translateFiles(
+            @NotNull List<KtFile> jetFiles,
+            @NotNull File outputFile,
+            @NotNull MainCallParameters mainCallParameters,
+            @NotNull Config config
+    ) throws Exception {
+        super.translateFiles(jetFiles, outputFile, mainCallParameters, config);
+
+        TranslationResult.Success result = (TranslationResult.Success) new K2JSTranslator(config).translate(jetFiles, mainCallParameters);
+        File streamedOutputFile = new File(new File(outputFile.getParentFile(), "streamed"), outputFile.getName());
+        OutputFileCollection expectedFiles = result.getOutputFiles(streamedOutputFile, getOutputPrefixFile(), getOutputPostfixFile());
+        // outputs of a previous compilation are replaced
+        for (OutputFile expected : expectedFiles.asList()) {
+            FileUtil.writeToFile(new File(streamedOutputFile.getParentFile(), expected.getRelativePath()), "previous");
+        }
+        result.writeOutputFiles(streamedOutputFile, getOutputPrefixFile(), getOutputPostfixFile(), new Function2<List<? extends File>, File, Unit>() {
+            @Override
+            public Unit invoke(List<? extends File> sources, File output) {
+                return Unit.INSTANCE;
+            }
+        });
+
+        List<OutputFile> expectedFileList = expectedFiles.asList();
+        assertEquals(2, expectedFileList.size());
+        // temporary files are renamed to the outputs
+        File[] writtenFiles = streamedOutputFile.getParentFile().listFiles();
+        assertNotNull(writtenFiles);
+        assertEquals(expectedFileList.size(), writtenFiles.length);
+        for (OutputFile expected : expectedFileList) {
+            String actual = FileUtil.loadFile(new File(streamedOutputFile.getParentFile(), expected.getRelativePath()));
+            if (expected.getRelativePath().endsWith(".map")) {
+                // sources are written after mappings when the source map is streamed
+                for (Pattern field : SOURCE_MAP_FIELDS) {
+                    assertEquals(field.pattern(), getField(field, expected.asText()), getField(field, actual));
+                }
+            }
+            else {
+                assertEquals(expected.asText(), actual);
+            }
+        }
+    }
+
+    private static final Pattern[] SOURCE_MAP_FIELDS = {
+            Pattern.compile("\"version\":(\\d+)"),
+            Pattern.compile("\"file\":\"([^\"]*)\""),
+            Pattern.compile("\"sources\":\\[([^\\]]*)\\]"),
+            Pattern.compile("\"names\":\\[([^\\]]*)\\]"),
+            Pattern.compile("\"mappings\":\"([^\"]*)\"")
+    };
+
+    @NotNull
+    private static String getField(@NotNull Pattern field, @NotNull String sourceMap) {
+        Matcher matcher = field.matcher(sourceMap);
+        assertTrue("No " + field.pattern() + " in " + sourceMap, matcher.find());
+        return matcher.group(1);
+    }
+}
@@ -47,6 +47,12 @@ public class InlineSizeReductionTestGenerated extends AbstractInlineSizeReductio
         doTest(fileName);
     }
 
+    @TestMetadata("privateFunctionsUsedFromJsCode.kt")
+    public void testPrivateFunctionsUsedFromJsCode() throws Exception {
+        String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/inlineSizeReduction/cases/privateFunctionsUsedFromJsCode.kt");
+        doTest(fileName);
+    }
+
     @TestMetadata("returnInlineCall.kt")
     public void testReturnInlineCall() throws Exception {
         String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/inlineSizeReduction/cases/returnInlineCall.kt");
@@ -65,6 +71,12 @@ public class InlineSizeReductionTestGenerated extends AbstractInlineSizeReductio
         doTest(fileName);
     }
 
+    @TestMetadata("unusedPrivateFunctions.kt")
+    public void testUnusedPrivateFunctions() throws Exception {
+        String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/inlineSizeReduction/cases/unusedPrivateFunctions.kt");
+        doTest(fileName);
+    }
+
     @TestMetadata("valAssignment.kt")
     public void testValAssignment() throws Exception {
         String fileName = KotlinTestUtils.navigationMetadata("js/js.translator/testData/inlineSizeReduction/cases/valAssignment.kt");
@@ -168,6 +168,14 @@ public class DirectiveTestUtils {
         }
     };
 
+    private static final DirectiveHandler FUNCTION_REMOVED = new DirectiveHandler("CHECK_FUNCTION_REMOVED") {
+        @Override
+        void processEntry(@NotNull JsNode ast, @NotNull ArgumentsHelper arguments) throws Exception {
+            String functionName = arguments.getPositionalArgument(0);
+            assertNull("Unused function has not been removed: " + functionName, AstSearchUtil.findFunction(ast, functionName));
+        }
+    };
+
     private static final List<DirectiveHandler> DIRECTIVE_HANDLERS = Arrays.asList(
             FUNCTION_CONTAINS_NO_CALLS,
             FUNCTION_NOT_CALLED,
@@ -178,7 +186,8 @@ public class DirectiveTestUtils {
             COUNT_VARS,
             COUNT_BREAKS,
             HAS_INLINE_METADATA,
-            HAS_NO_INLINE_METADATA
+            HAS_NO_INLINE_METADATA,
+            FUNCTION_REMOVED
     );
 
     public static void processDirectives(@NotNull JsNode ast, @NotNull String sourceCode) throws Exception {
@@ -19,6 +19,7 @@ package org.jetbrains.kotlin.js.facade
 import com.google.dart.compiler.backend.js.ast.JsProgram
 import com.google.dart.compiler.util.TextOutput
 import com.google.dart.compiler.util.TextOutputImpl
+import com.intellij.openapi.util.io.FileUtil
 import com.intellij.openapi.util.text.StringUtil
 import com.intellij.openapi.vfs.VfsUtilCore
 import org.jetbrains.kotlin.backend.common.output.*
@@ -57,17 +58,104 @@ abstract class TranslationResult protected constructor(val diagnostics: Diagnost
             val code = getCode(output, sourceMapBuilder)
             val prefix = outputPrefixFile?.readText() ?: ""
             val postfix = outputPostfixFile?.readText() ?: ""
-            val sourceFiles = files.map {
-                val virtualFile = it.originalFile.virtualFile
+            val sourceFiles = getSourceFiles()
 
-                when {
-                    virtualFile == null -> File(it.name)
-                    else -> VfsUtilCore.virtualToIoFile(virtualFile)
+            val jsFile = SimpleOutputFile(sourceFiles, outputFile.name, prefix + code + postfix)
+            val outputFiles = arrayListOf<OutputFile>(jsFile)
+            outputFiles.addAll(getMetadataFiles(outputFile, sourceFiles))
+
+            if (sourceMapBuilder != null) {
+                sourceMapBuilder.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix))
+                val sourceMapFile = SimpleOutputFile(sourceFiles, sourceMapBuilder.outFile.name, sourceMapBuilder.build())
+                outputFiles.add(sourceMapFile)
+            }
+
+            return SimpleOutputFileCollection(outputFiles)
+        }
+
+        /**
+         * Writes the same files as [getOutputFiles] returns to the directory of [outputFile], but the code and the source map
+         * are written while they're generated, instead of being built in memory as strings first.
+         * [report] is called for every file before it's written.
+         * The code and the source map are replaced only when they are written completely.
+         */
+        fun writeOutputFiles(
+                outputFile: File,
+                outputPrefixFile: File?,
+                outputPostfixFile: File?,
+                report: (sources: List<File>, output: File) -> Unit
+        ) {
+            val outputDir = outputFile.parentFile ?: outputFile.absoluteFile.parentFile
+            val prefix = outputPrefixFile?.readText() ?: ""
+            val postfix = outputPostfixFile?.readText() ?: ""
+            val sourceFiles = getSourceFiles()
+
+            val jsFile = File(outputDir, outputFile.name)
+            val sourceMapFile = if (config.isSourcemap) File(outputDir, outputFile.name + ".map") else null
+            report(sourceFiles, jsFile)
+            if (sourceMapFile != null) {
+                report(sourceFiles, sourceMapFile)
+            }
+
+            FileUtil.createParentDirs(jsFile)
+            val tempJsFile = createTempFileFor(jsFile)
+            var tempSourceMapFile: File? = null
+            try {
+                tempJsFile.bufferedWriter().use { writer ->
+                    writer.write(prefix)
+                    val output = TextOutputImpl(false, writer)
+
+                    if (sourceMapFile != null) {
+                        tempSourceMapFile = createTempFileFor(sourceMapFile)
+                        tempSourceMapFile!!.bufferedWriter().use { sourceMapWriter ->
+                            val sourceMapBuilder = SourceMap3Builder(outputFile, output, SourceMapBuilderConsumer(), sourceMapWriter)
+                            sourceMapBuilder.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix))
+                            program.accept(JsSourceGenerationVisitor(output, sourceMapBuilder))
+                            sourceMapBuilder.finish()
+                        }
+                    }
+                    else {
+                        program.accept(JsSourceGenerationVisitor(output, null))
+                    }
+
+                    output.flush()
+                    writer.write(postfix)
                 }
+
+                if (sourceMapFile != null) {
+                    FileUtil.rename(tempSourceMapFile!!, sourceMapFile)
+                }
+                FileUtil.rename(tempJsFile, jsFile)
+            }
+            finally {
+                // temporary files are left only if writing or renaming failed
+                tempSourceMapFile?.delete()
+                tempJsFile.delete()
             }
 
-            val jsFile = SimpleOutputFile(sourceFiles, outputFile.name, prefix + code + postfix)
-            val outputFiles = arrayListOf<OutputFile>(jsFile)
+            for (file in getMetadataFiles(outputFile, sourceFiles)) {
+                val output = File(outputDir, file.relativePath)
+                report(file.sourceFiles, output)
+                FileUtil.writeToFile(output, file.asByteArray())
+            }
+        }
+
+        // Files are written to a temporary file in the same directory and renamed to the target when they are complete,
+        // so that an interrupted compilation doesn't leave a truncated file in place of the previous one
+        private fun createTempFileFor(file: File): File = File.createTempFile(file.name, ".tmp", file.absoluteFile.parentFile)
+
+        private fun getSourceFiles(): List<File> =
+                files.map {
+                    val virtualFile = it.originalFile.virtualFile
+
+                    when {
+                        virtualFile == null -> File(it.name)
+                        else -> VfsUtilCore.virtualToIoFile(virtualFile)
+                    }
+                }
+
+        private fun getMetadataFiles(outputFile: File, sourceFiles: List<File>): List<OutputFile> {
+            val outputFiles = arrayListOf<OutputFile>()
 
             if (config.isMetaInfo) {
                 val metaFileName = KotlinJavascriptMetadataUtils.replaceSuffix(outputFile.name)
@@ -84,13 +172,7 @@ abstract class TranslationResult protected constructor(val diagnostics: Diagnost
                 }
             }
 
-            if (sourceMapBuilder != null) {
-                sourceMapBuilder.skipLinesAtBeginning(StringUtil.getLineBreakCount(prefix))
-                val sourceMapFile = SimpleOutputFile(sourceFiles, sourceMapBuilder.outFile.name, sourceMapBuilder.build())
-                outputFiles.add(sourceMapFile)
-            }
-
-            return SimpleOutputFileCollection(outputFiles)
+            return outputFiles
         }
 
         private fun getCode(output: TextOutput, sourceMapBuilder: SourceMapBuilder?): String {
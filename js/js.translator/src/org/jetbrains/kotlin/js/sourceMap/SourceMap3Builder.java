@@ -23,10 +23,14 @@ import com.intellij.util.PairConsumer;
 import gnu.trove.TObjectIntHashMap;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
 public class SourceMap3Builder implements SourceMapBuilder {
+    private static final int FLUSH_THRESHOLD = 8192;
+
     private final StringBuilder out = new StringBuilder(8192);
     private final File generatedFile;
     private final TextOutput textOutput;
@@ -50,10 +54,25 @@ public class SourceMap3Builder implements SourceMapBuilder {
     private int previousSourceLine;
     private int previousSourceColumn;
 
+    // If not null, mappings are written to it as they're added, and the rest of the source map is written by finish()
+    private final Writer writer;
+    private boolean headerWritten;
+    private IOException writeError;
+
     public SourceMap3Builder(File generatedFile, TextOutput textOutput, PairConsumer<SourceMapBuilder, Object> sourceInfoConsumer) {
+        this(generatedFile, textOutput, sourceInfoConsumer, null);
+    }
+
+    public SourceMap3Builder(
+            File generatedFile,
+            TextOutput textOutput,
+            PairConsumer<SourceMapBuilder, Object> sourceInfoConsumer,
+            Writer writer
+    ) {
         this.generatedFile = generatedFile;
         this.textOutput = textOutput;
         this.sourceInfoConsumer = sourceInfoConsumer;
+        this.writer = writer;
     }
 
     @Override
@@ -63,6 +82,10 @@ public class SourceMap3Builder implements SourceMapBuilder {
 
     @Override
     public String build() {
+        if (writer != null) {
+            throw new IllegalStateException("Source map is written to the writer, finish() should be called instead");
+        }
+
         StringBuilder sb = new StringBuilder(out.length() + (128 * orderedSources.size()));
         sb.append("{\"version\":3,\"file\":\"").append(generatedFile.getName()).append('"').append(',');
         appendSources(sb);
@@ -73,6 +96,39 @@ public class SourceMap3Builder implements SourceMapBuilder {
         return sb.toString();
     }
 
+    /**
+     * Writes the rest of the source map to the writer. Sources are written after mappings, because they're only known in the end.
+     */
+    public void finish() throws IOException {
+        writeMappings();
+        if (writeError != null) {
+            throw writeError;
+        }
+
+        StringBuilder sb = new StringBuilder(128 * orderedSources.size());
+        sb.append("\",");
+        appendSources(sb);
+        sb.append(",\"names\":[]}");
+        writer.write(sb.toString());
+        writer.flush();
+    }
+
+    private void writeMappings() {
+        if (writeError == null) {
+            try {
+                if (!headerWritten) {
+                    writer.write("{\"version\":3,\"file\":\"" + generatedFile.getName() + "\",\"mappings\":\"");
+                    headerWritten = true;
+                }
+                writer.append(out);
+            }
+            catch (IOException e) {
+                writeError = e;
+            }
+        }
+        out.setLength(0);
+    }
+
     private void appendSources(StringBuilder sb) {
         boolean isNotFirst = false;
         sb.append('"').append("sources").append("\":[");
@@ -92,10 +148,16 @@ public class SourceMap3Builder implements SourceMapBuilder {
     public void newLine() {
         out.append(';');
         previousGeneratedColumn = -1;
+        if (writer != null && out.length() >= FLUSH_THRESHOLD) {
+            writeMappings();
+        }
     }
 
     @Override
     public void skipLinesAtBeginning(int count) {
+        if (headerWritten) {
+            throw new IllegalStateException("Lines should be skipped before mappings are written");
+        }
         out.insert(0, StringUtil.repeatSymbol(';', count));
     }
 
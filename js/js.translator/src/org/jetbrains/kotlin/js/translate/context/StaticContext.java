@@ -16,7 +16,6 @@
 
 package org.jetbrains.kotlin.js.translate.context;
 
-import com.google.common.collect.Maps;
 import com.google.dart.compiler.backend.js.ast.*;
 import com.intellij.openapi.util.Factory;
 import com.intellij.util.containers.ContainerUtil;
@@ -37,6 +36,7 @@ import org.jetbrains.kotlin.resolve.BindingTrace;
 import org.jetbrains.kotlin.resolve.DescriptorUtils;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.jetbrains.kotlin.js.translate.utils.AnnotationsUtils.*;
 import static org.jetbrains.kotlin.js.translate.utils.JsDescriptorUtils.*;
@@ -78,10 +78,12 @@ public final class StaticContext {
     @NotNull
     private final JsScope rootScope;
 
+    // Packages can be translated in parallel: generators and maps below are read without locking,
+    // and new names, scopes and qualifiers are generated under the lock of the context itself
     @NotNull
     private final Generator<JsName> names = new NameGenerator();
     @NotNull
-    private final Map<FqName, JsName> packageNames = Maps.newHashMap();
+    private final Map<FqName, JsName> packageNames = new ConcurrentHashMap<FqName, JsName>();
     @NotNull
     private final Generator<JsScope> scopes = new ScopeGenerator();
     @NotNull
@@ -90,7 +92,7 @@ public final class StaticContext {
     private final Generator<Boolean> qualifierIsNull = new QualifierIsNullGenerator();
 
     @NotNull
-    private final Map<JsScope, JsFunction> scopeToFunction = Maps.newHashMap();
+    private final Map<JsScope, JsFunction> scopeToFunction = new ConcurrentHashMap<JsScope, JsFunction>();
 
     @NotNull
     private final Config config;
@@ -194,13 +196,18 @@ public final class StaticContext {
 
     @NotNull
     public JsName getNameForPackage(@NotNull final FqName packageFqName) {
-        return ContainerUtil.getOrCreate(packageNames, packageFqName, new Factory<JsName>() {
-            @Override
-            public JsName create() {
-                String name = Namer.generatePackageName(packageFqName);
-                return getRootScope().declareName(name);
-            }
-        });
+        JsName cached = packageNames.get(packageFqName);
+        if (cached != null) return cached;
+
+        synchronized (this) {
+            return ContainerUtil.getOrCreate(packageNames, packageFqName, new Factory<JsName>() {
+                @Override
+                public JsName create() {
+                    String name = Namer.generatePackageName(packageFqName);
+                    return getRootScope().declareName(name);
+                }
+            });
+        }
     }
 
     @NotNull
@@ -237,6 +244,7 @@ public final class StaticContext {
     private final class NameGenerator extends Generator<JsName> {
 
         public NameGenerator() {
+            super(StaticContext.this);
             Rule<JsName> namesForDynamic = new Rule<JsName>() {
                 @Override
                 @Nullable
@@ -373,7 +381,7 @@ public final class StaticContext {
     }
 
     @NotNull
-    public JsName declarePropertyOrPropertyAccessorName(@NotNull DeclarationDescriptor descriptor, @NotNull String name, boolean fresh) {
+    public synchronized JsName declarePropertyOrPropertyAccessorName(@NotNull DeclarationDescriptor descriptor, @NotNull String name, boolean fresh) {
         JsScope scope = getEnclosingScope(descriptor);
         return fresh ? scope.declareFreshName(name) : scope.declareName(name);
     }
@@ -387,6 +395,7 @@ public final class StaticContext {
     private final class ScopeGenerator extends Generator<JsScope> {
 
         public ScopeGenerator() {
+            super(StaticContext.this);
             Rule<JsScope> generateNewScopesForClassesWithNoAncestors = new Rule<JsScope>() {
                 @Override
                 public JsScope apply(@NotNull DeclarationDescriptor descriptor) {
@@ -461,6 +470,7 @@ public final class StaticContext {
 
     private final class QualifierGenerator extends Generator<JsExpression> {
         public QualifierGenerator() {
+            super(StaticContext.this);
             Rule<JsExpression> standardObjectsHaveKotlinQualifier = new Rule<JsExpression>() {
                 @Override
                 public JsExpression apply(@NotNull DeclarationDescriptor descriptor) {
@@ -17,19 +17,31 @@
 package org.jetbrains.kotlin.js.translate.context.generator;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Generator<V> {
+    // Generated values are read without locking, only generation is guarded by the lock,
+    // which is shared by generators whose rules depend on each other
     @NotNull
-    private final Map<DeclarationDescriptor, V> values = Maps.newHashMap();
+    private final Map<DeclarationDescriptor, V> values = new ConcurrentHashMap<DeclarationDescriptor, V>();
     @NotNull
     private final List<Rule<V>> rules = Lists.newArrayList();
+    @NotNull
+    private final Object lock;
+
+    public Generator() {
+        this.lock = this;
+    }
+
+    public Generator(@NotNull Object lock) {
+        this.lock = lock;
+    }
 
     public void addRule(@NotNull Rule<V> rule) {
         rules.add(rule);
@@ -41,9 +53,17 @@ public class Generator<V> {
         if (result != null) {
             return result;
         }
-        result = generate(descriptor);
-        values.put(descriptor, result);
-        return result;
+        synchronized (lock) {
+            result = values.get(descriptor);
+            if (result != null) {
+                return result;
+            }
+            result = generate(descriptor);
+            if (result != null) {
+                values.put(descriptor, result);
+            }
+            return result;
+        }
     }
 
     @Nullable
@@ -19,17 +19,24 @@ package org.jetbrains.kotlin.js.translate.declaration;
 import com.google.dart.compiler.backend.js.ast.*;
 import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.kotlin.descriptors.DeclarationDescriptor;
 import org.jetbrains.kotlin.descriptors.PackageFragmentDescriptor;
+import org.jetbrains.kotlin.descriptors.PropertyDescriptor;
+import org.jetbrains.kotlin.diagnostics.Diagnostic;
 import org.jetbrains.kotlin.js.facade.exceptions.TranslationRuntimeException;
 import org.jetbrains.kotlin.js.translate.context.Namer;
 import org.jetbrains.kotlin.js.translate.context.TranslationContext;
 import org.jetbrains.kotlin.js.translate.general.AbstractTranslator;
+import org.jetbrains.kotlin.js.translate.utils.AnnotationsUtils;
+import org.jetbrains.kotlin.js.translate.utils.BufferingDiagnosticsTrace;
 import org.jetbrains.kotlin.name.FqName;
-import org.jetbrains.kotlin.psi.KtFile;
+import org.jetbrains.kotlin.psi.*;
 import org.jetbrains.kotlin.resolve.BindingContext;
 import org.jetbrains.kotlin.resolve.BindingContextUtils;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.google.dart.compiler.backend.js.ast.JsVars.JsVar;
 
@@ -53,39 +60,183 @@ public final class PackageDeclarationTranslator extends AbstractTranslator {
         // predictable order
         Map<FqName, DefineInvocation> packageFqNameToDefineInvocation = new THashMap<FqName, DefineInvocation>();
 
+        int threads = context().getConfig().getTranslationThreads();
+        if (threads > 1) {
+            translateInParallel(packageFqNameToDefineInvocation, threads);
+        }
+        else {
+            for (KtFile file : files) {
+                translateFile(getOrCreateTranslator(file, packageFqNameToDefineInvocation), file);
+            }
+        }
+
+        for (PackageTranslator translator : packageFragmentToTranslator.values()) {
+            translator.add(packageFqNameToDefineInvocation);
+        }
+
+        JsVars vars = new JsVars(true);
+        vars.addIfHasInitializer(getRootPackageDeclaration(packageFqNameToDefineInvocation.get(FqName.ROOT)));
+
+        return Collections.<JsStatement>singletonList(vars);
+    }
+
+    // Every package is translated by a separate task, files of a package are translated in their original order by the same task.
+    // Names of declarations are allocated beforehand in the order of files (see declareNames), so that fresh names don't depend on scheduling,
+    // and diagnostics of every file are buffered and reported in the order of files after all tasks finish
+    private void translateInParallel(@NotNull Map<FqName, DefineInvocation> packageFqNameToDefineInvocation, int threads) {
+        Map<PackageTranslator, List<KtFile>> filesByTranslator = new LinkedHashMap<PackageTranslator, List<KtFile>>();
         for (KtFile file : files) {
-            PackageFragmentDescriptor packageFragment =
-                    BindingContextUtils.getNotNull(context().bindingContext(), BindingContext.FILE_TO_PACKAGE_FRAGMENT, file);
-
-            PackageTranslator translator = packageFragmentToTranslator.get(packageFragment);
-            if (translator == null) {
-                createRootPackageDefineInvocationIfNeeded(packageFqNameToDefineInvocation);
-                translator = PackageTranslator.create(packageFragment, context());
-                packageFragmentToTranslator.put(packageFragment, translator);
+            PackageTranslator translator = getOrCreateTranslator(file, packageFqNameToDefineInvocation);
+            List<KtFile> translatorFiles = filesByTranslator.get(translator);
+            if (translatorFiles == null) {
+                translatorFiles = new ArrayList<KtFile>();
+                filesByTranslator.put(translator, translatorFiles);
             }
+            translatorFiles.add(file);
+            declareNames(file.getDeclarations());
+        }
+
+        final BufferingDiagnosticsTrace trace = (BufferingDiagnosticsTrace) context().bindingTrace();
+        final Map<KtFile, List<Diagnostic>> diagnosticsByFile = new ConcurrentHashMap<KtFile, List<Diagnostic>>();
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(filesByTranslator.size());
+        for (final Map.Entry<PackageTranslator, List<KtFile>> entry : filesByTranslator.entrySet()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (KtFile file : entry.getValue()) {
+                        trace.startBuffering();
+                        try {
+                            translateFile(entry.getKey(), file);
+                        }
+                        finally {
+                            diagnosticsByFile.put(file, trace.stopBuffering());
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
 
-            try {
-                translator.translate(file);
+        // Fork-join pool is not used here because the compiler should be able to run on JDK 1.6
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                getTaskResult(future);
             }
-            catch (TranslationRuntimeException e) {
-                throw e;
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            executor.shutdownNow();
+            reportDiagnostics(trace, diagnosticsByFile);
+        }
+    }
+
+    private void reportDiagnostics(@NotNull BufferingDiagnosticsTrace trace, @NotNull Map<KtFile, List<Diagnostic>> diagnosticsByFile) {
+        for (KtFile file : files) {
+            List<Diagnostic> diagnostics = diagnosticsByFile.get(file);
+            if (diagnostics == null) continue;
+            for (Diagnostic diagnostic : diagnostics) {
+                trace.report(diagnostic);
             }
-            catch (RuntimeException e) {
-                throw new TranslationRuntimeException(file, e);
+        }
+    }
+
+    // Fresh names of functions, classes and constructors depend on the names declared before them in the same scope,
+    // and the tasks of other packages name these declarations when they refer to them, so every non-local declaration is named here.
+    // Local declarations are named in scopes of functions, which are translated by a single task.
+    // Declarations of libraries are not named here: their names have to match the names in the libraries,
+    // so they don't clash in their scopes and don't depend on the order in which they are named.
+    private void declareNames(@NotNull List<KtDeclaration> declarations) {
+        for (KtDeclaration declaration : declarations) {
+            if (declaration instanceof KtClassOrObject) {
+                KtClassOrObject classOrObject = (KtClassOrObject) declaration;
+                if (!declareName(classOrObject)) continue;
+
+                for (KtParameter parameter : classOrObject.getPrimaryConstructorParameters()) {
+                    if (parameter.hasValOrVar()) {
+                        declarePropertyNames(context().bindingContext().get(BindingContext.PRIMARY_CONSTRUCTOR_PARAMETER, parameter));
+                    }
+                }
+                declareNames(classOrObject.getDeclarations());
             }
-            catch (AssertionError e) {
-                throw new TranslationRuntimeException(file, e);
+            else if (declaration instanceof KtProperty) {
+                declarePropertyNames(context().bindingContext().get(BindingContext.VARIABLE, declaration));
+            }
+            else if (declaration instanceof KtNamedFunction || declaration instanceof KtSecondaryConstructor) {
+                declareName(declaration);
             }
         }
+    }
 
-        for (PackageTranslator translator : packageFragmentToTranslator.values()) {
-            translator.add(packageFqNameToDefineInvocation);
+    private boolean declareName(@NotNull KtDeclaration declaration) {
+        DeclarationDescriptor descriptor = context().bindingContext().get(BindingContext.DECLARATION_TO_DESCRIPTOR, declaration);
+        if (descriptor == null || AnnotationsUtils.isPredefinedObject(descriptor)) return false;
+
+        context().getNameForDescriptor(descriptor);
+        return true;
+    }
+
+    private void declarePropertyNames(@Nullable DeclarationDescriptor descriptor) {
+        if (!(descriptor instanceof PropertyDescriptor) || AnnotationsUtils.isPredefinedObject(descriptor)) return;
+
+        PropertyDescriptor property = (PropertyDescriptor) descriptor;
+        context().getNameForDescriptor(property);
+        // accessors of other properties have the name of the property
+        if (property.getExtensionReceiverParameter() == null) return;
+
+        if (property.getGetter() != null) {
+            context().getNameForDescriptor(property.getGetter());
+        }
+        if (property.getSetter() != null) {
+            context().getNameForDescriptor(property.getSetter());
         }
+    }
 
-        JsVars vars = new JsVars(true);
-        vars.addIfHasInitializer(getRootPackageDeclaration(packageFqNameToDefineInvocation.get(FqName.ROOT)));
+    @NotNull
+    private PackageTranslator getOrCreateTranslator(
+            @NotNull KtFile file,
+            @NotNull Map<FqName, DefineInvocation> packageFqNameToDefineInvocation
+    ) {
+        PackageFragmentDescriptor packageFragment =
+                BindingContextUtils.getNotNull(context().bindingContext(), BindingContext.FILE_TO_PACKAGE_FRAGMENT, file);
+
+        PackageTranslator translator = packageFragmentToTranslator.get(packageFragment);
+        if (translator == null) {
+            createRootPackageDefineInvocationIfNeeded(packageFqNameToDefineInvocation);
+            translator = PackageTranslator.create(packageFragment, context());
+            packageFragmentToTranslator.put(packageFragment, translator);
+        }
+        return translator;
+    }
 
-        return Collections.<JsStatement>singletonList(vars);
+    private static void translateFile(@NotNull PackageTranslator translator, @NotNull KtFile file) {
+        try {
+            translator.translate(file);
+        }
+        catch (TranslationRuntimeException e) {
+            throw e;
+        }
+        catch (RuntimeException e) {
+            throw new TranslationRuntimeException(file, e);
+        }
+        catch (AssertionError e) {
+            throw new TranslationRuntimeException(file, e);
+        }
+    }
+
+    private static void getTaskResult(@NotNull Future<Void> future) throws InterruptedException {
+        try {
+            future.get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
     }
 
     private void createRootPackageDefineInvocationIfNeeded(@NotNull Map<FqName, DefineInvocation> packageFqNameToDefineInvocation) {
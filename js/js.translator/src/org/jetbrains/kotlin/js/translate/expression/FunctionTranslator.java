@@ -97,6 +97,7 @@ public final class FunctionTranslator extends AbstractTranslator {
     public JsPropertyInitializer translateAsMethod() {
         JsName functionName = context().getNameForDescriptor(descriptor);
         generateFunctionObject();
+        MetadataProperties.setModulePrivate(functionObject, isModulePrivate(descriptor));
 
         if (shouldBeInlined(descriptor) && DescriptorUtilsKt.isEffectivelyPublicApi(descriptor)) {
             InlineMetadata metadata = InlineMetadata.compose(functionObject, descriptor);
@@ -106,6 +107,12 @@ public final class FunctionTranslator extends AbstractTranslator {
         return new JsPropertyInitializer(functionName.makeRef(), functionObject);
     }
 
+    private static boolean isModulePrivate(@NotNull FunctionDescriptor descriptor) {
+        if (DescriptorUtilsKt.isEffectivelyPublicApi(descriptor)) return false;
+        // non-private members can override or be overridden by functions with the same JS name
+        return descriptor.getContainingDeclaration() instanceof PackageFragmentDescriptor || Visibilities.isPrivate(descriptor.getVisibility());
+    }
+
     private void generateFunctionObject() {
         setParameters(functionObject, translateParameters());
         translateBody();
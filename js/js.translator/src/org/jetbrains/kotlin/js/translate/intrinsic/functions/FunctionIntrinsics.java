@@ -55,7 +55,7 @@ public final class FunctionIntrinsics {
     }
 
     @NotNull
-    public FunctionIntrinsic getIntrinsic(@NotNull FunctionDescriptor descriptor) {
+    public synchronized FunctionIntrinsic getIntrinsic(@NotNull FunctionDescriptor descriptor) {
         FunctionIntrinsic intrinsic = lookUpCache(descriptor);
         if (intrinsic != null) {
             return intrinsic;
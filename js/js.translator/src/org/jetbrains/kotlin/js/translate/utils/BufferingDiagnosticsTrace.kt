@@ -0,0 +1,55 @@
+/*
+ * Copyright 2010-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.kotlin.js.translate.utils
+
+import org.jetbrains.kotlin.diagnostics.Diagnostic
+import org.jetbrains.kotlin.resolve.BindingTrace
+import java.util.*
+
+// Translator only reports diagnostics to the trace, the binding context itself is only read.
+// When packages are translated in parallel, diagnostics of a file are buffered by the thread which translates it
+// and reported to the trace later in the order of files, so that their order doesn't depend on scheduling
+class BufferingDiagnosticsTrace(private val trace: BindingTrace) : BindingTrace by trace {
+    private val buffer = ThreadLocal<MutableList<Diagnostic>?>()
+
+    override fun report(diagnostic: Diagnostic) {
+        val diagnostics = buffer.get()
+        if (diagnostics != null) {
+            diagnostics.add(diagnostic)
+        }
+        else {
+            reportToTrace(diagnostic)
+        }
+    }
+
+    fun startBuffering() {
+        assert(buffer.get() == null) { "Diagnostics are already buffered in this thread" }
+        buffer.set(ArrayList())
+    }
+
+    fun stopBuffering(): List<Diagnostic> {
+        val diagnostics = buffer.get() ?: throw IllegalStateException("Diagnostics are not buffered in this thread")
+        buffer.set(null)
+        return diagnostics
+    }
+
+    @Synchronized
+    private fun reportToTrace(diagnostic: Diagnostic) {
+        trace.report(diagnostic)
+    }
+}
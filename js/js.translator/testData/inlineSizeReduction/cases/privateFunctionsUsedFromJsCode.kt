@@ -0,0 +1,27 @@
+package foo
+
+// CHECK_FUNCTION_REMOVED: unusedPrivate
+
+private fun unusedPrivate(): Int = 1
+
+private fun calledFromJsCode(): Int = 2
+
+private fun calledFromCalledFromJsCode(): Int = 3
+
+private fun calledFromJsCodeInPrivate(): Int = calledFromCalledFromJsCode()
+
+private fun usedPrivate(): Int = js("_.foo.calledFromJsCodeInPrivate()")
+
+class A {
+    private fun calledFromJsCode(): Int = 4
+
+    fun test(): Int = js("this.calledFromJsCode()")
+}
+
+fun box(): String {
+    assertEquals(2, js("_.foo.calledFromJsCode()"))
+    assertEquals(3, usedPrivate())
+    assertEquals(4, A().test())
+
+    return "OK"
+}
@@ -0,0 +1,33 @@
+package foo
+
+// CHECK_CONTAINS_NO_CALLS: usedPrivate
+// CHECK_FUNCTION_REMOVED: unusedPrivate
+// CHECK_FUNCTION_REMOVED: calledFromUnused
+// CHECK_FUNCTION_REMOVED: unusedInternal
+// CHECK_FUNCTION_REMOVED: inlinePrivate
+// CHECK_FUNCTION_REMOVED: unusedPrivateMember
+
+private fun calledFromUnused(): Int = 1
+
+private fun unusedPrivate(): Int = calledFromUnused()
+
+internal fun unusedInternal(): Int = 2
+
+private inline fun inlinePrivate(x: Int): Int = x * 2
+
+private fun usedPrivate(): Int = inlinePrivate(3)
+
+class A {
+    private fun unusedPrivateMember(): Int = 4
+
+    private fun usedPrivateMember(): Int = 5
+
+    fun test(): Int = usedPrivateMember()
+}
+
+fun box(): String {
+    assertEquals(6, usedPrivate())
+    assertEquals(5, A().test())
+
+    return "OK"
+}
@@ -0,0 +1,114 @@
+@file:kotlin.jvm.JvmMultifileClass
+@file:kotlin.jvm.JvmName("ParallelKt")
+
+package kotlin.collections
+
+//
+// NOTE THIS FILE IS AUTO-GENERATED by the GenerateStandardLib.kt
+// See: https://github.com/JetBrains/kotlin/tree/master/libraries/stdlib
+//
+
+import kotlin.comparisons.*
+import java.util.*
+
+import java.util.Collections // TODO: it's temporary while we have java.util.Collections in js
+
+/**
+ * Returns a view of this list which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original list.
+ */
+@kotlin.jvm.JvmVersion
+public fun <T> List<T>.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<T> {
+    return ParallelView(if (this is RandomAccess) this else toList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun <T> Array<out T>.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<T> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun ByteArray.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<Byte> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun ShortArray.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<Short> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun IntArray.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<Int> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun LongArray.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<Long> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun FloatArray.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<Float> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun DoubleArray.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<Double> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun BooleanArray.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<Boolean> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of this array which processes its elements concurrently on the given [executor].
+ * Results of the view operations keep the order of elements in the original array.
+ */
+@kotlin.jvm.JvmVersion
+public fun CharArray.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<Char> {
+    return ParallelView(asList(), executor)
+}
+
+/**
+ * Returns a view of the elements of this sequence which processes them concurrently on the given [executor].
+ * The sequence is iterated immediately, and results of the view operations keep the order of its elements.
+ */
+@kotlin.jvm.JvmVersion
+public fun <T> Sequence<T>.parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor): ParallelView<T> {
+    return ParallelView(toList(), executor)
+}
+
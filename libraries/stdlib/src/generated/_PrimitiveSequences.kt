@@ -0,0 +1,371 @@
+@file:kotlin.jvm.JvmMultifileClass
+@file:kotlin.jvm.JvmName("PrimitiveSequencesKt")
+
+package kotlin.sequences
+
+//
+// NOTE THIS FILE IS AUTO-GENERATED by the GenerateStandardLib.kt
+// See: https://github.com/JetBrains/kotlin/tree/master/libraries/stdlib
+//
+
+import kotlin.comparisons.*
+import java.util.*
+
+import java.util.Collections // TODO: it's temporary while we have java.util.Collections in js
+
+/**
+ * Creates a primitive sequence instance that wraps the original array returning its elements without boxing when being iterated.
+ */
+public fun IntArray.asPrimitiveSequence(): IntSequence {
+    return IntSequence { this.iterator() }
+}
+
+/**
+ * Creates a primitive sequence instance that wraps the original array returning its elements without boxing when being iterated.
+ */
+public fun LongArray.asPrimitiveSequence(): LongSequence {
+    return LongSequence { this.iterator() }
+}
+
+/**
+ * Creates a primitive sequence instance that wraps the original array returning its elements without boxing when being iterated.
+ */
+public fun DoubleArray.asPrimitiveSequence(): DoubleSequence {
+    return DoubleSequence { this.iterator() }
+}
+
+/**
+ * Creates a primitive sequence instance that wraps the original progression returning its elements without boxing when being iterated.
+ */
+public fun IntProgression.asPrimitiveSequence(): IntSequence {
+    return IntSequence { this.iterator() }
+}
+
+/**
+ * Creates a primitive sequence instance that wraps the original progression returning its elements without boxing when being iterated.
+ */
+public fun LongProgression.asPrimitiveSequence(): LongSequence {
+    return LongSequence { this.iterator() }
+}
+
+/**
+ * Creates a [Sequence] instance that wraps the original sequence returning its elements boxed when being iterated.
+ */
+public fun IntSequence.asSequence(): Sequence<Int> {
+    return Sequence { this.iterator() }
+}
+
+/**
+ * Creates a [Sequence] instance that wraps the original sequence returning its elements boxed when being iterated.
+ */
+public fun LongSequence.asSequence(): Sequence<Long> {
+    return Sequence { this.iterator() }
+}
+
+/**
+ * Creates a [Sequence] instance that wraps the original sequence returning its elements boxed when being iterated.
+ */
+public fun DoubleSequence.asSequence(): Sequence<Double> {
+    return Sequence { this.iterator() }
+}
+
+/**
+ * Returns a sequence containing only elements matching the given [predicate].
+ */
+public inline fun IntSequence.filter(crossinline predicate: (Int) -> Boolean): IntSequence {
+    return IntSequence {
+        val iterator = this.iterator()
+        object : IntIterator() {
+            var nextState: Int = -1 // -1 for unknown, 0 for done, 1 for continue
+            var nextItem: Int = 0
+            private fun calcNext() {
+                while (iterator.hasNext()) {
+                    val item = iterator.nextInt()
+                    if (predicate(item)) {
+                        nextItem = item
+                        nextState = 1
+                        return
+                    }
+                }
+                nextState = 0
+            }
+            override fun nextInt(): Int {
+                if (nextState == -1)
+                    calcNext()
+                if (nextState == 0)
+                    throw NoSuchElementException()
+                nextState = -1
+                return nextItem
+            }
+            override fun hasNext(): Boolean {
+                if (nextState == -1)
+                    calcNext()
+                return nextState == 1
+            }
+        }
+    }
+}
+
+/**
+ * Returns a sequence containing only elements matching the given [predicate].
+ */
+public inline fun LongSequence.filter(crossinline predicate: (Long) -> Boolean): LongSequence {
+    return LongSequence {
+        val iterator = this.iterator()
+        object : LongIterator() {
+            var nextState: Int = -1 // -1 for unknown, 0 for done, 1 for continue
+            var nextItem: Long = 0L
+            private fun calcNext() {
+                while (iterator.hasNext()) {
+                    val item = iterator.nextLong()
+                    if (predicate(item)) {
+                        nextItem = item
+                        nextState = 1
+                        return
+                    }
+                }
+                nextState = 0
+            }
+            override fun nextLong(): Long {
+                if (nextState == -1)
+                    calcNext()
+                if (nextState == 0)
+                    throw NoSuchElementException()
+                nextState = -1
+                return nextItem
+            }
+            override fun hasNext(): Boolean {
+                if (nextState == -1)
+                    calcNext()
+                return nextState == 1
+            }
+        }
+    }
+}
+
+/**
+ * Returns a sequence containing only elements matching the given [predicate].
+ */
+public inline fun DoubleSequence.filter(crossinline predicate: (Double) -> Boolean): DoubleSequence {
+    return DoubleSequence {
+        val iterator = this.iterator()
+        object : DoubleIterator() {
+            var nextState: Int = -1 // -1 for unknown, 0 for done, 1 for continue
+            var nextItem: Double = 0.0
+            private fun calcNext() {
+                while (iterator.hasNext()) {
+                    val item = iterator.nextDouble()
+                    if (predicate(item)) {
+                        nextItem = item
+                        nextState = 1
+                        return
+                    }
+                }
+                nextState = 0
+            }
+            override fun nextDouble(): Double {
+                if (nextState == -1)
+                    calcNext()
+                if (nextState == 0)
+                    throw NoSuchElementException()
+                nextState = -1
+                return nextItem
+            }
+            override fun hasNext(): Boolean {
+                if (nextState == -1)
+                    calcNext()
+                return nextState == 1
+            }
+        }
+    }
+}
+
+/**
+ * Accumulates value starting with [initial] value and applying [operation] from left to right to current accumulator value and each element.
+ */
+public inline fun IntSequence.fold(initial: Int, operation: (Int, Int) -> Int): Int {
+    val iterator = iterator()
+    var accumulator = initial
+    while (iterator.hasNext()) accumulator = operation(accumulator, iterator.nextInt())
+    return accumulator
+}
+
+/**
+ * Accumulates value starting with [initial] value and applying [operation] from left to right to current accumulator value and each element.
+ */
+public inline fun LongSequence.fold(initial: Long, operation: (Long, Long) -> Long): Long {
+    val iterator = iterator()
+    var accumulator = initial
+    while (iterator.hasNext()) accumulator = operation(accumulator, iterator.nextLong())
+    return accumulator
+}
+
+/**
+ * Accumulates value starting with [initial] value and applying [operation] from left to right to current accumulator value and each element.
+ */
+public inline fun DoubleSequence.fold(initial: Double, operation: (Double, Double) -> Double): Double {
+    val iterator = iterator()
+    var accumulator = initial
+    while (iterator.hasNext()) accumulator = operation(accumulator, iterator.nextDouble())
+    return accumulator
+}
+
+/**
+ * Returns a sequence containing the results of applying the given [transform] function to each element in the original sequence.
+ */
+public inline fun IntSequence.map(crossinline transform: (Int) -> Int): IntSequence {
+    return IntSequence {
+        val iterator = this.iterator()
+        object : IntIterator() {
+            override fun nextInt(): Int = transform(iterator.nextInt())
+            override fun hasNext(): Boolean = iterator.hasNext()
+        }
+    }
+}
+
+/**
+ * Returns a sequence containing the results of applying the given [transform] function to each element in the original sequence.
+ */
+public inline fun LongSequence.map(crossinline transform: (Long) -> Long): LongSequence {
+    return LongSequence {
+        val iterator = this.iterator()
+        object : LongIterator() {
+            override fun nextLong(): Long = transform(iterator.nextLong())
+            override fun hasNext(): Boolean = iterator.hasNext()
+        }
+    }
+}
+
+/**
+ * Returns a sequence containing the results of applying the given [transform] function to each element in the original sequence.
+ */
+public inline fun DoubleSequence.map(crossinline transform: (Double) -> Double): DoubleSequence {
+    return DoubleSequence {
+        val iterator = this.iterator()
+        object : DoubleIterator() {
+            override fun nextDouble(): Double = transform(iterator.nextDouble())
+            override fun hasNext(): Boolean = iterator.hasNext()
+        }
+    }
+}
+
+/**
+ * Returns the largest element or `null` if there are no elements.
+ */
+public fun IntSequence.max(): Int? {
+    val iterator = iterator()
+    if (!iterator.hasNext()) return null
+    var max = iterator.nextInt()
+    while (iterator.hasNext()) {
+        val e = iterator.nextInt()
+        if (max < e) max = e
+    }
+    return max
+}
+
+/**
+ * Returns the largest element or `null` if there are no elements.
+ */
+public fun LongSequence.max(): Long? {
+    val iterator = iterator()
+    if (!iterator.hasNext()) return null
+    var max = iterator.nextLong()
+    while (iterator.hasNext()) {
+        val e = iterator.nextLong()
+        if (max < e) max = e
+    }
+    return max
+}
+
+/**
+ * Returns the largest element or `null` if there are no elements.
+ */
+public fun DoubleSequence.max(): Double? {
+    val iterator = iterator()
+    if (!iterator.hasNext()) return null
+    var max = iterator.nextDouble()
+    while (iterator.hasNext()) {
+        val e = iterator.nextDouble()
+        if (max < e) max = e
+    }
+    return max
+}
+
+/**
+ * Returns the smallest element or `null` if there are no elements.
+ */
+public fun IntSequence.min(): Int? {
+    val iterator = iterator()
+    if (!iterator.hasNext()) return null
+    var min = iterator.nextInt()
+    while (iterator.hasNext()) {
+        val e = iterator.nextInt()
+        if (min > e) min = e
+    }
+    return min
+}
+
+/**
+ * Returns the smallest element or `null` if there are no elements.
+ */
+public fun LongSequence.min(): Long? {
+    val iterator = iterator()
+    if (!iterator.hasNext()) return null
+    var min = iterator.nextLong()
+    while (iterator.hasNext()) {
+        val e = iterator.nextLong()
+        if (min > e) min = e
+    }
+    return min
+}
+
+/**
+ * Returns the smallest element or `null` if there are no elements.
+ */
+public fun DoubleSequence.min(): Double? {
+    val iterator = iterator()
+    if (!iterator.hasNext()) return null
+    var min = iterator.nextDouble()
+    while (iterator.hasNext()) {
+        val e = iterator.nextDouble()
+        if (min > e) min = e
+    }
+    return min
+}
+
+/**
+ * Returns the sum of all elements in the sequence.
+ */
+public fun IntSequence.sum(): Int {
+    val iterator = iterator()
+    var sum: Int = 0
+    while (iterator.hasNext()) {
+        sum += iterator.nextInt()
+    }
+    return sum
+}
+
+/**
+ * Returns the sum of all elements in the sequence.
+ */
+public fun LongSequence.sum(): Long {
+    val iterator = iterator()
+    var sum: Long = 0L
+    while (iterator.hasNext()) {
+        sum += iterator.nextLong()
+    }
+    return sum
+}
+
+/**
+ * Returns the sum of all elements in the sequence.
+ */
+public fun DoubleSequence.sum(): Double {
+    val iterator = iterator()
+    var sum: Double = 0.0
+    while (iterator.hasNext()) {
+        sum += iterator.nextDouble()
+    }
+    return sum
+}
+
@@ -0,0 +1,122 @@
+@file:kotlin.jvm.JvmVersion
+@file:kotlin.jvm.JvmMultifileClass
+@file:kotlin.jvm.JvmName("ParallelKt")
+
+package kotlin.collections
+
+import java.util.*
+import java.util.concurrent.*
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * A view of a list which processes its elements concurrently. Every operation splits the list into chunks
+ * and runs them on the [executor]; the calling thread runs the chunks which no worker has started yet,
+ * so operations of views may be nested without exhausting the executor threads.
+ *
+ * Results of the operations keep the order of elements in the original list.
+ * Functions passed to the operations may be called from several threads at once.
+ */
+public class ParallelView<T> internal constructor(private val list: List<T>, public val executor: ExecutorService) {
+
+    /**
+     * Performs the given [action] on each element. Elements of different chunks are processed in no particular order.
+     */
+    public fun forEach(action: (T) -> Unit) {
+        processChunks { chunk -> chunk.forEach(action) }
+    }
+
+    /**
+     * Returns a list containing the results of applying the given [transform] function to each element in the original list.
+     */
+    public fun <R> map(transform: (T) -> R): List<R> =
+            processChunks { chunk -> chunk.map(transform) }.flatten()
+
+    /**
+     * Returns a list containing only elements matching the given [predicate].
+     */
+    public fun filter(predicate: (T) -> Boolean): List<T> =
+            processChunks { chunk -> chunk.filter(predicate) }.flatten()
+
+    /**
+     * Accumulates value starting with the first element and applying [operation] to current accumulator value and each element.
+     * The [operation] must be associative, because chunks are reduced separately and their results are reduced in order afterwards.
+     */
+    public fun reduce(operation: (T, T) -> T): T {
+        if (list.isEmpty()) throw UnsupportedOperationException("Empty collection can't be reduced.")
+        return processChunks { chunk -> chunk.reduce(operation) }.reduce(operation)
+    }
+
+    /**
+     * Accumulates value starting with [initial] value and applying [operation] to current accumulator value and each element.
+     * Every chunk is folded separately starting with [initial] value, and the results of chunks are merged in order with [combine],
+     * so [initial] should be an identity of [combine] and must not be mutated.
+     */
+    public fun <R> fold(initial: R, operation: (R, T) -> R, combine: (R, R) -> R): R =
+            processChunks { chunk -> chunk.fold(initial, operation) }.fold(initial, combine)
+
+    /**
+     * Groups elements of the original list by the key returned by the given [keySelector] function
+     * and returns a map where each group key is associated with a list of corresponding elements.
+     * Both keys and elements of groups keep the order of the original list.
+     */
+    public fun <K> groupBy(keySelector: (T) -> K): Map<K, List<T>> {
+        val result = LinkedHashMap<K, MutableList<T>>()
+        for (groups in processChunks { chunk -> chunk.groupBy(keySelector) }) {
+            for ((key, elements) in groups) {
+                result.getOrPut(key) { ArrayList<T>() }.addAll(elements)
+            }
+        }
+        return result
+    }
+
+    /**
+     * Returns the sum of all values produced by [selector] function applied to each element.
+     */
+    public fun sumBy(selector: (T) -> Int): Int =
+            processChunks { chunk -> chunk.sumBy(selector) }.sum()
+
+    private fun <R> processChunks(action: (List<T>) -> R): List<R> {
+        val size = list.size
+        if (size == 0) return emptyList()
+
+        val chunkCount = Math.min(size, CHUNKS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors())
+        val tasks = (0..chunkCount - 1).map { i ->
+            val fromIndex = (i.toLong() * size / chunkCount).toInt()
+            val toIndex = ((i + 1).toLong() * size / chunkCount).toInt()
+            FutureTask(Callable { action(list.subList(fromIndex, toIndex)) })
+        }
+
+        for (i in 1..tasks.size - 1) {
+            executor.execute(tasks[i])
+        }
+
+        return tasks.map { task ->
+            // does nothing if a worker has already started the task
+            task.run()
+            try {
+                task.get()
+            }
+            catch (e: ExecutionException) {
+                throw e.cause ?: e
+            }
+        }
+    }
+
+    private companion object {
+        // more chunks than threads, so that threads which finish early can take over the rest of the work
+        private const val CHUNKS_PER_PROCESSOR = 4
+    }
+}
+
+/**
+ * The executor of parallel views which are created without an explicit one:
+ * a pool of daemon threads, one per available processor, which is created on the first use.
+ */
+internal val defaultParallelExecutor: ExecutorService by lazy {
+    val threadCount = AtomicInteger()
+    Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), ThreadFactory { runnable ->
+        val thread = Thread(runnable, "kotlin-parallel-${threadCount.incrementAndGet()}")
+        thread.isDaemon = true
+        thread
+    })
+}
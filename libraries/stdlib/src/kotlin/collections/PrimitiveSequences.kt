@@ -0,0 +1,64 @@
+@file:kotlin.jvm.JvmMultifileClass
+@file:kotlin.jvm.JvmName("PrimitiveSequencesKt")
+
+package kotlin.sequences
+
+/**
+ * A sequence of `Int` values that returns them through an [IntIterator] without boxing.
+ * The values are evaluated lazily, and the sequence is potentially infinite.
+ */
+public interface IntSequence {
+    /**
+     * Returns an iterator that returns the values from the sequence.
+     */
+    public operator fun iterator(): IntIterator
+}
+
+/**
+ * A sequence of `Long` values that returns them through a [LongIterator] without boxing.
+ * The values are evaluated lazily, and the sequence is potentially infinite.
+ */
+public interface LongSequence {
+    /**
+     * Returns an iterator that returns the values from the sequence.
+     */
+    public operator fun iterator(): LongIterator
+}
+
+/**
+ * A sequence of `Double` values that returns them through a [DoubleIterator] without boxing.
+ * The values are evaluated lazily, and the sequence is potentially infinite.
+ */
+public interface DoubleSequence {
+    /**
+     * Returns an iterator that returns the values from the sequence.
+     */
+    public operator fun iterator(): DoubleIterator
+}
+
+/**
+ * Given an [iterator] function constructs an [IntSequence] that returns values through the [IntIterator]
+ * provided by that function.
+ */
+@kotlin.internal.InlineOnly
+public inline fun IntSequence(crossinline iterator: () -> IntIterator): IntSequence = object : IntSequence {
+    override fun iterator(): IntIterator = iterator()
+}
+
+/**
+ * Given an [iterator] function constructs a [LongSequence] that returns values through the [LongIterator]
+ * provided by that function.
+ */
+@kotlin.internal.InlineOnly
+public inline fun LongSequence(crossinline iterator: () -> LongIterator): LongSequence = object : LongSequence {
+    override fun iterator(): LongIterator = iterator()
+}
+
+/**
+ * Given an [iterator] function constructs a [DoubleSequence] that returns values through the [DoubleIterator]
+ * provided by that function.
+ */
+@kotlin.internal.InlineOnly
+public inline fun DoubleSequence(crossinline iterator: () -> DoubleIterator): DoubleSequence = object : DoubleSequence {
+    override fun iterator(): DoubleIterator = iterator()
+}
@@ -56,6 +56,7 @@ public fun <T> lazy(mode: LazyThreadSafetyMode, initializer: () -> T): Lazy<T> =
             LazyThreadSafetyMode.SYNCHRONIZED -> SynchronizedLazyImpl(initializer)
             LazyThreadSafetyMode.PUBLICATION -> SafePublicationLazyImpl(initializer)
             LazyThreadSafetyMode.NONE -> UnsafeLazyImpl(initializer)
+            LazyThreadSafetyMode.PARKING -> ParkingLazyImpl(initializer)
         }
 
 /**
@@ -103,8 +104,35 @@ public enum class LazyThreadSafetyMode {
      * This mode should be used only when high performance is crucial and the [Lazy] instance is guaranteed never to be initialized from more than one thread.
      */
     NONE,
+
+    /**
+     * Only a single thread initializes the [Lazy] instance, as with [SYNCHRONIZED], but no locks are used:
+     * the instance switches its state with compare-and-set operations, and threads which access it while it's being
+     * initialized are parked until the initialization ends. This mode suits values which many threads access at once
+     * for the first time.
+     *
+     * A [Lazy] instance created in this mode implements [LazyStatistics].
+     */
+    PARKING,
 }
 
+/**
+ * Statistics of the initialization of a [Lazy] instance created in the [LazyThreadSafetyMode.PARKING] mode.
+ *
+ * The statistics are recorded only when the `kotlin.lazy.statistics` system property is set to `true`,
+ * otherwise all of them are zero.
+ */
+@kotlin.jvm.JvmVersion
+public interface LazyStatistics {
+    /**
+     * Time the initializer took to compute the value, in nanoseconds, or zero if the value isn't initialized yet.
+     */
+    public val initializationNanos: Long
+    /**
+     * Number of accesses which had to wait while another thread was initializing the value.
+     */
+    public val contendedAccesses: Int
+}
 
 private object UNINITIALIZED_VALUE
 
@@ -208,4 +236,122 @@ private class SafePublicationLazyImpl<out T>(initializer: () -> T) : Lazy<T>, Se
                 Any::class.java,
                 "_value")
     }
-}
\ No newline at end of file
+}
+
+@kotlin.jvm.JvmVersion
+private class ParkingLazyImpl<out T>(initializer: () -> T) : Lazy<T>, LazyStatistics, Serializable {
+    private var initializer: (() -> T)? = initializer
+    // UNINITIALIZED_VALUE, Initializing while some thread runs the initializer, or the value itself
+    @Volatile private var _value: Any? = UNINITIALIZED_VALUE
+    @Volatile private var _initializationNanos: Long = 0
+    @Volatile private var _contendedAccesses: Int = 0
+
+    override val value: T
+        get() {
+            while (true) {
+                val state = _value
+                if (state === UNINITIALIZED_VALUE) {
+                    if (valueUpdater.compareAndSet(this, UNINITIALIZED_VALUE, Initializing(Thread.currentThread(), null))) {
+                        return initialize()
+                    }
+                }
+                else if (state is Initializing) {
+                    await(state)
+                }
+                else {
+                    @Suppress("UNCHECKED_CAST")
+                    return state as T
+                }
+            }
+        }
+
+    private fun initialize(): T {
+        val start = if (recordStatistics) System.nanoTime() else 0L
+        val newValue = try {
+            initializer!!()
+        }
+        catch (e: Throwable) {
+            // one of the waiting threads will try to initialize the value again
+            release(UNINITIALIZED_VALUE)
+            throw e
+        }
+        if (recordStatistics) {
+            _initializationNanos = System.nanoTime() - start
+        }
+        initializer = null
+        release(newValue)
+        return newValue
+    }
+
+    private fun release(newState: Any?) {
+        while (true) {
+            val state = _value as Initializing
+            if (valueUpdater.compareAndSet(this, state, newState)) {
+                var waiter = state.waiters
+                while (waiter != null) {
+                    waiter.released = true
+                    java.util.concurrent.locks.LockSupport.unpark(waiter.thread)
+                    waiter = waiter.next
+                }
+                return
+            }
+        }
+    }
+
+    private fun await(state: Initializing) {
+        val currentThread = Thread.currentThread()
+        if (state.owner === currentThread) {
+            throw IllegalStateException("Lazy value is accessed recursively from its own initializer.")
+        }
+
+        val waiter = Waiter(currentThread, state.waiters)
+        // the state has changed, the caller looks at it again
+        if (!valueUpdater.compareAndSet(this, state, Initializing(state.owner, waiter))) return
+
+        if (recordStatistics) {
+            contendedAccessesUpdater.incrementAndGet(this)
+        }
+
+        // park() may return spuriously, so the flag is checked each time;
+        // interruption doesn't stop waiting, the interrupted status is restored afterwards
+        var interrupted = false
+        while (!waiter.released) {
+            java.util.concurrent.locks.LockSupport.park(this)
+            if (Thread.interrupted()) interrupted = true
+        }
+        if (interrupted) currentThread.interrupt()
+    }
+
+    override val initializationNanos: Long get() = _initializationNanos
+
+    override val contendedAccesses: Int get() = _contendedAccesses
+
+    override fun isInitialized(): Boolean {
+        val state = _value
+        return state !== UNINITIALIZED_VALUE && state !is Initializing
+    }
+
+    override fun toString(): String = if (isInitialized()) value.toString() else "Lazy value not initialized yet."
+
+    private fun writeReplace(): Any = InitializedLazyImpl(value)
+
+    // the state while the owner thread runs the initializer, threads waiting for it are linked through waiters
+    private class Initializing(val owner: Thread, val waiters: Waiter?)
+
+    private class Waiter(val thread: Thread, val next: Waiter?) {
+        @Volatile var released: Boolean = false
+    }
+
+    companion object {
+        private val recordStatistics = System.getProperty("kotlin.lazy.statistics") == "true"
+
+        private val valueUpdater = java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater(
+                ParkingLazyImpl::class.java,
+                Any::class.java,
+                "_value")
+
+        private val contendedAccessesUpdater = java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater(
+                ParkingLazyImpl::class.java,
+                "_contendedAccesses")
+    }
+}
@@ -0,0 +1,45 @@
+package test.collections
+
+import org.junit.Test as test
+import java.util.concurrent.Executors
+import kotlin.test.*
+
+class ParallelJVMTest {
+    private val numbers = (1..1000).toList()
+
+    @test fun mapAndFilterKeepOrder() {
+        assertEquals(numbers.map { it * 2 }, numbers.parallel().map { it * 2 })
+        assertEquals(numbers.filter { it % 3 == 0 }, numbers.parallel().filter { it % 3 == 0 })
+        assertEquals(listOf("a", "b", "c"), sequenceOf("a", "b", "c").parallel().map { it })
+    }
+
+    @test fun aggregates() {
+        assertEquals(500500, numbers.parallel().sumBy { it })
+        assertEquals(500500, numbers.toIntArray().parallel().reduce { a, b -> a + b })
+        assertEquals(500500L, numbers.parallel().fold(0L, { acc, e -> acc + e }, { a, b -> a + b }))
+        assertEquals(0L, emptyList<Int>().parallel().fold(0L, { acc, e -> acc + e }, { a, b -> a + b }))
+        assertFails { emptyList<Int>().parallel().reduce { a, b -> a + b } }
+    }
+
+    @test fun groupBy() {
+        val words = arrayOf("apple", "avocado", "banana", "blueberry", "cherry", "apricot")
+        assertEquals(words.groupBy { it.first() }, words.parallel().groupBy { it.first() })
+        assertEquals(listOf('a', 'b', 'c'), words.parallel().groupBy { it.first() }.keys.toList())
+    }
+
+    @test fun nestedOperationsOnSingleThread() {
+        val executor = Executors.newSingleThreadExecutor()
+        try {
+            val result = numbers.parallel(executor).map { n -> (1..n).toList().parallel(executor).sumBy { it } }
+            assertEquals(numbers.map { it * (it + 1) / 2 }, result)
+        }
+        finally {
+            executor.shutdown()
+        }
+    }
+
+    @test fun exceptionIsRethrown() {
+        val e = assertFails { numbers.parallel().forEach { if (it == 500) throw IllegalStateException("500") } }
+        assertTrue(e is IllegalStateException)
+    }
+}
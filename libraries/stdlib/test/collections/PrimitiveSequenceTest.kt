@@ -0,0 +1,41 @@
+package test.collections
+
+import org.junit.Test as test
+import kotlin.test.*
+
+class PrimitiveSequenceTest {
+
+    @test fun mapFilterSum() {
+        val sequence = intArrayOf(1, 2, 3, 4, 5).asPrimitiveSequence().map { it * it }.filter { it % 2 == 1 }
+        assertEquals(35, sequence.sum())
+        assertEquals(listOf(1, 9, 25), sequence.asSequence().toList())
+    }
+
+    @test fun progression() {
+        assertEquals(5050L, (1L..100L).asPrimitiveSequence().sum())
+        assertEquals(listOf(10, 7, 4, 1), (10 downTo 1 step 3).asPrimitiveSequence().asSequence().toList())
+    }
+
+    @test fun fold() {
+        assertEquals(120L, longArrayOf(1, 2, 3, 4, 5).asPrimitiveSequence().fold(1L) { acc, e -> acc * e })
+        assertEquals(7.5, doubleArrayOf(0.5, 1.0, 1.5).asPrimitiveSequence().map { it * 2 }.fold(1.5) { acc, e -> acc + e })
+    }
+
+    @test fun minMax() {
+        val sequence = intArrayOf(3, -1, 7, 2).asPrimitiveSequence()
+        assertEquals(-1, sequence.min())
+        assertEquals(7, sequence.max())
+        assertNull(intArrayOf().asPrimitiveSequence().min())
+        assertNull(doubleArrayOf(1.0).asPrimitiveSequence().filter { it > 1.0 }.max())
+    }
+
+    @test fun filterIterator() {
+        val iterator = intArrayOf(1, 2, 3).asPrimitiveSequence().filter { it > 1 }.iterator()
+        assertTrue(iterator.hasNext())
+        assertTrue(iterator.hasNext())
+        assertEquals(2, iterator.nextInt())
+        assertEquals(3, iterator.nextInt())
+        assertFalse(iterator.hasNext())
+        assertFails { iterator.nextInt() }
+    }
+}
@@ -74,8 +74,46 @@ class LazyJVMTest {
         }
     }
 
+    @test fun parkingLazy() {
+        val counter = AtomicInteger(0)
+        val lazy = lazy(LazyThreadSafetyMode.PARKING) {
+            val value = counter.incrementAndGet()
+            Thread.sleep(100)
+            value
+        }
+
+        val accessThreads = (1..10).map { thread { assertEquals(1, lazy.value) } }
+        accessThreads.forEach { it.join() }
+
+        assertEquals(1, counter.get())
+        assertTrue(lazy.isInitialized())
+        assertTrue(lazy is LazyStatistics)
+    }
+
+    @test fun parkingLazyRetriesAfterException() {
+        val counter = AtomicInteger(0)
+        val lazy = lazy(LazyThreadSafetyMode.PARKING) {
+            if (counter.incrementAndGet() == 1) throw IllegalStateException()
+            "initialized"
+        }
+
+        assertFailsWith<IllegalStateException> { lazy.value }
+        assertFalse(lazy.isInitialized())
+        assertEquals("initialized", lazy.value)
+        assertEquals(2, counter.get())
+    }
+
+    @test fun parkingLazyRecursiveAccess() {
+        var recursive: Lazy<Int>? = null
+        val lazy = lazy(LazyThreadSafetyMode.PARKING) { recursive!!.value + 1 }
+        recursive = lazy
+
+        assertFailsWith<IllegalStateException> { lazy.value }
+        assertFalse(lazy.isInitialized())
+    }
+
     @test fun lazyInitializationForcedOnSerialization() {
-        for(mode in listOf(LazyThreadSafetyMode.SYNCHRONIZED, LazyThreadSafetyMode.PUBLICATION, LazyThreadSafetyMode.NONE)) {
+        for(mode in LazyThreadSafetyMode.values()) {
             val lazy = lazy(mode) { "initialized" }
             assertFalse(lazy.isInitialized())
             val lazy2 = serializeAndDeserialize(lazy)
@@ -19,10 +19,12 @@ fun generateCollectionsAPI(outDir: File) {
             ::generators,
             ::strings,
             ::sequences,
+            ::primitiveSequences,
             ::specialJVM,
             ::ranges,
             ::numeric,
-            ::comparables
+            ::comparables,
+            ::parallel
     ).flatMap { it().sortedBy { it.signature }.asSequence() }
 
     val groupedConcreteFunctions = templates.flatMap { it.instantiate().asSequence() }.groupBy { it.sourceFile }
@@ -0,0 +1,35 @@
+package templates
+
+import templates.Family.*
+
+fun parallel(): List<GenericFunction> {
+    val templates = arrayListOf<GenericFunction>()
+
+    templates add f("parallel(executor: java.util.concurrent.ExecutorService = defaultParallelExecutor)") {
+        only(Lists, ArraysOfObjects, ArraysOfPrimitives, Sequences)
+        jvmOnly(true)
+        sourceFile(SourceFile.Parallel)
+        doc { f ->
+            """
+            Returns a view of this ${f.collection} which processes its ${f.element.pluralize()} concurrently on the given [executor].
+            Results of the view operations keep the order of ${f.element.pluralize()} in the original ${f.collection}.
+            """
+        }
+        doc(Sequences) {
+            """
+            Returns a view of the elements of this sequence which processes them concurrently on the given [executor].
+            The sequence is iterated immediately, and results of the view operations keep the order of its elements.
+            """
+        }
+        returns("ParallelView<T>")
+        body { f ->
+            when (f) {
+                Lists -> "return ParallelView(if (this is RandomAccess) this else toList(), executor)"
+                Sequences -> "return ParallelView(toList(), executor)"
+                else -> "return ParallelView(asList(), executor)"
+            }
+        }
+    }
+
+    return templates
+}
@@ -0,0 +1,175 @@
+package templates
+
+import templates.Family.*
+
+fun primitiveSequences(): List<GenericFunction> {
+    val templates = arrayListOf<GenericFunction>()
+
+    templates add f("asPrimitiveSequence()") {
+        only(ArraysOfPrimitives, ProgressionsOfPrimitives)
+        only(sequencePrimitives)
+        onlyPrimitives(ProgressionsOfPrimitives, PrimitiveType.Int, PrimitiveType.Long)
+        sourceFile(SourceFile.PrimitiveSequences)
+        doc { f -> "Creates a primitive sequence instance that wraps the original ${f.collection} returning its ${f.element.pluralize()} without boxing when being iterated." }
+        doc(ProgressionsOfPrimitives) { "Creates a primitive sequence instance that wraps the original progression returning its elements without boxing when being iterated." }
+        returns("TSequence")
+        body {
+            """
+            return TSequence { this.iterator() }
+            """
+        }
+    }
+
+    templates add f("asSequence()") {
+        only(PrimitiveSequences)
+        only(sequencePrimitives)
+        doc { "Creates a [Sequence] instance that wraps the original sequence returning its elements boxed when being iterated." }
+        returns("Sequence<T>")
+        body {
+            """
+            return Sequence { this.iterator() }
+            """
+        }
+    }
+
+    templates add f("filter(crossinline predicate: (T) -> Boolean)") {
+        inline(true)
+        only(PrimitiveSequences)
+        only(sequencePrimitives)
+        doc { "Returns a sequence containing only elements matching the given [predicate]." }
+        returns("TSequence")
+        body {
+            """
+            return TSequence {
+                val iterator = this.iterator()
+                object : TIterator() {
+                    var nextState: Int = -1 // -1 for unknown, 0 for done, 1 for continue
+                    var nextItem: T = ZERO
+
+                    private fun calcNext() {
+                        while (iterator.hasNext()) {
+                            val item = iterator.nextT()
+                            if (predicate(item)) {
+                                nextItem = item
+                                nextState = 1
+                                return
+                            }
+                        }
+                        nextState = 0
+                    }
+
+                    override fun nextT(): T {
+                        if (nextState == -1)
+                            calcNext()
+                        if (nextState == 0)
+                            throw NoSuchElementException()
+                        nextState = -1
+                        return nextItem
+                    }
+
+                    override fun hasNext(): Boolean {
+                        if (nextState == -1)
+                            calcNext()
+                        return nextState == 1
+                    }
+                }
+            }
+            """
+        }
+    }
+
+    templates add f("fold(initial: T, operation: (T, T) -> T)") {
+        inline(true)
+        only(PrimitiveSequences)
+        only(sequencePrimitives)
+        doc { "Accumulates value starting with [initial] value and applying [operation] from left to right to current accumulator value and each element." }
+        returns("T")
+        body {
+            """
+            val iterator = iterator()
+            var accumulator = initial
+            while (iterator.hasNext()) accumulator = operation(accumulator, iterator.nextT())
+            return accumulator
+            """
+        }
+    }
+
+    templates add f("map(crossinline transform: (T) -> T)") {
+        inline(true)
+        only(PrimitiveSequences)
+        only(sequencePrimitives)
+        doc { "Returns a sequence containing the results of applying the given [transform] function to each element in the original sequence." }
+        returns("TSequence")
+        body {
+            """
+            return TSequence {
+                val iterator = this.iterator()
+                object : TIterator() {
+                    override fun nextT(): T = transform(iterator.nextT())
+
+                    override fun hasNext(): Boolean = iterator.hasNext()
+                }
+            }
+            """
+        }
+    }
+
+    templates add f("max()") {
+        only(PrimitiveSequences)
+        only(sequencePrimitives)
+        doc { "Returns the largest element or `null` if there are no elements." }
+        returns("T?")
+        body {
+            """
+            val iterator = iterator()
+            if (!iterator.hasNext()) return null
+
+            var max = iterator.nextT()
+            while (iterator.hasNext()) {
+                val e = iterator.nextT()
+                if (max < e) max = e
+            }
+            return max
+            """
+        }
+    }
+
+    templates add f("min()") {
+        only(PrimitiveSequences)
+        only(sequencePrimitives)
+        doc { "Returns the smallest element or `null` if there are no elements." }
+        returns("T?")
+        body {
+            """
+            val iterator = iterator()
+            if (!iterator.hasNext()) return null
+
+            var min = iterator.nextT()
+            while (iterator.hasNext()) {
+                val e = iterator.nextT()
+                if (min > e) min = e
+            }
+            return min
+            """
+        }
+    }
+
+    templates add f("sum()") {
+        only(PrimitiveSequences)
+        only(sequencePrimitives)
+        doc { "Returns the sum of all elements in the sequence." }
+        returns("T")
+        body {
+            """
+            val iterator = iterator()
+            var sum: T = ZERO
+            while (iterator.hasNext()) {
+                sum += iterator.nextT()
+            }
+            return sum
+            """
+        }
+    }
+
+    return templates
+}
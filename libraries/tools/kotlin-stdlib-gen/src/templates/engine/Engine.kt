@@ -15,6 +15,7 @@ enum class Family {
     ArraysOfObjects,
     ArraysOfPrimitives,
     Sequences,
+    PrimitiveSequences,
     CharSequences,
     Strings,
     Ranges,
@@ -31,7 +32,7 @@ enum class Family {
     val code = CodeExtension(this)
 
     companion object {
-        val primitiveSpecializations = setOf(ArraysOfPrimitives, RangesOfPrimitives, ProgressionsOfPrimitives, Primitives)
+        val primitiveSpecializations = setOf(ArraysOfPrimitives, PrimitiveSequences, RangesOfPrimitives, ProgressionsOfPrimitives, Primitives)
         val defaultFamilies = setOf(Iterables, Sequences, ArraysOfObjects, ArraysOfPrimitives)
     }
 }
@@ -50,6 +51,7 @@ enum class PrimitiveType {
         val defaultPrimitives = PrimitiveType.values().toSet()
         val numericPrimitives = setOf(Int, Long, Byte, Short, Double, Float)
         val integralPrimitives = setOf(Int, Long, Byte, Short, Char)
+        val sequencePrimitives = setOf(Int, Long, Double)
 
         val descendingByDomainCapacity = listOf(Double, Float, Long, Int, Short, Char, Byte)
 
@@ -126,6 +128,7 @@ class GenericFunction(val signature: String, val keyword: String = "fun") {
     val defaultFamilies = Family.defaultFamilies
     val defaultPrimitives = PrimitiveType.defaultPrimitives
     val numericPrimitives = PrimitiveType.numericPrimitives
+    val sequencePrimitives = PrimitiveType.sequencePrimitives
 
     var toNullableT: Boolean = false
 
@@ -225,6 +228,7 @@ class GenericFunction(val signature: String, val keyword: String = "fun") {
     private fun getDefaultSourceFile(f: Family): SourceFile = when (f) {
         Iterables, Collections, Lists -> SourceFile.Collections
         Sequences -> SourceFile.Sequences
+        PrimitiveSequences -> SourceFile.PrimitiveSequences
         Sets -> SourceFile.Sets
         Ranges, RangesOfPrimitives, ProgressionsOfPrimitives -> SourceFile.Ranges
         ArraysOfObjects, InvariantArraysOfObjects, ArraysOfPrimitives -> SourceFile.Arrays
@@ -315,6 +319,9 @@ class GenericFunction(val signature: String, val keyword: String = "fun") {
                                           else -> primitive!!.name + "Progression"
                                       }
                                   }
+                                  "TSequence" -> primitive!!.name + "Sequence"
+                                  "TIterator" -> primitive!!.name + "Iterator"
+                                  "nextT" -> "next" + primitive!!.name
                                   else -> token
                               })
             }
@@ -338,6 +345,7 @@ class GenericFunction(val signature: String, val keyword: String = "fun") {
             ArraysOfPrimitives -> primitive?.let { it.name + "Array" } ?: throw IllegalArgumentException("Primitive array should specify primitive type")
             RangesOfPrimitives -> primitive?.let { it.name + "Range" } ?: throw IllegalArgumentException("Primitive range should specify primitive type")
             ProgressionsOfPrimitives -> primitive?.let { it.name + "Progression" } ?: throw IllegalArgumentException("Primitive progression should specify primitive type")
+            PrimitiveSequences -> primitive?.let { it.name + "Sequence" } ?: throw IllegalArgumentException("Primitive sequence should specify primitive type")
             Primitives -> primitive?.let { it.name } ?: throw IllegalArgumentException("Primitive should specify primitive type")
             Generic -> "T"
         }).let { renderType(it, it) }
@@ -7,8 +7,10 @@ enum class SourceFile(jvmClassName: String? = null, val multifile: Boolean = tru
     Sets(packageName = "kotlin.collections"),
     Maps(packageName = "kotlin.collections"),
     Sequences(packageName = "kotlin.sequences"),
+    PrimitiveSequences(packageName = "kotlin.sequences"),
     Ranges(packageName = "kotlin.ranges"),
     Strings(packageName = "kotlin.text"),
+    Parallel(packageName = "kotlin.collections"),
     Misc(),
     ;
 